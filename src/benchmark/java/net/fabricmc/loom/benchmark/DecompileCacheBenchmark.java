@@ -0,0 +1,174 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.decompilers.ClassLineNumbers;
+import net.fabricmc.loom.decompilers.cache.CachedData;
+import net.fabricmc.loom.decompilers.cache.CachedFileStoreImpl;
+import net.fabricmc.loom.decompilers.cache.CachedJarProcessor;
+import net.fabricmc.loom.decompilers.cache.IndexedCachedFileStore;
+
+/**
+ * Benchmarks the decompile cache with a cache that contains every class of the jar, and with an empty cache, and
+ * saving the output of a decompile to the cache.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecompileCacheBenchmark {
+	private static final CachedFileStoreImpl.CacheRules CACHE_RULES = new CachedFileStoreImpl.CacheRules(50_000, 1024L * 1024 * 1024, Duration.ofDays(90));
+
+	@Param({"2000"})
+	public int classCount;
+
+	private Path tempDir;
+	private Path inputJar;
+	private Path sourcesJar;
+	private ClassLineNumbers lineNumbers;
+	private IndexedCachedFileStore<CachedData> warmStore;
+	private IndexedCachedFileStore<CachedData> emptyStore;
+	private CachedJarProcessor warmProcessor;
+	private CachedJarProcessor emptyProcessor;
+
+	@Setup
+	public void setup() throws IOException {
+		final SyntheticJar jar = SyntheticJar.of(classCount);
+		tempDir = Files.createTempDirectory("loom-benchmark");
+		inputJar = tempDir.resolve("input.jar");
+		sourcesJar = tempDir.resolve("sources.jar");
+		jar.write(inputJar, SyntheticJar.Side.CLIENT);
+
+		final Path lineMappings = tempDir.resolve("linemap.txt");
+		jar.writeLineMappings(lineMappings);
+		lineNumbers = ClassLineNumbers.readMappings(lineMappings);
+
+		warmStore = IndexedCachedFileStore.open(tempDir.resolve("warm-cache"), CachedData.CHANNEL_SERIALIZER, CACHE_RULES);
+		emptyStore = IndexedCachedFileStore.open(tempDir.resolve("empty-cache"), CachedData.CHANNEL_SERIALIZER, CACHE_RULES);
+		warmProcessor = new CachedJarProcessor(warmStore, "benchmark");
+		emptyProcessor = new CachedJarProcessor(emptyStore, "benchmark");
+
+		// Fill the cache as if the whole jar had been decompiled
+		final var workJob = (CachedJarProcessor.WorkToDoJob) warmProcessor.prepareJob(inputJar, sourcesJar).job();
+		writeSources(workJob);
+		warmProcessor.completeJob(sourcesJar, workJob, lineNumbers);
+
+		final CachedJarProcessor.WorkJob completedJob = warmProcessor.prepareJob(inputJar, sourcesJar).job();
+
+		if (!(completedJob instanceof CachedJarProcessor.CompletedWorkJob)) {
+			throw new IllegalStateException("Expected every class to be cached, got " + completedJob);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		warmStore.close();
+		emptyStore.close();
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	// Includes writing every cached source file to the sources jar
+	@Benchmark
+	public CachedJarProcessor.WorkRequest prepareJobCached() throws IOException {
+		return warmProcessor.prepareJob(inputJar, sourcesJar);
+	}
+
+	@Benchmark
+	public CachedJarProcessor.WorkRequest prepareJobUncached() throws IOException {
+		return emptyProcessor.prepareJob(inputJar, sourcesJar);
+	}
+
+	// Copies the decompiled sources of every class to the sources jar and the cache
+	@Benchmark
+	public void completeJob(CompleteJobState state) throws IOException {
+		state.processor.completeJob(state.sourcesJar, state.workJob, lineNumbers);
+	}
+
+	/**
+	 * A job waiting to be completed, with an empty cache of its own for each invocation.
+	 */
+	@State(Scope.Thread)
+	public static class CompleteJobState {
+		private Path dir;
+		private Path sourcesJar;
+		private IndexedCachedFileStore<CachedData> store;
+		private CachedJarProcessor processor;
+		private CachedJarProcessor.WorkToDoJob workJob;
+
+		@Setup(Level.Invocation)
+		public void setup(DecompileCacheBenchmark benchmark) throws IOException {
+			dir = Files.createTempDirectory(benchmark.tempDir, "complete");
+			sourcesJar = dir.resolve("sources.jar");
+			store = IndexedCachedFileStore.open(dir.resolve("cache"), CachedData.CHANNEL_SERIALIZER, CACHE_RULES);
+			processor = new CachedJarProcessor(store, "benchmark");
+			workJob = (CachedJarProcessor.WorkToDoJob) processor.prepareJob(benchmark.inputJar, sourcesJar).job();
+			writeSources(workJob);
+		}
+
+		@TearDown(Level.Invocation)
+		public void tearDown() throws IOException {
+			store.close();
+			FileUtils.deleteDirectory(dir.toFile());
+		}
+	}
+
+	// Stands in for the decompiler, which writes a source file for each class to the output of the job
+	private static void writeSources(CachedJarProcessor.WorkToDoJob workJob) throws IOException {
+		try (var zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(workJob.output())))) {
+			for (String name : workJob.outputNameMap().keySet()) {
+				zip.putNextEntry(new ZipEntry(name));
+				zip.write(("// Decompiled sources of " + name + "\n").repeat(200).getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftClassMerger;
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarMerger;
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MinecraftJarMergerBenchmark {
+	@Param({"2000"})
+	public int classCount;
+
+	private Path tempDir;
+	private Path clientJar;
+	private Path serverJar;
+	private Path mergedJar;
+	private byte[] clientClass;
+	private byte[] serverClass;
+
+	@Setup
+	public void setup() throws IOException {
+		final SyntheticJar jar = SyntheticJar.of(classCount);
+		tempDir = Files.createTempDirectory("loom-benchmark");
+		clientJar = tempDir.resolve("client.jar");
+		serverJar = tempDir.resolve("server.jar");
+		mergedJar = tempDir.resolve("merged.jar");
+		jar.write(clientJar, SyntheticJar.Side.CLIENT);
+		jar.write(serverJar, SyntheticJar.Side.SERVER);
+
+		// A class with methods that are missing on the server
+		clientClass = jar.createClass(0, -1, SyntheticJar.Side.CLIENT);
+		serverClass = jar.createClass(0, -1, SyntheticJar.Side.SERVER);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Measurement(iterations = 10)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void mergeJars() throws IOException {
+		try (var jarMerger = new MinecraftJarMerger(clientJar.toFile(), serverJar.toFile(), mergedJar.toFile())) {
+			jarMerger.enableSyntheticParamsOffset();
+			jarMerger.merge();
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public byte[] mergeClass() {
+		return new MinecraftClassMerger().merge(clientClass, serverClass);
+	}
+}
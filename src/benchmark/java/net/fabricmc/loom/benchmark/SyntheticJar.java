@@ -0,0 +1,227 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates jars that look enough like Minecraft for the benchmarks, without needing to download it.
+ *
+ * <p>The output only depends on the parameters, so results can be compared between runs and machines.
+ *
+ * @param classCount the number of top level classes
+ * @param innerClassCount the number of inner classes of each top level class
+ * @param methodCount the average number of methods in each class
+ * @param lineCount the number of lines in each method
+ * @param seed varies the number of methods in each class
+ */
+public record SyntheticJar(int classCount, int innerClassCount, int methodCount, int lineCount, long seed) {
+	private static final String PACKAGE = "net/minecraft/synthetic/";
+	private static final String LIBRARY_PACKAGE = "com/example/library/";
+	// 2000-01-01, so that the jars are the same on every run
+	private static final long ENTRY_TIME = 946684800000L;
+
+	public enum Side {
+		CLIENT,
+		SERVER
+	}
+
+	public static SyntheticJar of(int classCount) {
+		return new SyntheticJar(classCount, 2, 8, 12, 42L);
+	}
+
+	/**
+	 * Write the jar for a side. Every fourth class is client only, and every other class has methods that are
+	 * missing on the server, so both the identical and the merged paths of the jar merger are used. The server also
+	 * bundles library classes that the merger skips.
+	 */
+	public void write(Path jar, Side side) throws IOException {
+		try (var zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(jar)))) {
+			for (int i = 0; i < classCount; i++) {
+				if (side == Side.SERVER && i % 4 == 3) {
+					continue;
+				}
+
+				writeEntry(zip, className(i) + ".class", createClass(i, -1, side));
+
+				for (int j = 0; j < innerClassCount; j++) {
+					writeEntry(zip, className(i) + "$Inner" + j + ".class", createClass(i, j, side));
+				}
+
+				if (i % 10 == 0) {
+					writeEntry(zip, "assets/synthetic/data" + i + ".json", ("{\"index\": " + i + "}").getBytes(StandardCharsets.UTF_8));
+				}
+			}
+
+			if (side == Side.SERVER) {
+				for (int i = 0; i < classCount / 10; i++) {
+					writeEntry(zip, LIBRARY_PACKAGE + "Library" + i + ".class", createLibraryClass(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write line number mappings for the client jar, in the format read by {@code ClassLineNumbers}.
+	 */
+	public void writeLineMappings(Path file) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			for (int i = 0; i < classCount; i++) {
+				// The inner classes are in the same source file as the outer class
+				final int maxLine = (1 + innerClassCount) * methodCount(i) * lineCount + 1;
+				writer.write("%s\t%d\t%d\n".formatted(className(i), maxLine, remapLine(maxLine)));
+
+				for (int line = 1; line <= maxLine; line++) {
+					writer.write("\t%d\t%d\n".formatted(line, remapLine(line)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write tiny v2 mappings for the client jar, with official, intermediary and named namespaces.
+	 */
+	public void writeTinyMappings(Path file) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			writer.write("tiny\t2\t0\tofficial\tintermediary\tnamed\n");
+
+			for (int i = 0; i < classCount; i++) {
+				for (int j = -1; j < innerClassCount; j++) {
+					final String suffix = j < 0 ? "" : "$Inner" + j;
+					writer.write("c\t%s%s\tnet/minecraft/class_%d%s\tnet/minecraft/synthetic/Named%d%s\n".formatted(className(i), suffix, i, suffix, i, suffix));
+
+					for (int f = 0; f < fieldCount(i); f++) {
+						writer.write("\tf\tI\tfield%d\tfield_%d_%d\tnamedField%d\n".formatted(f, i, f, f));
+					}
+
+					for (int m = 0; m < methodCount(i); m++) {
+						writer.write("\tm\t(I)I\tmethod%d\tmethod_%d_%d\tnamedMethod%d\n".formatted(m, i, m, m));
+						writer.write("\t\tp\t0\t\t\tvalue\n");
+					}
+				}
+			}
+		}
+	}
+
+	public String className(int index) {
+		return PACKAGE + "Class" + index;
+	}
+
+	/**
+	 * @param inner the index of the inner class, or -1 for the top level class
+	 */
+	public byte[] createClass(int index, int inner, Side side) {
+		final String name = inner < 0 ? className(index) : className(index) + "$Inner" + inner;
+		final var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+		writer.visitSource("Class" + index + ".java", null);
+
+		if (inner >= 0) {
+			writer.visitOuterClass(className(index), null, null);
+			writer.visitInnerClass(name, className(index), "Inner" + inner, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+		} else {
+			for (int j = 0; j < innerClassCount; j++) {
+				writer.visitInnerClass(name + "$Inner" + j, name, "Inner" + j, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+			}
+		}
+
+		for (int f = 0; f < fieldCount(index); f++) {
+			writer.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "field" + f, "I", null, null).visitEnd();
+		}
+
+		final int methods = methodCount(index);
+		// Lines continue across the classes in a source file
+		int line = (inner + 1) * methods * lineCount + 1;
+
+		for (int m = 0; m < methods; m++) {
+			if (side == Side.SERVER && index % 2 == 0 && m % 3 == 2) {
+				line += lineCount;
+				continue;
+			}
+
+			final MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "method" + m, "(I)I", null, null);
+			method.visitCode();
+
+			for (int l = 0; l < lineCount; l++) {
+				final var label = new Label();
+				method.visitLabel(label);
+				method.visitLineNumber(line++, label);
+				method.visitVarInsn(Opcodes.ILOAD, 0);
+				method.visitLdcInsn(index * 31 + m * 7 + l);
+				method.visitInsn(Opcodes.IADD);
+				method.visitVarInsn(Opcodes.ISTORE, 0);
+			}
+
+			method.visitVarInsn(Opcodes.ILOAD, 0);
+			method.visitInsn(Opcodes.IRETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	private byte[] createLibraryClass(int index) {
+		final var writer = new ClassWriter(0);
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, LIBRARY_PACKAGE + "Library" + index, null, "java/lang/Object", null);
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	private int methodCount(int index) {
+		return Math.max(1, methodCount / 2 + new Random(seed * 31 + index).nextInt(methodCount + 1));
+	}
+
+	private int fieldCount(int index) {
+		return index % 4 + 1;
+	}
+
+	// Decompiled sources have more lines than the original, mostly from imports and blank lines
+	private static int remapLine(int line) {
+		return line + 10 + line / 4;
+	}
+
+	private static void writeEntry(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+		final var entry = new ZipEntry(name);
+		entry.setTime(ENTRY_TIME);
+		zip.putNextEntry(entry);
+		zip.write(bytes);
+		zip.closeEntry();
+	}
+}
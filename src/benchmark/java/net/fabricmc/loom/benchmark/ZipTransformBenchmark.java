@@ -0,0 +1,112 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.util.ZipUtils;
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZipTransformBenchmark {
+	@Param({"2000"})
+	public int classCount;
+
+	/**
+	 * Transform every nth class, the rest of the jar is copied.
+	 */
+	@Param({"1", "4"})
+	public int transformEvery;
+
+	private Path tempDir;
+	private Path inputJar;
+	private Path jar;
+	private Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> transforms;
+
+	@Setup
+	public void setup() throws IOException {
+		final SyntheticJar syntheticJar = SyntheticJar.of(classCount);
+		tempDir = Files.createTempDirectory("loom-benchmark");
+		inputJar = tempDir.resolve("input.jar");
+		jar = tempDir.resolve("transformed.jar");
+		syntheticJar.write(inputJar, SyntheticJar.Side.CLIENT);
+
+		transforms = new HashMap<>();
+
+		for (int i = 0; i < classCount; i += transformEvery) {
+			transforms.put(syntheticJar.className(i) + ".class", ZipTransformBenchmark::rewriteClass);
+		}
+	}
+
+	// The jar is transformed in place, so each invocation starts from a fresh copy
+	@Setup(Level.Invocation)
+	public void copyJar() throws IOException {
+		Files.copy(inputJar, jar, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	public int transform() throws IOException {
+		return ZipUtils.transform(jar, transforms);
+	}
+
+	private static byte[] rewriteClass(byte[] bytes) {
+		final var reader = new ClassReader(bytes);
+		final var writer = new ClassWriter(0);
+		reader.accept(writer, 0);
+		return writer.toByteArray();
+	}
+}
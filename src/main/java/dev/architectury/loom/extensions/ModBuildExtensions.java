@@ -1,14 +1,15 @@
 package dev.architectury.loom.extensions;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
 import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
-import java.nio.file.FileSystem;
-import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.Set;
@@ -24,10 +25,10 @@ import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.task.service.MappingsService;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.LfWriter;
 import net.fabricmc.loom.util.aw2at.Aw2At;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
+import net.fabricmc.loom.util.zip.ZipEntryPipeline;
 
 public final class ModBuildExtensions {
 	public static Set<String> readMixinConfigsFromManifest(File jarFile) {
@@ -50,6 +51,17 @@ public final class ModBuildExtensions {
 	}
 
 	public static void convertAwToAt(SetProperty<String> atAccessWidenersProperty, Path outputFile, Property<String> mappingBuildServiceUuid) throws IOException {
+		try (ZipEntryPipeline pipeline = ZipEntryPipeline.open(outputFile)) {
+			convertAwToAt(atAccessWidenersProperty, pipeline, mappingBuildServiceUuid);
+			pipeline.apply();
+		}
+	}
+
+	/**
+	 * Convert the access wideners as part of a pipeline, the access wideners are read with any pending transformations
+	 * applied.
+	 */
+	public static void convertAwToAt(SetProperty<String> atAccessWidenersProperty, ZipEntryPipeline pipeline, Property<String> mappingBuildServiceUuid) throws IOException {
 		if (!atAccessWidenersProperty.isPresent()) {
 			return;
 		}
@@ -62,34 +74,33 @@ public final class ModBuildExtensions {
 
 		AccessTransformSet at = AccessTransformSet.create();
 
-		try (FileSystemUtil.Delegate fileSystem = FileSystemUtil.getJarFileSystem(outputFile, false)) {
-			FileSystem fs = fileSystem.get();
-			Path atPath = fs.getPath(Constants.Forge.ACCESS_TRANSFORMER_PATH);
+		if (pipeline.contains(Constants.Forge.ACCESS_TRANSFORMER_PATH)) {
+			throw new FileAlreadyExistsException("Jar " + pipeline.getPath() + " already contains an access transformer - cannot convert AWs!");
+		}
 
-			if (Files.exists(atPath)) {
-				throw new FileAlreadyExistsException("Jar " + outputFile + " already contains an access transformer - cannot convert AWs!");
-			}
+		for (String aw : atAccessWideners) {
+			byte[] awBytes = pipeline.readTransformed(aw);
 
-			for (String aw : atAccessWideners) {
-				Path awPath = fs.getPath(aw);
+			if (awBytes == null) {
+				throw new NoSuchFileException("Could not find AW '" + aw + "' to convert into AT!");
+			}
 
-				if (Files.notExists(awPath)) {
-					throw new NoSuchFileException("Could not find AW '" + aw + "' to convert into AT!");
-				}
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(awBytes), StandardCharsets.UTF_8))) {
+				at.merge(Aw2At.toAccessTransformSet(reader));
+			}
 
-				try (BufferedReader reader = Files.newBufferedReader(awPath, StandardCharsets.UTF_8)) {
-					at.merge(Aw2At.toAccessTransformSet(reader));
-				}
+			pipeline.deleteIfExists(aw);
+		}
 
-				Files.delete(awPath);
-			}
+		MappingsService service = UnsafeWorkQueueHelper.get(mappingBuildServiceUuid, MappingsService.class);
+		at = at.remap(service.getMemoryMappingTree(), service.getFromNamespace(), service.getToNamespace());
 
-			MappingsService service = UnsafeWorkQueueHelper.get(mappingBuildServiceUuid, MappingsService.class);
-			at = at.remap(service.getMemoryMappingTree(), service.getFromNamespace(), service.getToNamespace());
+		StringWriter out = new StringWriter();
 
-			try (Writer writer = new LfWriter(Files.newBufferedWriter(atPath))) {
-				AccessTransformFormats.FML.write(writer, at);
-			}
+		try (Writer writer = new LfWriter(out)) {
+			AccessTransformFormats.FML.write(writer, at);
 		}
+
+		pipeline.add(Constants.Forge.ACCESS_TRANSFORMER_PATH, out.toString().getBytes(StandardCharsets.UTF_8));
 	}
 }
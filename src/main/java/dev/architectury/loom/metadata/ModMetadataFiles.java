@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -14,8 +15,10 @@ import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.SourceSet;
 import org.jetbrains.annotations.Nullable;
 
+import net.fabricmc.loom.util.IOFunction;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
+import net.fabricmc.loom.util.zip.ZipEntryPipeline;
 
 /**
  * Utilities for reading mod metadata files.
@@ -48,8 +51,22 @@ public final class ModMetadataFiles {
 	 * @return the mod metadata file, or {@code null} if not found
 	 */
 	public static @Nullable ModMetadataFile fromJar(Path jar) throws IOException {
+		return fromEntries(filePath -> ZipUtils.unpackNullable(jar, filePath));
+	}
+
+	/**
+	 * Reads the mod metadata file from a jar that is already open.
+	 *
+	 * @param jar the open jar
+	 * @return the mod metadata file, or {@code null} if not found
+	 */
+	public static @Nullable ModMetadataFile fromJar(ZipEntryPipeline jar) throws IOException {
+		return fromEntries(jar::read);
+	}
+
+	private static @Nullable ModMetadataFile fromEntries(IOFunction<String, byte @Nullable []> entryReader) throws IOException {
 		for (final String filePath : SINGLE_FILE_METADATA_TYPES.keySet()) {
-			final byte @Nullable [] bytes = ZipUtils.unpackNullable(jar, filePath);
+			final byte @Nullable [] bytes = entryReader.apply(filePath);
 
 			if (bytes != null) {
 				return SINGLE_FILE_METADATA_TYPES.get(filePath).apply(bytes);
@@ -59,6 +76,28 @@ public final class ModMetadataFiles {
 		return null;
 	}
 
+	/**
+	 * @return the paths of the supported mod metadata files, in the order they are looked for
+	 */
+	public static Set<String> getFilePaths() {
+		return SINGLE_FILE_METADATA_TYPES.keySet();
+	}
+
+	/**
+	 * Reads a mod metadata file from its contents.
+	 *
+	 * @param filePath one of {@link #getFilePaths()}
+	 */
+	public static ModMetadataFile fromContents(String filePath, byte[] bytes) {
+		final Function<byte[], ModMetadataFile> reader = SINGLE_FILE_METADATA_TYPES.get(filePath);
+
+		if (reader == null) {
+			throw new IllegalArgumentException("Unknown mod metadata file: " + filePath);
+		}
+
+		return reader.apply(bytes);
+	}
+
 	/**
 	 * Reads the mod metadata file from a directory.
 	 *
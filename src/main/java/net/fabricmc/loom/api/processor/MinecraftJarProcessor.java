@@ -29,6 +29,7 @@ import java.nio.file.Path;
 
 import org.gradle.api.Named;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
@@ -43,6 +44,16 @@ public interface MinecraftJarProcessor<S extends MinecraftJarProcessor.Spec> ext
 		return null;
 	}
 
+	/**
+	 * Optionally transform the jar one class at a time. When present the processor's classes are transformed in a
+	 * single pass over the jar, shared with other processors that also provide a {@link ClassesProcessor}, and
+	 * {@link #processJar(Path, Spec, ProcessorContext)} is not called.
+	 */
+	@Nullable
+	default ClassesProcessor<S> processClasses() {
+		return null;
+	}
+
 	interface Spec {
 		// Must make sure hashCode is correctly implemented.
 	}
@@ -50,4 +61,24 @@ public interface MinecraftJarProcessor<S extends MinecraftJarProcessor.Spec> ext
 	interface MappingsProcessor<S> {
 		boolean transform(MemoryMappingTree mappings, S spec, MappingProcessorContext context);
 	}
+
+	interface ClassesProcessor<S> {
+		/**
+		 * @return the transformer to apply to the jar, or {@code null} if there is nothing to transform
+		 */
+		@Nullable
+		ClassTransformer createTransformer(S spec, ProcessorContext context) throws IOException;
+	}
+
+	interface ClassTransformer {
+		/**
+		 * @param className the internal name of the class
+		 */
+		boolean shouldTransform(String className);
+
+		/**
+		 * Wrap the visitor of the next transformer in the chain, called concurrently for different classes.
+		 */
+		ClassVisitor transform(String className, ClassVisitor classVisitor);
+	}
 }
@@ -26,25 +26,22 @@ package net.fabricmc.loom.build.nesting;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
 
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.build.nesting.IncludedJarFactory.NestedFile;
 import net.fabricmc.loom.util.ModPlatform;
-import net.fabricmc.loom.util.Pair;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
+import net.fabricmc.loom.util.zip.ZipEntryPipeline;
 
 public class JarNester {
 	public static void nestJars(Collection<File> jars, List<NestedFile> forgeJars, File modJar, ModPlatform platform, Logger logger) {
@@ -53,23 +50,51 @@ public class JarNester {
 			return;
 		}
 
-		Preconditions.checkArgument(FabricModJsonFactory.isNestableModJar(modJar, platform), "Cannot nest jars into none mod jar " + modJar.getName());
+		try (ZipEntryPipeline pipeline = ZipEntryPipeline.open(modJar.toPath())) {
+			nestJars(jars, forgeJars, pipeline, platform, logger);
+			pipeline.apply();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+		}
+	}
 
-		try {
-			ZipUtils.add(modJar.toPath(), jars.stream().map(file -> {
-				try {
-					return new Pair<>("META-INF/jars/" + file.getName(), Files.readAllBytes(file.toPath()));
-				} catch (IOException e) {
-					throw new UncheckedIOException(e);
-				}
-			}).collect(Collectors.toList()));
+	/**
+	 * Nest the jars as part of a pipeline, the jars are only read when the pipeline is applied.
+	 */
+	public static void nestJars(Collection<File> jars, List<NestedFile> forgeJars, ZipEntryPipeline modJar, ModPlatform platform, Logger logger) {
+		final String modJarName = modJar.getPath().getFileName().toString();
+
+		if (jars.isEmpty()) {
+			logger.debug("Nothing to nest into " + modJarName);
+			return;
+		}
+
+		Preconditions.checkArgument(FabricModJsonFactory.isNestableModJar(modJar.getPath(), platform), "Cannot nest jars into none mod jar " + modJarName);
 
-			if (platform.isForgeLike()) {
-				handleForgeJarJar(forgeJars, modJar, logger);
-				return;
+		for (File file : jars) {
+			final NestedJarCache.Entry nestedJar;
+
+			try {
+				nestedJar = NestedJarCache.get(file.toPath(), platform);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read nested jar " + file.getName(), e);
 			}
 
-			int count = ZipUtils.transformJson(JsonObject.class, modJar.toPath(), Stream.of(platform == ModPlatform.FABRIC ? new Pair<>("fabric.mod.json", json -> {
+			Preconditions.checkArgument(nestedJar.nestable(), "Cannot nest none mod jar: " + file.getName());
+
+			// Jars are already compressed, so are stored to avoid compressing them again.
+			// The CRC is looked up again when writing, in case the jar has changed since.
+			modJar.addStored("META-INF/jars/" + file.getName(), file.toPath(), path -> NestedJarCache.get(path, platform).crc());
+		}
+
+		if (platform.isForgeLike()) {
+			handleForgeJarJar(forgeJars, modJar, logger);
+			return;
+		}
+
+		if (platform == ModPlatform.FABRIC) {
+			Preconditions.checkState(modJar.contains("fabric.mod.json"), "Failed to transform fabric.mod.json");
+			modJar.transformJson(JsonObject.class, "fabric.mod.json", json -> {
 				JsonArray nestedJars = json.getAsJsonArray("jars");
 
 				if (nestedJars == null || !json.has("jars")) {
@@ -78,7 +103,6 @@ public class JarNester {
 
 				for (File file : jars) {
 					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(FabricModJsonFactory.isNestableModJar(file, platform), "Cannot nest none mod jar: " + file.getName());
 
 					for (JsonElement nestedJar : nestedJars) {
 						JsonObject jsonObject = nestedJar.getAsJsonObject();
@@ -92,13 +116,16 @@ public class JarNester {
 					jsonObject.addProperty("file", nestedJarPath);
 					nestedJars.add(jsonObject);
 
-					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
+					logger.debug("Nested " + nestedJarPath + " into " + modJarName);
 				}
 
 				json.add("jars", nestedJars);
 
 				return json;
-			}) : platform == ModPlatform.QUILT ? new Pair<>("quilt.mod.json", json -> {
+			});
+		} else if (platform == ModPlatform.QUILT) {
+			Preconditions.checkState(modJar.contains("quilt.mod.json"), "Failed to transform fabric.mod.json");
+			modJar.transformJson(JsonObject.class, "quilt.mod.json", json -> {
 				JsonObject loader;
 
 				if (json.has("quilt_loader")) {
@@ -115,7 +142,6 @@ public class JarNester {
 
 				for (File file : jars) {
 					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(FabricModJsonFactory.isNestableModJar(file, platform), "Cannot nest none mod jar: " + file.getName());
 
 					for (JsonElement nestedJar : nestedJars) {
 						String nestedJarString = nestedJar.getAsString();
@@ -127,21 +153,19 @@ public class JarNester {
 
 					nestedJars.add(nestedJarPath);
 
-					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
+					logger.debug("Nested " + nestedJarPath + " into " + modJarName);
 				}
 
 				loader.add("jars", nestedJars);
 
 				return json;
-			}) : null));
-
-			Preconditions.checkState(count > 0, "Failed to transform fabric.mod.json");
-		} catch (IOException e) {
-			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+			});
+		} else {
+			throw new IllegalStateException("Failed to transform fabric.mod.json");
 		}
 	}
 
-	private static void handleForgeJarJar(List<NestedFile> forgeJars, File modJar, Logger logger) throws IOException {
+	private static void handleForgeJarJar(List<NestedFile> forgeJars, ZipEntryPipeline modJar, Logger logger) {
 		JsonObject json = new JsonObject();
 		JsonArray nestedJars = new JsonArray();
 
@@ -170,11 +194,11 @@ public class JarNester {
 			jsonObject.addProperty("path", nestedJarPath);
 			nestedJars.add(jsonObject);
 
-			logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
+			logger.debug("Nested " + nestedJarPath + " into " + modJar.getPath().getFileName());
 		}
 
 		json.add("jars", nestedJars);
 
-		ZipUtils.add(modJar.toPath(), "META-INF/jarjar/metadata.json", LoomGradlePlugin.GSON.toJson(json));
+		modJar.add("META-INF/jarjar/metadata.json", LoomGradlePlugin.GSON.toJson(json).getBytes(StandardCharsets.UTF_8));
 	}
 }
@@ -0,0 +1,94 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.build.nesting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import net.fabricmc.loom.util.ModPlatform;
+import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
+
+/**
+ * Caches what is needed to nest a jar: the CRC of its contents, and whether it is a nestable mod.
+ *
+ * <p>The same included jars are nested into the output of every remap, and often into many subprojects. Entries are
+ * kept for the lifetime of the Gradle daemon and are invalidated when the size or last modified time of the jar
+ * changes, so that unchanged jars are only read once. Only the {@value #MAX_ENTRIES} most recently used jars are kept.
+ */
+final class NestedJarCache {
+	private static final int MAX_ENTRIES = 1024;
+	private static final Map<Key, Entry> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	});
+
+	private NestedJarCache() {
+	}
+
+	static Entry get(Path jar, ModPlatform platform) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+		final Key key = new Key(jar.toAbsolutePath().normalize(), platform);
+		final Entry cached = CACHE.get(key);
+
+		if (cached != null && cached.size() == attributes.size() && cached.lastModified().equals(attributes.lastModifiedTime())) {
+			return cached;
+		}
+
+		final Entry entry = new Entry(attributes.size(), attributes.lastModifiedTime(), crc(jar), FabricModJsonFactory.isNestableModJar(jar, platform));
+		CACHE.put(key, entry);
+		return entry;
+	}
+
+	private static long crc(Path jar) throws IOException {
+		final var crc = new CRC32();
+
+		try (InputStream inputStream = Files.newInputStream(jar)) {
+			final byte[] buffer = new byte[8192];
+			int read;
+
+			while ((read = inputStream.read(buffer)) >= 0) {
+				crc.update(buffer, 0, read);
+			}
+		}
+
+		return crc.getValue();
+	}
+
+	private record Key(Path jar, ModPlatform platform) {
+	}
+
+	record Entry(long size, FileTime lastModified, long crc, boolean nestable) {
+	}
+}
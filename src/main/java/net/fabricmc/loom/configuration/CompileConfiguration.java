@@ -29,19 +29,15 @@ import static net.fabricmc.loom.util.Constants.Configurations;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Duration;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 import javax.inject.Inject;
 
-import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.gradle.api.file.FileCollection;
-import org.gradle.api.logging.Logger;
-import org.gradle.api.logging.Logging;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.tasks.AbstractCopyTask;
@@ -49,6 +45,7 @@ import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.compile.JavaCompile;
 import org.gradle.api.tasks.javadoc.Javadoc;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.InterfaceInjectionExtensionAPI;
@@ -86,11 +83,13 @@ import net.fabricmc.loom.configuration.providers.minecraft.mapped.NamedMinecraft
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.SrgMinecraftProvider;
 import net.fabricmc.loom.configuration.sources.ForgeSourcesRemapper;
 import net.fabricmc.loom.extension.MixinExtension;
+import net.fabricmc.loom.util.CacheLock;
 import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.LoomVersions;
 import net.fabricmc.loom.util.ProcessUtil;
+import net.fabricmc.loom.util.TaskGraph;
 import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
@@ -119,14 +118,14 @@ public abstract class CompileConfiguration implements Runnable {
 
 			final boolean previousRefreshDeps = extension.refreshDeps();
 
-			final LockResult lockResult = acquireProcessLockWaiting(getLockFile());
-
-			if (lockResult != LockResult.ACQUIRED_CLEAN) {
-				getProject().getLogger().lifecycle("Found existing cache lock file ({}), rebuilding loom cache. This may have been caused by a failed or canceled build.", lockResult);
-				extension.setRefreshDeps(true);
-			}
+			final CacheLock lock = acquireProcessLock(getLockFile());
 
 			try {
+				if (lock.previousState() != CacheLock.State.CLEAN) {
+					getProject().getLogger().lifecycle("Found existing cache lock file ({}), rebuilding loom cache. This may have been caused by a failed or canceled build.", lock.previousState());
+					extension.setRefreshDeps(true);
+				}
+
 				setupMinecraft(configContext);
 
 				LoomDependencyManager dependencyManager = new LoomDependencyManager();
@@ -134,11 +133,15 @@ public abstract class CompileConfiguration implements Runnable {
 				dependencyManager.handleDependencies(getProject(), serviceManager);
 			} catch (Exception e) {
 				ExceptionUtil.printFileLocks(e, getProject());
-				disownLock();
+				disownLock(lock);
 				throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to setup Minecraft", e);
+			} catch (Error e) {
+				// The lock is held by this daemon, so it must be given up on every exit path, not only exceptions
+				disownLock(lock);
+				throw e;
 			}
 
-			releaseLock();
+			releaseLock(lock);
 			extension.setRefreshDeps(previousRefreshDeps);
 
 			MixinExtension mixin = LoomGradleExtension.get(getProject()).getMixin();
@@ -209,6 +212,8 @@ public abstract class CompileConfiguration implements Runnable {
 			jarConfiguration = MinecraftJarConfiguration.LEGACY_MERGED;
 		}
 
+		final MinecraftJarConfiguration finalJarConfiguration = jarConfiguration;
+
 		// Provide the vanilla mc jars
 		final MinecraftProvider minecraftProvider = jarConfiguration.createMinecraftProvider(metadataProvider, configContext);
 
@@ -217,47 +222,87 @@ public abstract class CompileConfiguration implements Runnable {
 		}
 
 		extension.setMinecraftProvider(minecraftProvider);
-		minecraftProvider.provide();
+
+		// Tasks that use the project run on this thread, only the remapping of the Minecraft jars runs concurrently.
+		final TaskGraph graph = new TaskGraph("Minecraft setup");
+
+		final TaskGraph.Node<Void> minecraft = graph.run("minecraft", minecraftProvider::provide);
 
 		// Created any layered mapping files.
-		LayeredMappingsFactory.afterEvaluate(configContext);
+		final TaskGraph.Node<Void> layeredMappings = graph.run("layeredMappings", () -> LayeredMappingsFactory.afterEvaluate(configContext), minecraft);
 
-		// This needs to run after MinecraftProvider.initFiles and MinecraftLibraryProvider.provide
-		// but before MinecraftPatchedProvider.provide.
-		setupDependencyProviders(project, extension);
+		final TaskGraph.Node<Void> dependencyProviders = graph.run("dependencyProviders", () -> {
+			// This needs to run after MinecraftProvider.initFiles and MinecraftLibraryProvider.provide
+			// but before MinecraftPatchedProvider.provide.
+			setupDependencyProviders(project, extension);
 
-		if (extension.isLegacyForge()) {
-			extension.setIntermediateMappingsProvider(GeneratedIntermediateMappingsProvider.class, provider -> {
-				provider.minecraftProvider = minecraftProvider;
-			});
-		}
+			if (extension.isLegacyForge()) {
+				extension.setIntermediateMappingsProvider(GeneratedIntermediateMappingsProvider.class, provider -> {
+					provider.minecraftProvider = minecraftProvider;
+				});
+			}
 
-		if (extension.isForgeLike() && !extension.isLegacyForge()) {
-			// Excluded on legacy forge because it pulls in a log4j-api version newer than what forge wants and we don't
-			// need it anyway
-			project.getDependencies().add(Constants.Configurations.FORGE_EXTRA, LoomVersions.UNPROTECT.mavenNotation());
-		}
+			if (extension.isForgeLike() && !extension.isLegacyForge()) {
+				// Excluded on legacy forge because it pulls in a log4j-api version newer than what forge wants and we don't
+				// need it anyway
+				project.getDependencies().add(Constants.Configurations.FORGE_EXTRA, LoomVersions.UNPROTECT.mavenNotation());
+			}
+		}, layeredMappings);
+
+		final TaskGraph.Node<DependencyInfo> mappingsDep = graph.supply("mappingsDependency", () -> DependencyInfo.create(getProject(), Configurations.MAPPINGS), dependencyProviders);
+		final TaskGraph.Node<MappingConfiguration> mappingConfiguration = graph.supply("mappingConfiguration", () -> {
+			final MappingConfiguration configuration = MappingConfiguration.create(getProject(), configContext.serviceManager(), mappingsDep.get(), minecraftProvider);
+			extension.setMappingConfiguration(configuration);
+			return configuration;
+		}, mappingsDep);
 
-		final DependencyInfo mappingsDep = DependencyInfo.create(getProject(), Configurations.MAPPINGS);
-		final MappingConfiguration mappingConfiguration = MappingConfiguration.create(getProject(), configContext.serviceManager(), mappingsDep, minecraftProvider);
-		extension.setMappingConfiguration(mappingConfiguration);
+		TaskGraph.Node<?> patchedMinecraft = mappingConfiguration;
 
 		if (extension.isForgeLike()) {
-			ForgeLibrariesProvider.provide(mappingConfiguration, project);
-			((ForgeMinecraftProvider) minecraftProvider).getPatchedProvider().provide();
+			final TaskGraph.Node<Void> forgeLibraries = graph.run("forgeLibraries", () -> ForgeLibrariesProvider.provide(mappingConfiguration.get(), project), mappingConfiguration);
+			patchedMinecraft = graph.run("patchedMinecraft", () -> ((ForgeMinecraftProvider) minecraftProvider).getPatchedProvider().provide(), forgeLibraries);
 		}
 
-		mappingConfiguration.setupPost(project);
-		mappingConfiguration.applyToProject(getProject(), mappingsDep);
+		final TaskGraph.Node<Void> mappings = graph.run("mappings", () -> {
+			mappingConfiguration.get().setupPost(project);
+			mappingConfiguration.get().applyToProject(getProject(), mappingsDep.get());
 
-		if (extension.isForgeLike()) {
-			extension.setForgeRunsProvider(ForgeRunsProvider.create(project));
-		}
+			if (extension.isForgeLike()) {
+				extension.setForgeRunsProvider(ForgeRunsProvider.create(project));
+			}
 
-		if (minecraftProvider instanceof ForgeMinecraftProvider patched) {
-			patched.getPatchedProvider().remapJar();
+			if (minecraftProvider instanceof ForgeMinecraftProvider patched) {
+				patched.getPatchedProvider().remapJar();
+			}
+		}, patchedMinecraft);
+
+		final TaskGraph.Node<MappedProviders> mappedProviders = graph.supply("mappedProviders", () -> createMappedProviders(configContext, finalJarConfiguration), mappings);
+
+		// The mapped jars are remapped from the same input jar, so they do not depend on each other.
+		// Their dependencies are added to the project once they have all been provided.
+		final var provideContext = new AbstractMappedMinecraftProvider.ProvideContext(false, extension.refreshDeps(), configContext);
+		final List<TaskGraph.Node<?>> remapped = new ArrayList<>();
+		remapped.add(graph.runAsync("intermediaryMinecraft", () -> mappedProviders.get().intermediary().provide(provideContext), mappedProviders));
+		// The named jar is processed by the jar processors, which resolve configurations and read the extension,
+		// so it is provided on the configuring thread while the other jars are remapped on the pool.
+		remapped.add(graph.run("namedMinecraft", () -> mappedProviders.get().named().provide(provideContext), mappedProviders));
+
+		if (extension.isForge()) {
+			remapped.add(graph.runAsync("srgMinecraft", () -> mappedProviders.get().srg().provide(provideContext), mappedProviders));
+		} else if (extension.isNeoForge()) {
+			remapped.add(graph.runAsync("mojangMappedMinecraft", () -> mappedProviders.get().mojangMapped().provide(provideContext), mappedProviders));
 		}
 
+		graph.run("minecraftDependencies", () -> mappedProviders.get().named().applyDependencies(), remapped.toArray(TaskGraph.Node<?>[]::new));
+
+		final int parallelism = GradleUtils.getIntProperty(project, Constants.Properties.MINECRAFT_SETUP_THREADS, Runtime.getRuntime().availableProcessors());
+		graph.execute(parallelism);
+	}
+
+	private MappedProviders createMappedProviders(ConfigContext configContext, MinecraftJarConfiguration jarConfiguration) {
+		final Project project = configContext.project();
+		final LoomGradleExtension extension = configContext.extension();
+
 		// Provide the remapped mc jars
 		final IntermediaryMinecraftProvider<?> intermediaryMinecraftProvider = jarConfiguration.createIntermediaryMinecraftProvider(project);
 		NamedMinecraftProvider<?> namedMinecraftProvider = jarConfiguration.createNamedMinecraftProvider(project);
@@ -270,23 +315,24 @@ public abstract class CompileConfiguration implements Runnable {
 			namedMinecraftProvider = jarConfiguration.createProcessedNamedMinecraftProvider(namedMinecraftProvider, minecraftJarProcessorManager);
 		}
 
-		final var provideContext = new AbstractMappedMinecraftProvider.ProvideContext(true, extension.refreshDeps(), configContext);
-
 		extension.setIntermediaryMinecraftProvider(intermediaryMinecraftProvider);
-		intermediaryMinecraftProvider.provide(provideContext);
-
 		extension.setNamedMinecraftProvider(namedMinecraftProvider);
-		namedMinecraftProvider.provide(provideContext);
+
+		SrgMinecraftProvider<?> srgMinecraftProvider = null;
+		MojangMappedMinecraftProvider<?> mojangMappedMinecraftProvider = null;
 
 		if (extension.isForge()) {
-			final SrgMinecraftProvider<?> srgMinecraftProvider = jarConfiguration.createSrgMinecraftProvider(project);
+			srgMinecraftProvider = jarConfiguration.createSrgMinecraftProvider(project);
 			extension.setSrgMinecraftProvider(srgMinecraftProvider);
-			srgMinecraftProvider.provide(provideContext);
 		} else if (extension.isNeoForge()) {
-			final MojangMappedMinecraftProvider<?> mojangMappedMinecraftProvider = jarConfiguration.createMojangMappedMinecraftProvider(project);
+			mojangMappedMinecraftProvider = jarConfiguration.createMojangMappedMinecraftProvider(project);
 			extension.setMojangMappedMinecraftProvider(mojangMappedMinecraftProvider);
-			mojangMappedMinecraftProvider.provide(provideContext);
 		}
+
+		return new MappedProviders(intermediaryMinecraftProvider, namedMinecraftProvider, srgMinecraftProvider, mojangMappedMinecraftProvider);
+	}
+
+	private record MappedProviders(IntermediaryMinecraftProvider<?> intermediary, NamedMinecraftProvider<?> named, @Nullable SrgMinecraftProvider<?> srg, @Nullable MojangMappedMinecraftProvider<?> mojangMapped) {
 	}
 
 	private void registerGameProcessors(ConfigContext configContext) {
@@ -354,175 +400,38 @@ public abstract class CompileConfiguration implements Runnable {
 				.afterEvaluation();
 	}
 
-	private LockFile getLockFile() {
+	private Path getLockFile() {
 		final LoomGradleExtension extension = LoomGradleExtension.get(getProject());
 		final Path cacheDirectory = extension.getFiles().getUserCache().toPath();
 		final String pathHash = Checksum.projectHash(getProject());
-		return new LockFile(
-				cacheDirectory.resolve("." + pathHash + ".lock"),
-				"Lock for cache='%s', project='%s'".formatted(
-						cacheDirectory, getProject().absoluteProjectPath(getProject().getPath())
-				)
-		);
-	}
-
-	record LockFile(Path file, String description) {
-		@Override
-		public String toString() {
-			return this.description;
-		}
+		return cacheDirectory.resolve("." + pathHash + ".lock");
 	}
 
-	enum LockResult {
-		// acquired immediately or after waiting for another process to release
-		ACQUIRED_CLEAN,
-		// already owned by current pid
-		ACQUIRED_ALREADY_OWNED,
-		// acquired due to current owner not existing
-		ACQUIRED_PREVIOUS_OWNER_MISSING,
-		// acquired due to previous owner disowning the lock
-		ACQUIRED_PREVIOUS_OWNER_DISOWNED
-	}
-
-	private LockResult acquireProcessLockWaiting(LockFile lockFile) {
-		// one hour
-		return this.acquireProcessLockWaiting(lockFile, getDefaultTimeout());
-	}
-
-	private LockResult acquireProcessLockWaiting(LockFile lockFile, Duration timeout) {
+	// The lock is held by the OS, so only builds of the same project wait on each other and the lock is released if
+	// the build is killed. Artifacts in the shared caches are locked individually while they are produced.
+	private CacheLock acquireProcessLock(Path lockFile) {
 		try {
-			return this.acquireProcessLockWaiting_(lockFile, timeout);
+			return CacheLock.acquire(lockFile, CacheLock.Mode.EXCLUSIVE, CacheLock.getDefaultTimeout(), ProcessUtil.create(getProject()));
 		} catch (final IOException e) {
 			throw new RuntimeException("Exception acquiring lock " + lockFile, e);
 		}
 	}
 
-	// Returns true if our process already owns the lock
-	@SuppressWarnings("BusyWait")
-	private LockResult acquireProcessLockWaiting_(LockFile lockFile, Duration timeout) throws IOException {
-		final long timeoutMs = timeout.toMillis();
-		final Logger logger = Logging.getLogger("loom_acquireProcessLockWaiting");
-		final long currentPid = ProcessHandle.current().pid();
-		boolean abrupt = false;
-		boolean disowned = false;
-
-		if (Files.exists(lockFile.file)) {
-			long lockingProcessId = -1;
-
-			try {
-				String lockValue = Files.readString(lockFile.file);
-
-				if ("disowned".equals(lockValue)) {
-					disowned = true;
-				} else {
-					lockingProcessId = Long.parseLong(lockValue);
-					logger.lifecycle("\"{}\" is currently held by pid '{}'.", lockFile, lockingProcessId);
-				}
-			} catch (final Exception ignored) {
-				// ignored
-			}
-
-			if (lockingProcessId == currentPid) {
-				return LockResult.ACQUIRED_ALREADY_OWNED;
-			}
-
-			Optional<ProcessHandle> handle = ProcessHandle.of(lockingProcessId);
-
-			if (disowned) {
-				logger.lifecycle("Previous process has disowned the lock due to abrupt termination.");
-				Files.deleteIfExists(lockFile.file);
-			} else if (handle.isEmpty()) {
-				logger.lifecycle("Locking process does not exist, assuming abrupt termination and deleting lock file.");
-				Files.deleteIfExists(lockFile.file);
-				abrupt = true;
-			} else {
-				ProcessUtil processUtil = ProcessUtil.create(getProject());
-				logger.lifecycle(processUtil.printWithParents(handle.get()));
-				logger.lifecycle("Waiting for lock to be released...");
-				long sleptMs = 0;
-
-				while (Files.exists(lockFile.file)) {
-					try {
-						Thread.sleep(100);
-					} catch (final InterruptedException e) {
-						Thread.currentThread().interrupt();
-					}
-
-					sleptMs += 100;
-
-					if (sleptMs >= 1000 * 60 && sleptMs % (1000 * 60) == 0L) {
-						logger.lifecycle(
-								"""
-										Have been waiting on "{}" held by pid '{}' for {} minute(s).
-										If this persists for an unreasonable length of time, kill this process, run './gradlew --stop' and then try again.""",
-								lockFile, lockingProcessId, sleptMs / 1000 / 60
-						);
-					}
-
-					if (sleptMs >= timeoutMs) {
-						throw new GradleException("Have been waiting on lock file '%s' for %s ms. Giving up as timeout is %s ms."
-								.formatted(lockFile, sleptMs, timeoutMs));
-					}
-				}
-			}
-		}
-
-		if (!Files.exists(lockFile.file.getParent())) {
-			Files.createDirectories(lockFile.file.getParent());
-		}
-
-		Files.writeString(lockFile.file, String.valueOf(currentPid));
-
-		if (disowned) {
-			return LockResult.ACQUIRED_PREVIOUS_OWNER_DISOWNED;
-		} else if (abrupt) {
-			return LockResult.ACQUIRED_PREVIOUS_OWNER_MISSING;
-		}
-
-		return LockResult.ACQUIRED_CLEAN;
-	}
-
-	private static Duration getDefaultTimeout() {
-		if (System.getenv("CI") != null) {
-			// Set a small timeout on CI, as it's unlikely going to unlock.
-			return Duration.ofMinutes(1);
-		}
-
-		return Duration.ofHours(1);
-	}
-
-	// When we fail to configure, write "disowned" to the lock file to release it from this process
-	// This allows the next run to rebuild without waiting for this process to exit
-	private void disownLock() {
-		final Path lock = getLockFile().file;
-
-		try {
-			Files.writeString(lock, "disowned");
+	// When we fail to configure, mark the lock as disowned when releasing it
+	// This allows the next run to rebuild the cache
+	private void disownLock(CacheLock lock) {
+		try (lock) {
+			lock.disown();
 		} catch (IOException e) {
-			throw new RuntimeException(e);
+			throw new UncheckedIOException("Failed to release project configuration lock", e);
 		}
 	}
 
-	private void releaseLock() {
-		final Path lock = getLockFile().file;
-
-		if (!Files.exists(lock)) {
-			return;
-		}
-
-		try {
-			Files.delete(lock);
-		} catch (IOException e1) {
-			try {
-				// If we failed to delete the lock file, moving it before trying to delete it may help.
-				final Path del = lock.resolveSibling(lock.getFileName() + ".del");
-				Files.move(lock, del);
-				Files.delete(del);
-			} catch (IOException e2) {
-				var exception = new UncheckedIOException("Failed to release getProject() configuration lock", e2);
-				exception.addSuppressed(e1);
-				throw exception;
-			}
+	private void releaseLock(CacheLock lock) {
+		try (lock) {
+			lock.complete();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to release project configuration lock", e);
 		}
 	}
 
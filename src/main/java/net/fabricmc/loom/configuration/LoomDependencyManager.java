@@ -24,11 +24,15 @@
 
 package net.fabricmc.loom.configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.gradle.api.Project;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.mods.ModConfigurationRemapper;
-import net.fabricmc.loom.util.SourceRemapper;
+import net.fabricmc.loom.configuration.mods.dependency.ModDependency;
+import net.fabricmc.loom.task.RemapModSourcesTask;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
 public class LoomDependencyManager {
@@ -36,13 +40,16 @@ public class LoomDependencyManager {
 		project.getLogger().info(":setting up loom dependencies");
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
 
-		SourceRemapper sourceRemapper = new SourceRemapper(project, serviceManager, true);
 		String platformSuffix = extension.isForgeLike() ? "_forge" : extension.isQuilt() ? "_arch_quilt" : "";
 		String mappingsIdentifier = extension.getMappingConfiguration().mappingsIdentifier() + platformSuffix;
 
-		ModConfigurationRemapper.supplyModConfigurations(project, serviceManager, mappingsIdentifier, extension, sourceRemapper);
+		final List<ModDependency> sourcesToRemap = new ArrayList<>();
+		ModConfigurationRemapper.supplyModConfigurations(project, serviceManager, mappingsIdentifier, extension, sourcesToRemap::add);
 
-		sourceRemapper.remapAll();
+		// Remapping sources is slow, so it is left to a task that is run when the sources are needed
+		if (!sourcesToRemap.isEmpty()) {
+			project.getTasks().named(RemapModSourcesTask.NAME, RemapModSourcesTask.class).configure(task -> sourcesToRemap.forEach(task::remapSources));
+		}
 
 		if (extension.getInstallerData() == null && !extension.isForgeLike()) {
 			if (extension.isQuilt()) {
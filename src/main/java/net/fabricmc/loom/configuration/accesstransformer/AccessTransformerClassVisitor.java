@@ -0,0 +1,200 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.accesstransformer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import dev.architectury.at.AccessTransform;
+import dev.architectury.at.AccessTransformSet;
+import org.cadixdev.bombe.type.signature.MethodSignature;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import net.fabricmc.loom.util.AsyncZipProcessor;
+import net.fabricmc.loom.util.Constants;
+
+/**
+ * Applies an {@link AccessTransformSet} to classes in-process, matching the behaviour of the Forge and NeoForge
+ * access transformer tools: access is only ever widened, and the final modifier is added or removed.
+ *
+ * <p>Calls to private methods that are made non-private are changed from {@code invokespecial} to
+ * {@code invokevirtual} (or {@code invokeinterface}), as the JVM requires.
+ */
+public final class AccessTransformerClassVisitor extends ClassVisitor {
+	private static final int ACCESS_MASK = Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED | Opcodes.ACC_PRIVATE;
+
+	private final AccessTransformSet accessTransformSet;
+	private @Nullable AccessTransformSet.Class classTransform;
+	private String className;
+
+	public AccessTransformerClassVisitor(ClassVisitor classVisitor, AccessTransformSet accessTransformSet) {
+		super(Constants.ASM_VERSION, classVisitor);
+		this.accessTransformSet = accessTransformSet;
+	}
+
+	/**
+	 * Apply the access transformers to every class in the input jar, classes without any transforms are copied as is.
+	 */
+	public static void apply(AccessTransformSet accessTransformSet, Path input, Path output) throws IOException {
+		AsyncZipProcessor.transformEntries(input, output, new AsyncZipProcessor.EntryTransformer() {
+			@Override
+			public boolean shouldTransform(String name) {
+				return name.endsWith(".class") && accessTransformSet.getClasses().containsKey(name.substring(0, name.length() - 6));
+			}
+
+			@Override
+			public byte[] transform(String name, byte[] input) {
+				final ClassReader reader = new ClassReader(input);
+				final ClassWriter writer = new ClassWriter(0);
+				reader.accept(new AccessTransformerClassVisitor(writer, accessTransformSet), 0);
+				return writer.toByteArray();
+			}
+		});
+	}
+
+	@Override
+	public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+		className = name;
+		classTransform = accessTransformSet.getClasses().get(name);
+
+		if (classTransform != null) {
+			access = toClassAccess(applyTransform(access, classTransform.get()));
+		}
+
+		super.visit(version, access, name, signature, superName, interfaces);
+	}
+
+	@Override
+	public void visitInnerClass(String name, String outerName, String innerName, int access) {
+		final AccessTransformSet.Class innerTransform = accessTransformSet.getClasses().get(name);
+
+		if (innerTransform != null) {
+			access = applyTransform(access, innerTransform.get());
+		}
+
+		super.visitInnerClass(name, outerName, innerName, access);
+	}
+
+	@Override
+	public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+		if (classTransform != null) {
+			access = applyTransform(access, classTransform.allFields());
+			access = applyTransform(access, classTransform.getFields().get(name));
+		}
+
+		return super.visitField(access, name, descriptor, signature, value);
+	}
+
+	@Override
+	public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+		if (classTransform != null && !name.equals("<clinit>")) {
+			access = transformMethodAccess(classTransform, access, name, descriptor);
+		}
+
+		return new InvokeSpecialFixer(super.visitMethod(access, name, descriptor, signature, exceptions));
+	}
+
+	private static int transformMethodAccess(AccessTransformSet.Class classTransform, int access, String name, String descriptor) {
+		access = applyTransform(access, classTransform.allMethods());
+		return applyTransform(access, classTransform.getMethods().get(MethodSignature.of(name, descriptor)));
+	}
+
+	/**
+	 * Whether a private method of this class is made non-private. This only depends on the access transformers,
+	 * so calls can be fixed in method bodies that are visited before the method itself.
+	 */
+	private boolean isWidenedPrivateMethod(String name, String descriptor) {
+		if (classTransform == null || name.equals("<init>")) {
+			return false;
+		}
+
+		return (transformMethodAccess(classTransform, Opcodes.ACC_PRIVATE, name, descriptor) & Opcodes.ACC_PRIVATE) == 0;
+	}
+
+	static int applyTransform(int access, @Nullable AccessTransform transform) {
+		if (transform == null) {
+			return access;
+		}
+
+		final int previous = access & ACCESS_MASK;
+
+		switch (transform.getAccess()) {
+		case PUBLIC -> access = (access & ~ACCESS_MASK) | Opcodes.ACC_PUBLIC;
+		case PROTECTED -> {
+			if (previous != Opcodes.ACC_PUBLIC) {
+				access = (access & ~ACCESS_MASK) | Opcodes.ACC_PROTECTED;
+			}
+		}
+		case PACKAGE_PRIVATE -> {
+			if (previous == Opcodes.ACC_PRIVATE) {
+				access &= ~Opcodes.ACC_PRIVATE;
+			}
+		}
+		default -> {
+			// Access is never narrowed
+		}
+		}
+
+		switch (transform.getFinal()) {
+		case REMOVE -> access &= ~Opcodes.ACC_FINAL;
+		case ADD -> access |= Opcodes.ACC_FINAL;
+		default -> {
+		}
+		}
+
+		return access;
+	}
+
+	// Top level classes in the class file can only be public or package private
+	private static int toClassAccess(int access) {
+		if ((access & Opcodes.ACC_PROTECTED) != 0) {
+			access = (access & ~Opcodes.ACC_PROTECTED) | Opcodes.ACC_PUBLIC;
+		}
+
+		return access & ~Opcodes.ACC_PRIVATE;
+	}
+
+	private final class InvokeSpecialFixer extends MethodVisitor {
+		private InvokeSpecialFixer(MethodVisitor methodVisitor) {
+			super(Constants.ASM_VERSION, methodVisitor);
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			// Compilers only use invokespecial on a method of this class, other than a constructor, to call a private method
+			if (opcode == Opcodes.INVOKESPECIAL && owner.equals(className) && isWidenedPrivateMethod(name, descriptor)) {
+				opcode = isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL;
+			}
+
+			super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+		}
+	}
+}
@@ -48,6 +48,7 @@ import org.gradle.api.file.FileCollection;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
@@ -62,6 +63,7 @@ import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.ForgeToolExecutor;
 import net.fabricmc.loom.util.LoomVersions;
 import net.fabricmc.loom.util.fmj.FabricModJson;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 
 public class AccessTransformerJarProcessor implements MinecraftJarProcessor<AccessTransformerJarProcessor.Spec> {
 	private static final Logger LOGGER = Logging.getLogger(AccessTransformerJarProcessor.class);
@@ -117,18 +119,38 @@ public class AccessTransformerJarProcessor implements MinecraftJarProcessor<Acce
 			LOGGER.lifecycle(":applying project access transformers");
 			final Path tempInput = tempFiles.file("input", ".jar");
 			Files.copy(jar, tempInput, StandardCopyOption.REPLACE_EXISTING);
-			final Path atPath = mergeAndRemapAccessTransformers(context, spec.accessTransformers(), tempFiles);
-
-			executeAt(project, tempInput, jar, args -> {
-				args.add("--atFile");
-				args.add(atPath.toAbsolutePath().toString());
-			});
+			final AccessTransformSet accessTransformSet = mergeAndRemapAccessTransformers(context, spec.accessTransformers());
+			applyAccessTransformers(project, accessTransformSet, tempInput, jar);
 		} catch (IOException e) {
 			throw ExceptionUtil.createDescriptiveWrapper(UncheckedIOException::new, "Could not access transform " + jar.toAbsolutePath(), e);
 		}
 	}
 
-	private Path mergeAndRemapAccessTransformers(ProcessorContext context, List<AccessTransformerEntry> accessTransformers, TempFiles tempFiles) throws IOException {
+	@Override
+	public @Nullable ClassesProcessor<Spec> processClasses() {
+		if (GradleUtils.getBooleanProperty(project, Constants.Properties.FORK_ACCESS_TRANSFORMERS)) {
+			return null;
+		}
+
+		return (spec, context) -> {
+			LOGGER.lifecycle(":applying project access transformers");
+			final AccessTransformSet accessTransformSet = mergeAndRemapAccessTransformers(context, spec.accessTransformers());
+
+			return new ClassTransformer() {
+				@Override
+				public boolean shouldTransform(String className) {
+					return accessTransformSet.getClasses().containsKey(className);
+				}
+
+				@Override
+				public ClassVisitor transform(String className, ClassVisitor classVisitor) {
+					return new AccessTransformerClassVisitor(classVisitor, accessTransformSet);
+				}
+			};
+		};
+	}
+
+	private AccessTransformSet mergeAndRemapAccessTransformers(ProcessorContext context, List<AccessTransformerEntry> accessTransformers) throws IOException {
 		AccessTransformSet accessTransformSet = AccessTransformSet.create();
 
 		for (AccessTransformerEntry entry : accessTransformers) {
@@ -139,17 +161,7 @@ public class AccessTransformerJarProcessor implements MinecraftJarProcessor<Acce
 			}
 		}
 
-		accessTransformSet = accessTransformSet.remap(context.getMappings(), IntermediaryNamespaces.intermediary(project), MappingsNamespace.NAMED.toString());
-
-		final Path accessTransformerPath = tempFiles.file("accesstransformer-merged", ".cfg");
-
-		try {
-			AccessTransformFormats.FML.write(accessTransformerPath, accessTransformSet);
-		} catch (IOException e) {
-			throw new IOException("Could not write access transformers to " + accessTransformerPath, e);
-		}
-
-		return accessTransformerPath;
+		return accessTransformSet.remap(context.getMappings(), IntermediaryNamespaces.intermediary(project), MappingsNamespace.NAMED.toString());
 	}
 
 	@Override
@@ -157,6 +169,34 @@ public class AccessTransformerJarProcessor implements MinecraftJarProcessor<Acce
 		return name;
 	}
 
+	/**
+	 * Applies the access transformers to the input jar, writing the result to the output jar.
+	 *
+	 * <p>The transformers are applied in-process unless the {@value Constants.Properties#FORK_ACCESS_TRANSFORMERS}
+	 * property is set, in which case the Forge or NeoForge access transformer tool is run instead.
+	 */
+	public static void applyAccessTransformers(Project project, AccessTransformSet accessTransformSet, Path input, Path output) throws IOException {
+		if (!GradleUtils.getBooleanProperty(project, Constants.Properties.FORK_ACCESS_TRANSFORMERS)) {
+			AccessTransformerClassVisitor.apply(accessTransformSet, input, output);
+			return;
+		}
+
+		try (var tempFiles = new TempFiles()) {
+			final Path accessTransformerPath = tempFiles.file("accesstransformer-merged", ".cfg");
+
+			try {
+				AccessTransformFormats.FML.write(accessTransformerPath, accessTransformSet);
+			} catch (IOException e) {
+				throw new IOException("Could not write access transformers to " + accessTransformerPath, e);
+			}
+
+			executeAt(project, input, output, args -> {
+				args.add("--atFile");
+				args.add(accessTransformerPath.toAbsolutePath().toString());
+			});
+		}
+	}
+
 	public static void executeAt(Project project, Path input, Path output, AccessTransformerConfiguration configuration) throws IOException {
 		LoomVersions accessTransformer = chooseAccessTransformer(project);
 		String mainClass = accessTransformer == LoomVersions.ACCESS_TRANSFORMERS_NEO ? "net.neoforged.accesstransformer.cli.TransformerProcessor"
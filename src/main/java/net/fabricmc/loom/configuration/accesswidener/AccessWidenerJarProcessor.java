@@ -32,17 +32,22 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import org.gradle.api.file.RegularFileProperty;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.accesswidener.AccessWidener;
+import net.fabricmc.accesswidener.AccessWidenerClassVisitor;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
+import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.LazyCloseable;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.ModEnvironment;
@@ -129,6 +134,33 @@ public class AccessWidenerJarProcessor implements MinecraftJarProcessor<AccessWi
 
 	@Override
 	public void processJar(Path jar, AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
+		AccessWidenerTransformer transformer = new AccessWidenerTransformer(readAccessWideners(spec, context));
+		transformer.apply(jar);
+	}
+
+	@Override
+	public ClassesProcessor<Spec> processClasses() {
+		return (spec, context) -> {
+			final AccessWidener accessWidener = readAccessWideners(spec, context);
+			final Set<String> targets = accessWidener.getTargets().stream()
+					.map(className -> className.replace('.', '/'))
+					.collect(Collectors.toSet());
+
+			return new ClassTransformer() {
+				@Override
+				public boolean shouldTransform(String className) {
+					return targets.contains(className);
+				}
+
+				@Override
+				public ClassVisitor transform(String className, ClassVisitor classVisitor) {
+					return AccessWidenerClassVisitor.createClassVisitor(Constants.ASM_VERSION, classVisitor, accessWidener);
+				}
+			};
+		};
+	}
+
+	private static AccessWidener readAccessWideners(AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
 		final List<AccessWidenerEntry> accessWideners = spec.accessWidenersForContext(context);
 
 		final var accessWidener = new AccessWidener();
@@ -139,8 +171,7 @@ public class AccessWidenerJarProcessor implements MinecraftJarProcessor<AccessWi
 			}
 		}
 
-		AccessWidenerTransformer transformer = new AccessWidenerTransformer(accessWidener);
-		transformer.apply(jar);
+		return accessWidener;
 	}
 
 	@Override
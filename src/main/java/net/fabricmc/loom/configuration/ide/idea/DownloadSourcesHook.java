@@ -34,6 +34,7 @@ import java.util.regex.Pattern;
 
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.tasks.TaskProvider;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,7 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.mods.dependency.LocalMavenHelper;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJar;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.NamedMinecraftProvider;
+import net.fabricmc.loom.task.RemapModSourcesTask;
 
 // See: https://github.com/JetBrains/intellij-community/blob/a09b1b84ab64a699794c860bc96774766dd38958/plugins/gradle/java/src/util/GradleAttachSourcesProvider.java
 record DownloadSourcesHook(Project project, Task task) {
@@ -81,8 +83,13 @@ record DownloadSourcesHook(Project project, Task task) {
 				final MinecraftJar.Type jarType = getJarType(notation);
 
 				if (jarType == null) {
-					LOGGER.debug("init script is trying to download sources for another Minecraft jar ({}) not used by this project ({})", notation, project.getPath());
-					continue;
+					// Not a Minecraft jar used by this project, it may be a mod dependency with sources to remap
+					final TaskProvider<RemapModSourcesTask> remapModSources = project.getTasks().named(RemapModSourcesTask.NAME, RemapModSourcesTask.class);
+					remapModSources.configure(t -> t.getDependencyNotations().add(notation));
+					task.dependsOn(remapModSources);
+
+					LOGGER.info("Running {} task in project: {} for {}", RemapModSourcesTask.NAME, project.getPath(), notation);
+					break;
 				}
 
 				String sourcesTaskName = getGenSourcesTaskName(jarType);
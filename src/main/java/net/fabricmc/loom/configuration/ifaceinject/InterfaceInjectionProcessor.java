@@ -108,24 +108,49 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 
 	@Override
 	public void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
+		final List<InjectedInterface> remappedInjectedInterfaces = remapInjectedInterfaces(spec, context);
+
+		try {
+			ZipUtils.transform(jar, getTransformers(remappedInjectedInterfaces));
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to apply interface injections to " + jar, e);
+		}
+	}
+
+	@Override
+	public ClassesProcessor<Spec> processClasses() {
+		return (spec, context) -> {
+			final Map<String, List<InjectedInterface>> injectedInterfaces = remapInjectedInterfaces(spec, context).stream()
+					.collect(Collectors.groupingBy(injectedInterface -> injectedInterface.className().replace('.', '/')));
+
+			return new ClassTransformer() {
+				@Override
+				public boolean shouldTransform(String className) {
+					return injectedInterfaces.containsKey(className);
+				}
+
+				@Override
+				public ClassVisitor transform(String className, ClassVisitor classVisitor) {
+					return new InjectingClassVisitor(Constants.ASM_VERSION, classVisitor, injectedInterfaces.get(className));
+				}
+			};
+		};
+	}
+
+	private List<InjectedInterface> remapInjectedInterfaces(Spec spec, ProcessorContext context) throws IOException {
 		// Remap from intermediary->named
 		final MemoryMappingTree mappings = context.getMappings();
 		final int intermediaryIndex = mappings.getNamespaceId(MappingsNamespace.INTERMEDIARY.toString());
 		final int namedIndex = mappings.getNamespaceId(MappingsNamespace.NAMED.toString());
 
 		try (LazyCloseable<TinyRemapper> tinyRemapper = context.createRemapper(MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED)) {
-			final List<InjectedInterface> remappedInjectedInterfaces = spec.injectedInterfaces().stream()
+			return spec.injectedInterfaces().stream()
 					.map(injectedInterface -> remap(
 							injectedInterface,
 							s -> mappings.mapClassName(s, intermediaryIndex, namedIndex),
 							tinyRemapper.get().getEnvironment().getRemapper()
 					))
 					.toList();
-			try {
-				ZipUtils.transform(jar, getTransformers(remappedInjectedInterfaces));
-			} catch (IOException e) {
-				throw new RuntimeException("Failed to apply interface injections to " + jar, e);
-			}
 		}
 	}
 
@@ -284,8 +309,8 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 		private final List<InjectedInterface> injectedInterfaces;
 		private final Set<String> knownInnerClasses = new HashSet<>();
 
-		InjectingClassVisitor(int asmVersion, ClassWriter writer, List<InjectedInterface> injectedInterfaces) {
-			super(asmVersion, writer);
+		InjectingClassVisitor(int asmVersion, ClassVisitor classVisitor, List<InjectedInterface> injectedInterfaces) {
+			super(asmVersion, classVisitor);
 			this.injectedInterfaces = injectedInterfaces;
 		}
 
@@ -0,0 +1,88 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.mods;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import net.fabricmc.loom.util.JsonFileCache;
+
+/**
+ * A persistent record of the dependencies that were found to have no sources, shared between all projects in the
+ * Gradle user home.
+ *
+ * <p>Entries are keyed by the component identifier and store when the sources were last looked for. The sources are
+ * not looked for again until the entry is older than the time to live, so that sources published later are found.
+ */
+public final class MissingSourcesCache {
+	private static final int VERSION = 1;
+
+	// Component identifier to the time in millis that the sources were found to be missing
+	private final JsonFileCache<Long> entries;
+
+	private MissingSourcesCache(JsonFileCache<Long> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * @return the cache stored in the file, shared by all callers in the same daemon
+	 */
+	public static MissingSourcesCache get(Path file) {
+		return new MissingSourcesCache(JsonFileCache.get(file, VERSION, Long.class));
+	}
+
+	/**
+	 * @return true if the component was recently found to have no sources, and so does not need to be looked up
+	 */
+	public boolean isMissing(String component, Duration timeToLive) {
+		final Long checked = entries.get(component);
+
+		if (checked == null) {
+			return false;
+		}
+
+		if (System.currentTimeMillis() - checked < timeToLive.toMillis()) {
+			return true;
+		}
+
+		entries.remove(component);
+		return false;
+	}
+
+	public void markMissing(String component) {
+		entries.put(component, System.currentTimeMillis());
+	}
+
+	public void markFound(String component) {
+		entries.remove(component);
+	}
+
+	/**
+	 * Write the cache if it has changed.
+	 */
+	public void save() {
+		entries.save(component -> true);
+	}
+}
@@ -29,29 +29,39 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.FileCollectionDependency;
 import org.gradle.api.artifacts.MutableVersionConstraint;
 import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
 import org.gradle.api.artifacts.query.ArtifactResolutionQuery;
 import org.gradle.api.artifacts.result.ArtifactResult;
 import org.gradle.api.artifacts.result.ComponentArtifactsResult;
 import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.api.artifacts.result.UnresolvedArtifactResult;
 import org.gradle.api.attributes.Usage;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.internal.resolve.ArtifactNotFoundException;
 import org.gradle.jvm.JvmLibrary;
 import org.gradle.language.base.artifact.SourcesArtifact;
 import org.jetbrains.annotations.Nullable;
@@ -66,7 +76,7 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
-import net.fabricmc.loom.util.SourceRemapper;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
@@ -76,7 +86,10 @@ public class ModConfigurationRemapper {
 	// This can happen when the dependency is a FileCollectionDependency or from a flatDir repository.
 	public static final String MISSING_GROUP = "unspecified";
 
-	public static void supplyModConfigurations(Project project, SharedServiceManager serviceManager, String mappingsSuffix, LoomGradleExtension extension, SourceRemapper sourceRemapper) {
+	/**
+	 * @param sourcesToRemap accepts the dependencies with sources that need to be remapped, they are remapped later when requested
+	 */
+	public static void supplyModConfigurations(Project project, SharedServiceManager serviceManager, String mappingsSuffix, LoomGradleExtension extension, Consumer<ModDependency> sourcesToRemap) {
 		final DependencyHandler dependencies = project.getDependencies();
 		// The configurations where the source and remapped artifacts go.
 		// key: source, value: target
@@ -174,13 +187,22 @@ public class ModConfigurationRemapper {
 				}
 
 				final ModDependency modDependency = ModDependencyFactory.create(artifact, artifactMetadata, remappedConfig, clientRemappedConfig, mappingsSuffix, project);
-				scheduleSourcesRemapping(project, sourceRemapper, modDependency);
+				deferSourcesRemapping(project, sourcesToRemap, modDependency);
 				modDependencies.add(modDependency);
 			}
 
 			dependenciesBySourceConfig.put(sourceConfig, modDependencies);
 		});
 
+		// Only set up the store when there is something to remap, as it hashes the mappings.
+		final Supplier<RemappedModStore> modStore = Suppliers.memoize(() -> {
+			try {
+				return RemappedModStore.create(project);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to open the remapped mod store", e);
+			}
+		});
+
 		// Round 2: Remapping
 		// Remap all discovered artifacts.
 		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
@@ -195,13 +217,21 @@ public class ModConfigurationRemapper {
 			final boolean refreshDeps = LoomGradleExtension.get(project).refreshDeps();
 			// TODO: With the same artifacts being considered multiple times for their different
 			//   usage attributes, this should probably not process them multiple times even with refreshDeps.
-			final List<ModDependency> toRemap = modDependencies.stream()
+			List<ModDependency> toRemap = modDependencies.stream()
 					.filter(dependency -> refreshDeps || dependency.isCacheInvalid(project, null))
 					.toList();
 
+			if (!toRemap.isEmpty() && modStore.get() != null && restoreFromStore(project, modStore.get(), toRemap)) {
+				toRemap = List.of();
+			}
+
 			if (!toRemap.isEmpty()) {
 				try {
 					new ModProcessor(project, sourceConfig, serviceManager).processMods(toRemap);
+
+					if (modStore.get() != null) {
+						modStore.get().store(toRemap);
+					}
 				} catch (IOException e) {
 					throw new UncheckedIOException("Failed to remap mods", e);
 				}
@@ -219,6 +249,19 @@ public class ModConfigurationRemapper {
 		});
 	}
 
+	private static boolean restoreFromStore(Project project, RemappedModStore modStore, List<ModDependency> remapList) {
+		try {
+			if (modStore.restore(project, remapList)) {
+				project.getLogger().info("Restored {} remapped mods from the remapped mod store", remapList.size());
+				return true;
+			}
+
+			return false;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to restore mods from the remapped mod store", e);
+		}
+	}
+
 	private static void createConstraints(ArtifactRef artifact, Configuration targetConfig, Configuration sourceConfig, DependencyHandler dependencies) {
 		if (true) {
 			// Disabled due to the gradle module metadata causing issues. Try the MavenProject test to reproduce issue.
@@ -242,10 +285,11 @@ public class ModConfigurationRemapper {
 
 	private static List<ArtifactRef> resolveArtifacts(Project project, Configuration configuration) {
 		final List<ArtifactRef> artifacts = new ArrayList<>();
+		final Set<ResolvedArtifact> resolvedArtifacts = configuration.getResolvedConfiguration().getResolvedArtifacts();
+		final Map<ComponentIdentifier, Path> sources = findSources(project, resolvedArtifacts);
 
-		for (ResolvedArtifact artifact : configuration.getResolvedConfiguration().getResolvedArtifacts()) {
-			final Path sources = findSources(project, artifact);
-			artifacts.add(new ArtifactRef.ResolvedArtifactRef(artifact, sources));
+		for (ResolvedArtifact artifact : resolvedArtifacts) {
+			artifacts.add(new ArtifactRef.ResolvedArtifactRef(artifact, sources.get(artifact.getId().getComponentIdentifier())));
 		}
 
 		// FileCollectionDependency (files/fileTree) doesn't resolve properly,
@@ -272,28 +316,81 @@ public class ModConfigurationRemapper {
 
 	@Nullable
 	public static Path findSources(Project project, ResolvedArtifact artifact) {
-		if (isCIBuild()) {
-			return null;
+		return findSources(project, List.of(artifact)).get(artifact.getId().getComponentIdentifier());
+	}
+
+	/**
+	 * Find the sources of all the artifacts with a single resolution query.
+	 *
+	 * <p>Dependencies from repositories that were recently found to have no sources are skipped,
+	 * see {@link MissingSourcesCache}. With {@code --refresh-dependencies} every dependency is looked up again.
+	 *
+	 * @return the sources jar of each component that has one
+	 */
+	public static Map<ComponentIdentifier, Path> findSources(Project project, Collection<ResolvedArtifact> artifacts) {
+		if (isCIBuild() || artifacts.isEmpty()) {
+			return Map.of();
+		}
+
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+		final MissingSourcesCache missingSources = MissingSourcesCache.get(extension.getFiles().getMissingSourcesCache().toPath());
+		final boolean refreshDeps = extension.refreshDeps();
+		final Duration timeToLive = Duration.ofHours(GradleUtils.getIntProperty(project, Constants.Properties.MISSING_SOURCES_TTL_HOURS, 24));
+		final Set<ComponentIdentifier> components = new LinkedHashSet<>();
+
+		for (ResolvedArtifact artifact : artifacts) {
+			final ComponentIdentifier component = artifact.getId().getComponentIdentifier();
+
+			if (refreshDeps || !missingSources.isMissing(component.getDisplayName(), timeToLive)) {
+				components.add(component);
+			}
+		}
+
+		if (components.isEmpty()) {
+			return Map.of();
 		}
 
 		final DependencyHandler dependencies = project.getDependencies();
 
 		@SuppressWarnings("unchecked") ArtifactResolutionQuery query = dependencies.createArtifactResolutionQuery()
-				.forComponents(artifact.getId().getComponentIdentifier())
+				.forComponents(components)
 				.withArtifacts(JvmLibrary.class, SourcesArtifact.class);
 
+		final Map<ComponentIdentifier, Path> sources = new HashMap<>();
+		// Failures while offline are not recorded, the sources may exist
+		final boolean offline = project.getGradle().getStartParameter().isOffline();
+
 		for (ComponentArtifactsResult result : query.execute().getResolvedComponents()) {
+			// Only a repository reporting that the artifact does not exist confirms the sources are missing,
+			// other failures such as timeouts or server errors may not happen next time.
+			boolean confirmedMissing = true;
+
 			for (ArtifactResult srcArtifact : result.getArtifacts(SourcesArtifact.class)) {
 				if (srcArtifact instanceof ResolvedArtifactResult) {
-					return ((ResolvedArtifactResult) srcArtifact).getFile().toPath();
+					sources.put(result.getId(), ((ResolvedArtifactResult) srcArtifact).getFile().toPath());
+					break;
+				}
+
+				if (srcArtifact instanceof UnresolvedArtifactResult unresolved && !(unresolved.getFailure() instanceof ArtifactNotFoundException)) {
+					confirmedMissing = false;
+				}
+			}
+
+			// Only dependencies from repositories are recorded, the sources of local files and projects can change at any time
+			if (result.getId() instanceof ModuleComponentIdentifier) {
+				if (sources.containsKey(result.getId())) {
+					missingSources.markFound(result.getId().getDisplayName());
+				} else if (confirmedMissing && !offline) {
+					missingSources.markMissing(result.getId().getDisplayName());
 				}
 			}
 		}
 
-		return null;
+		missingSources.save();
+		return sources;
 	}
 
-	private static void scheduleSourcesRemapping(Project project, SourceRemapper sourceRemapper, ModDependency dependency) {
+	private static void deferSourcesRemapping(Project project, Consumer<ModDependency> sourcesToRemap, ModDependency dependency) {
 		if (isCIBuild()) {
 			return;
 		}
@@ -305,15 +402,7 @@ public class ModConfigurationRemapper {
 		}
 
 		if (dependency.isCacheInvalid(project, "sources")) {
-			final Path output = dependency.getWorkingFile("sources");
-
-			sourceRemapper.scheduleRemapSources(sourcesInput.toFile(), output.toFile(), false, true, () -> {
-				try {
-					dependency.copyToCache(project, output, "sources");
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to apply sources to local cache for: " + dependency, e);
-				}
-			});
+			sourcesToRemap.accept(dependency);
 		}
 	}
 
@@ -28,18 +28,25 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Stopwatch;
 import com.google.gson.JsonObject;
@@ -48,6 +55,8 @@ import dev.architectury.loom.util.MappingOption;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.attributes.Usage;
+import org.gradle.api.logging.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
@@ -61,12 +70,12 @@ import net.fabricmc.loom.util.LoggerFilter;
 import net.fabricmc.loom.util.ModPlatform;
 import net.fabricmc.loom.util.Pair;
 import net.fabricmc.loom.util.TinyRemapperHelper;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
 import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.AtClassRemapper;
 import net.fabricmc.loom.util.srg.CoreModClassRemapper;
+import net.fabricmc.loom.util.zip.ZipEntryPipeline;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.InputTag;
 import net.fabricmc.tinyremapper.NonClassCopyMode;
@@ -78,6 +87,7 @@ public class ModProcessor {
 	private static final String toM = MappingsNamespace.NAMED.toString();
 
 	private static final Pattern COPY_CONFIGURATION_PATTERN = Pattern.compile("^(.+)Copy[0-9]*$");
+	private static final int SLOWEST_MODS_LOGGED = 3;
 
 	private final Project project;
 	private final Configuration sourceConfiguration;
@@ -125,40 +135,23 @@ public class ModProcessor {
 		return description;
 	}
 
-	private void stripNestedJars(Path path) {
-		try {
-			ZipUtils.deleteIfExists(path, "META-INF/jarjar/metadata.json");
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to strip nested jars from %s".formatted(path), e);
-		}
-
-		if (!ZipUtils.contains(path, "fabric.mod.json")) {
-			if (ZipUtils.contains(path, "quilt.mod.json")) {
-				// Strip out all contained jar info as we dont want loader to try and load the jars contained in dev.
-				try {
-					ZipUtils.transformJson(JsonObject.class, path, Map.of("quilt.mod.json", json -> {
-						if (json.has("quilt_loader")) {
-							json.getAsJsonObject("quilt_loader").remove("jars");
-						}
-
-						return json;
-					}));
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to strip nested jars from %s".formatted(path), e);
-				}
-			}
-
-			return;
-		}
+	private static void stripNestedJars(ZipEntryPipeline jar) {
+		jar.deleteIfExists("META-INF/jarjar/metadata.json");
 
 		// Strip out all contained jar info as we dont want loader to try and load the jars contained in dev.
-		try {
-			ZipUtils.transformJson(JsonObject.class, path, Map.of("fabric.mod.json", json -> {
+		if (jar.contains("fabric.mod.json")) {
+			jar.transformJson(JsonObject.class, "fabric.mod.json", json -> {
 				json.remove("jars");
 				return json;
-			}));
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to strip nested jars from %s".formatted(path), e);
+			});
+		} else if (jar.contains("quilt.mod.json")) {
+			jar.transformJson(JsonObject.class, "quilt.mod.json", json -> {
+				if (json.has("quilt_loader")) {
+					json.getAsJsonObject("quilt_loader").remove("jars");
+				}
+
+				return json;
+			});
 		}
 	}
 
@@ -204,8 +197,6 @@ public class ModProcessor {
 		remapper.readClassPath(extension.getMinecraftJars(IntermediaryNamespaces.intermediaryNamespace(project)).toArray(Path[]::new));
 
 		final Map<ModDependency, InputTag> tagMap = new HashMap<>();
-		final Map<ModDependency, OutputConsumerPath> outputConsumerMap = new HashMap<>();
-		final Map<ModDependency, Pair<byte[], String>> accessWidenerMap = new HashMap<>();
 
 		for (RemapConfigurationSettings entry : extension.getRemapConfigurations()) {
 			for (File inputFile : entry.getSourceConfiguration().get().getFiles()) {
@@ -239,74 +230,145 @@ public class ModProcessor {
 			Files.deleteIfExists(getRemappedOutput(info));
 		}
 
+		final ModPlatform platform = extension.getPlatform().get();
+		// The post-processing runs on the pool, so everything it needs from the project is read up front
+		final PostProcessContext postProcessContext = new PostProcessContext(platform, mappings, fromM, IntermediaryNamespaces.intermediary(project), project.getLogger());
+		final Map<ModDependency, Long> timings = new ConcurrentHashMap<>();
+		final Map<ModDependency, Future<?>> postProcessFutures = new LinkedHashMap<>();
+
+		// Each mod is written to its own jar, so the post-processing of one mod can run while the next is being applied.
+		final ExecutorService postProcessExecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(remapList.size(), Runtime.getRuntime().availableProcessors())));
+
 		try {
-			// Apply this in a second loop as we need to ensure all the inputs are on the classpath before remapping.
-			for (ModDependency dependency : remapList) {
-				try {
-					OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(getRemappedOutput(dependency)).build();
+			try {
+				// Apply this in a second loop as we need to ensure all the inputs are on the classpath before remapping.
+				for (ModDependency dependency : remapList) {
+					final Stopwatch applyStopwatch = Stopwatch.createStarted();
+					final OutputConsumerPath outputConsumer;
+					Pair<byte[], String> accessWidener = null;
+
+					try {
+						outputConsumer = new OutputConsumerPath.Builder(getRemappedOutput(dependency)).build();
 
-					outputConsumer.addNonClassFiles(dependency.getInputFile(), NonClassCopyMode.FIX_META_INF, remapper);
-					outputConsumerMap.put(dependency, outputConsumer);
+						outputConsumer.addNonClassFiles(dependency.getInputFile(), NonClassCopyMode.FIX_META_INF, remapper);
 
-					final ModPlatform platform = LoomGradleExtension.get(project).getPlatform().get();
-					final AccessWidenerUtils.AccessWidenerData accessWidenerData = AccessWidenerUtils.readAccessWidenerData(dependency.getInputFile(), platform);
+						final AccessWidenerUtils.AccessWidenerData accessWidenerData = AccessWidenerUtils.readAccessWidenerData(dependency.getInputFile(), platform);
+
+						if (accessWidenerData != null) {
+							project.getLogger().debug("Remapping access widener in {}", dependency.getInputFile());
+							byte[] remappedAw = AccessWidenerUtils.remapAccessWidener(accessWidenerData.content(), remapper.getEnvironment().getRemapper());
+							accessWidener = new Pair<>(remappedAw, accessWidenerData.path());
+						}
 
-					if (accessWidenerData != null) {
-						project.getLogger().debug("Remapping access widener in {}", dependency.getInputFile());
-						byte[] remappedAw = AccessWidenerUtils.remapAccessWidener(accessWidenerData.content(), remapper.getEnvironment().getRemapper());
-						accessWidenerMap.put(dependency, new Pair<>(remappedAw, accessWidenerData.path()));
+						// TinyRemapper already spreads the classes of a single apply across its own thread pool
+						remapper.apply(outputConsumer, tagMap.get(dependency));
+					} catch (Exception e) {
+						throw new RuntimeException("Failed to remap: " + dependency, e);
 					}
 
-					remapper.apply(outputConsumer, tagMap.get(dependency));
-				} catch (Exception e) {
-					throw new RuntimeException("Failed to remap: " + dependency, e);
+					final long applyNanos = applyStopwatch.elapsed(TimeUnit.NANOSECONDS);
+					final Pair<byte[], String> remappedAccessWidener = accessWidener;
+
+					postProcessFutures.put(dependency, postProcessExecutor.submit(() -> {
+						final Stopwatch postProcessStopwatch = Stopwatch.createStarted();
+
+						try {
+							outputConsumer.close();
+							postProcess(dependency, remappedAccessWidener, postProcessContext);
+						} catch (Exception e) {
+							throw new RuntimeException("Failed to remap: " + dependency, e);
+						}
+
+						timings.put(dependency, applyNanos + postProcessStopwatch.elapsed(TimeUnit.NANOSECONDS));
+						return null;
+					}));
+				}
+			} finally {
+				remapper.finish();
+
+				if (kotlinRemapperClassloader != null) {
+					kotlinRemapperClassloader.close();
 				}
 			}
-		} finally {
-			remapper.finish();
 
-			if (kotlinRemapperClassloader != null) {
-				kotlinRemapperClassloader.close();
+			for (Future<?> future : postProcessFutures.values()) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while remapping mods", e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException re) {
+						throw re;
+					}
+
+					throw new RuntimeException(e.getCause());
+				}
 			}
+		} finally {
+			postProcessExecutor.shutdownNow();
 		}
 
-		project.getLogger().lifecycle(":remapped {} mods ({} -> {}) in {}", remapList.size(), fromM, toM, stopwatch.stop());
+		project.getLogger().lifecycle(":remapped {} mods ({} -> {}) in {}{}", remapList.size(), fromM, toM, stopwatch.stop(), describeSlowest(timings));
 
 		for (ModDependency dependency : remapList) {
-			outputConsumerMap.get(dependency).close();
+			dependency.copyToCache(project, getRemappedOutput(dependency), null);
+			project.getLogger().info(":remapped {} in {}ms", dependency.getInputFile().getFileName(), TimeUnit.NANOSECONDS.toMillis(timings.get(dependency)));
+		}
+	}
 
-			final Path output = getRemappedOutput(dependency);
-			final Pair<byte[], String> accessWidener = accessWidenerMap.get(dependency);
+	// Runs on the post-processing pool, so must not use the project
+	private static void postProcess(ModDependency dependency, @Nullable Pair<byte[], String> accessWidener, PostProcessContext context) throws IOException {
+		final Path output = getRemappedOutput(dependency);
+		final ModPlatform platform = context.platform();
 
+		// Apply all of the post-processing in a single pass over the jar
+		try (ZipEntryPipeline jar = ZipEntryPipeline.open(output)) {
 			if (accessWidener != null) {
-				ZipUtils.replace(output, accessWidener.right(), accessWidener.left());
+				jar.replace(accessWidener.right(), accessWidener.left());
 			}
 
-			stripNestedJars(output);
-			remapJarManifestEntries(output);
+			stripNestedJars(jar);
+			remapJarManifestEntries(jar);
 
-			if (extension.isForgeLike()) {
-				if (extension.isNeoForge()) {
+			if (platform.isForgeLike()) {
+				if (platform == ModPlatform.NEOFORGE) {
 					// NeoForge: Fully map ATs
-					NeoForgeModDependencies.remapAts(output, mappings, fromM, toM);
+					NeoForgeModDependencies.remapAts(jar, context.mappings(), context.fromM(), toM);
 				} else {
 					// Forge: only map class names, the rest are mapped srg -> named at runtime
-					AtClassRemapper.remap(project, output, mappings);
+					AtClassRemapper.remap(context.logger(), context.intermediary(), jar, context.mappings());
 				}
 
-				CoreModClassRemapper.remapJar(project, extension.getPlatform().get(), output, mappings);
+				CoreModClassRemapper.remapJar(context.logger(), context.fromM(), platform, jar, context.mappings());
 			}
 
-			dependency.copyToCache(project, output, null);
+			jar.apply();
+		}
+	}
+
+	private record PostProcessContext(ModPlatform platform, MemoryMappingTree mappings, String fromM, String intermediary, Logger logger) {
+	}
+
+	// Lists the mods that took the longest to remap, to make it easy to see which dependency dominates.
+	private static String describeSlowest(Map<ModDependency, Long> timings) {
+		if (timings.size() <= 1) {
+			return "";
 		}
+
+		return timings.entrySet().stream()
+				.sorted(Map.Entry.<ModDependency, Long>comparingByValue().reversed())
+				.limit(SLOWEST_MODS_LOGGED)
+				.map(entry -> entry.getKey().getInputFile().getFileName() + " " + TimeUnit.NANOSECONDS.toMillis(entry.getValue()) + "ms")
+				.collect(Collectors.joining(", ", ", slowest: ", ""));
 	}
 
 	private static Path getRemappedOutput(ModDependency dependency) {
 		return dependency.getWorkingFile(null);
 	}
 
-	private void remapJarManifestEntries(Path jar) throws IOException {
-		ZipUtils.transform(jar, Map.of(Constants.Manifest.PATH, bytes -> {
+	private static void remapJarManifestEntries(ZipEntryPipeline jar) {
+		jar.transform(Constants.Manifest.PATH, bytes -> {
 			var manifest = new Manifest(new ByteArrayInputStream(bytes));
 
 			manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, toM);
@@ -314,6 +376,6 @@ public class ModProcessor {
 			ByteArrayOutputStream out = new ByteArrayOutputStream();
 			manifest.write(out);
 			return out.toByteArray();
-		}));
+		});
 	}
 }
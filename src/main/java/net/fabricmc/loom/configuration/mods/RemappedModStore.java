@@ -0,0 +1,273 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.mods;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import dev.architectury.loom.util.MappingOption;
+import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.api.RemapConfigurationSettings;
+import net.fabricmc.loom.api.remapping.RemapperParameters;
+import net.fabricmc.loom.configuration.mods.dependency.ModDependency;
+import net.fabricmc.loom.extension.RemapperExtensionHolder;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.gradle.GradleUtils;
+import net.fabricmc.loom.util.kotlin.KotlinPluginUtils;
+
+/**
+ * A content addressed store of remapped mods, shared between all projects in the Gradle user home.
+ *
+ * <p>Entries are keyed by the hash of the input jar and everything else that affects the remapped output: the
+ * mappings, the platform, the remapper extensions, the known indy bootstrap methods, the Kotlin metadata remapper,
+ * the remap classpath and the other mods that are remapped alongside it. This allows projects that use different
+ * mapping identifiers, or that have had their local remapped mod cache cleaned, to reuse mods that have already been
+ * remapped with the same inputs.
+ *
+ * <p>Mods that are remapped together are restored together, as the mixins, inheritance and access wideners of each
+ * mod affect the others.
+ */
+public final class RemappedModStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RemappedModStore.class);
+	private static final Duration MAX_AGE = Duration.ofDays(30);
+	private static final Duration PRUNE_INTERVAL = Duration.ofDays(1);
+	private static final String LAST_PRUNE_FILE = ".last-prune";
+
+	private final Path root;
+	private final String environmentHash;
+	// Input file -> sha256, the same jars are hashed for every group of mods
+	private final Map<File, String> fileHashes;
+
+	private RemappedModStore(Path root, String environmentHash, Map<File, String> fileHashes) {
+		this.root = root;
+		this.environmentHash = environmentHash;
+		this.fileHashes = fileHashes;
+	}
+
+	/**
+	 * @return the store, or {@code null} when it cannot be used by this project
+	 */
+	public static @Nullable RemappedModStore create(Project project) throws IOException {
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+
+		if (extension.refreshDeps() || GradleUtils.getBooleanProperty(project, Constants.Properties.DISABLE_REMAPPED_MOD_STORE)) {
+			return null;
+		}
+
+		final Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putString(LoomGradlePlugin.LOOM_VERSION, StandardCharsets.UTF_8);
+		hasher.putString(extension.getPlatform().get().name(), StandardCharsets.UTF_8);
+
+		final Path mappings = extension.getMappingConfiguration().getMappingsFile(MappingOption.forPlatform(extension));
+		hasher.putBytes(Checksum.sha256(mappings.toFile()));
+
+		for (RemapperExtensionHolder holder : extension.getRemapperExtensions().get()) {
+			if (holder.getRemapperParameters() != RemapperParameters.None.INSTANCE) {
+				// The parameters are arbitrary Gradle managed objects, so cannot be reliably included in the key.
+				LOGGER.info("Not using the remapped mod store as remapper extension {} has parameters", holder.getRemapperExtensionClass().get().getName());
+				return null;
+			}
+
+			hasher.putString(holder.getRemapperExtensionClass().get().getName(), StandardCharsets.UTF_8);
+		}
+
+		for (String bsm : new TreeSet<>(extension.getKnownIndyBsms().get())) {
+			hasher.putString(bsm, StandardCharsets.UTF_8);
+		}
+
+		if (KotlinPluginUtils.hasKotlinPlugin(project)) {
+			hasher.putString(KotlinPluginUtils.getKotlinPluginVersion(project), StandardCharsets.UTF_8);
+			hasher.putString(KotlinPluginUtils.getKotlinMetadataVersion(), StandardCharsets.UTF_8);
+		}
+
+		// Every mod in the remap configurations is either remapped or on the remap classpath
+		final Map<File, String> fileHashes = new HashMap<>();
+
+		for (RemapConfigurationSettings entry : extension.getRemapConfigurations()) {
+			for (File file : entry.getSourceConfiguration().get().getFiles()) {
+				fileHashes.computeIfAbsent(file, RemappedModStore::sha256Hex);
+			}
+		}
+
+		new TreeSet<>(fileHashes.values()).forEach(hash -> hasher.putString(hash, StandardCharsets.UTF_8));
+
+		final var store = new RemappedModStore(extension.getFiles().getRemappedModStore().toPath(), hasher.hash().toString(), fileHashes);
+		store.pruneIfNeeded();
+		return store;
+	}
+
+	/**
+	 * Copy the stored remapped jars into the local cache of each mod, only when all the mods are in the store.
+	 *
+	 * @param remapList the mods that would be remapped together
+	 * @return true when all the mods were found in the store
+	 */
+	public boolean restore(Project project, List<ModDependency> remapList) throws IOException {
+		final String groupHash = groupHash(remapList);
+		final Map<ModDependency, Path> paths = new HashMap<>();
+
+		for (ModDependency dependency : remapList) {
+			final Path path = getPath(dependency, groupHash);
+
+			if (Files.notExists(path)) {
+				return false;
+			}
+
+			paths.put(dependency, path);
+		}
+
+		for (ModDependency dependency : remapList) {
+			final Path path = paths.get(dependency);
+			dependency.copyToCache(project, path, null);
+
+			// Record the use, so that the entry is not pruned
+			Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+		}
+
+		return true;
+	}
+
+	/**
+	 * Add freshly remapped jars to the store.
+	 *
+	 * @param remapList the mods that were remapped together
+	 */
+	public void store(List<ModDependency> remapList) throws IOException {
+		final String groupHash = groupHash(remapList);
+
+		for (ModDependency dependency : remapList) {
+			store(getPath(dependency, groupHash), dependency.getWorkingFile(null));
+		}
+	}
+
+	private void store(Path path, Path remappedJar) throws IOException {
+		Files.createDirectories(path.getParent());
+
+		// Copy to a temp file first so other projects never see a partially written jar
+		final Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+		try {
+			Files.copy(remappedJar, tempFile, StandardCopyOption.REPLACE_EXISTING);
+
+			try {
+				Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	// The access wideners and static mixins of every mod in the group are applied when remapping
+	private String groupHash(List<ModDependency> remapList) {
+		final TreeSet<String> inputs = new TreeSet<>();
+
+		for (ModDependency dependency : remapList) {
+			inputs.add(hash(dependency.getInputFile().toFile()) + dependency.getMetadata().mixinRemapType().name());
+		}
+
+		final Hasher hasher = Hashing.sha256().newHasher();
+		inputs.forEach(input -> hasher.putString(input, StandardCharsets.UTF_8));
+		return hasher.hash().toString();
+	}
+
+	private Path getPath(ModDependency dependency, String groupHash) {
+		final Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putString(environmentHash, StandardCharsets.UTF_8);
+		hasher.putString(groupHash, StandardCharsets.UTF_8);
+		hasher.putString(hash(dependency.getInputFile().toFile()), StandardCharsets.UTF_8);
+		hasher.putString(dependency.getMetadata().mixinRemapType().name(), StandardCharsets.UTF_8);
+		final String hash = hasher.hash().toString();
+
+		return root.resolve(hash.substring(0, 2)).resolve(hash + ".jar");
+	}
+
+	private String hash(File file) {
+		return fileHashes.computeIfAbsent(file, RemappedModStore::sha256Hex);
+	}
+
+	private static String sha256Hex(File file) {
+		return Checksum.toHex(Checksum.sha256(file));
+	}
+
+	private void pruneIfNeeded() throws IOException {
+		final Path lastPrune = root.resolve(LAST_PRUNE_FILE);
+		final Instant now = Instant.now();
+
+		if (Files.exists(lastPrune) && Files.getLastModifiedTime(lastPrune).toInstant().plus(PRUNE_INTERVAL).isAfter(now)) {
+			return;
+		}
+
+		Files.createDirectories(root);
+		Files.writeString(lastPrune, now.toString());
+
+		final Instant cutoff = now.minus(MAX_AGE);
+		final List<Path> expired = new ArrayList<>();
+
+		try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+			for (Path dir : dirs) {
+				try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+					for (Path file : files) {
+						if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+							expired.add(file);
+						}
+					}
+				}
+			}
+		}
+
+		for (Path file : expired) {
+			Files.deleteIfExists(file);
+		}
+
+		if (!expired.isEmpty()) {
+			LOGGER.info("Pruned {} unused remapped mods from {}", expired.size(), root);
+		}
+	}
+}
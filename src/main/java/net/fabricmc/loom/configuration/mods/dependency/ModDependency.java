@@ -26,6 +26,7 @@ package net.fabricmc.loom.configuration.mods.dependency;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 
 import org.gradle.api.Project;
 import org.jetbrains.annotations.Nullable;
@@ -71,6 +72,33 @@ public abstract sealed class ModDependency permits SplitModDependency, SimpleMod
 	 */
 	public abstract void applyToProject(Project project);
 
+	/**
+	 * Returns the local maven artifacts that this dependency is remapped to.
+	 */
+	protected abstract List<LocalMavenHelper> getOutputMavens();
+
+	/**
+	 * Returns true when the notation, such as one requested by an IDE, refers to one of the remapped artifacts.
+	 * The classifier of the notation is ignored.
+	 */
+	public boolean matchesNotation(String notation) {
+		final String[] parts = notation.split(":");
+
+		if (parts.length < 3) {
+			return false;
+		}
+
+		for (LocalMavenHelper maven : getOutputMavens()) {
+			final String[] mavenParts = maven.getNotation().split(":");
+
+			if (parts[0].equals(mavenParts[0]) && parts[1].equals(mavenParts[1]) && parts[2].equals(mavenParts[2])) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	protected LocalMavenHelper createMaven(String name) {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final Path root = extension.getFiles().getRemappedModCache().toPath();
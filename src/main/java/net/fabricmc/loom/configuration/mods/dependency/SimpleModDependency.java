@@ -26,6 +26,7 @@ package net.fabricmc.loom.configuration.mods.dependency;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 
 import org.gradle.api.Project;
@@ -60,4 +61,9 @@ public final class SimpleModDependency extends ModDependency {
 	public void applyToProject(Project project) {
 		project.getDependencies().add(targetConfig.getName(), maven.getNotation());
 	}
+
+	@Override
+	protected List<LocalMavenHelper> getOutputMavens() {
+		return List.of(maven);
+	}
 }
@@ -26,7 +26,9 @@ package net.fabricmc.loom.configuration.mods.dependency;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
@@ -120,6 +122,13 @@ public final class SplitModDependency extends ModDependency {
 		}
 	}
 
+	@Override
+	protected List<LocalMavenHelper> getOutputMavens() {
+		return Stream.of(commonMaven, clientMaven)
+				.filter(Objects::nonNull)
+				.toList();
+	}
+
 	private void createModGroup(Path commonJar, Path clientJar) {
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final ModSettings modSettings = extension.getMods().maybeCreate(String.format("%s-%s-%s", getRemappedGroup(), name, version));
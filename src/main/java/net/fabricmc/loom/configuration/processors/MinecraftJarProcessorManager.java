@@ -28,16 +28,26 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
 
 import org.gradle.api.Project;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,7 +56,11 @@ import net.fabricmc.loom.api.processor.MappingProcessorContext;
 import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
+import net.fabricmc.loom.util.AsyncZipProcessor;
 import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.zip.RawZipEntry;
+import net.fabricmc.loom.util.zip.RawZipReader;
+import net.fabricmc.loom.util.zip.RawZipWriter;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class MinecraftJarProcessorManager {
@@ -128,13 +142,219 @@ public final class MinecraftJarProcessorManager {
 	}
 
 	public void processJar(Path jar, ProcessorContext context) throws IOException {
+		// Consecutive processors that transform individual classes share a single pass over the jar
+		final List<ProcessorEntry<?>> classProcessors = new ArrayList<>();
+
 		for (ProcessorEntry<?> entry : jarProcessors) {
+			if (entry.classesProcessor() != null) {
+				classProcessors.add(entry);
+				continue;
+			}
+
+			processClasses(jar, classProcessors, context);
+			classProcessors.clear();
+
 			try {
 				entry.processJar(jar, context);
 			} catch (IOException e) {
 				throw new IOException("Failed to process jar when running jar processor: %s".formatted(entry.name()), e);
 			}
 		}
+
+		processClasses(jar, classProcessors, context);
+	}
+
+	/**
+	 * Process the input jar into the output jar.
+	 *
+	 * <p>When every processor transforms individual classes, the classes touched by each processor are recorded in the
+	 * state file. When the processors later change, the output is derived from the previously processed jar, and only
+	 * the classes touched by the processors that changed are transformed again from the input jar.
+	 */
+	public void processJar(Path inputJar, Path outputJar, Path stateFile, ProcessorContext context) throws IOException {
+		if (!jarProcessors.stream().allMatch(entry -> entry.classesProcessor() != null)) {
+			Files.deleteIfExists(stateFile);
+			Files.copy(inputJar, outputJar, StandardCopyOption.REPLACE_EXISTING);
+			processJar(outputJar, context);
+			return;
+		}
+
+		final Map<ProcessorEntry<?>, MinecraftJarProcessor.ClassTransformer> transformers = createTransformers(jarProcessors, context);
+		final Map<String, List<String>> touchedClasses = new LinkedHashMap<>();
+
+		try (RawZipReader input = RawZipReader.open(inputJar)) {
+			for (ProcessorEntry<?> entry : jarProcessors) {
+				final MinecraftJarProcessor.ClassTransformer transformer = transformers.get(entry);
+				final List<String> classes = new ArrayList<>();
+
+				if (transformer != null) {
+					for (RawZipEntry zipEntry : input.entries()) {
+						final String className = getClassName(zipEntry.name());
+
+						if (className != null && transformer.shouldTransform(className)) {
+							classes.add(className);
+						}
+					}
+				}
+
+				touchedClasses.put(entry.cacheValue(), classes);
+			}
+		}
+
+		final ProcessedJarState previousState = ProcessedJarState.read(stateFile);
+		Files.deleteIfExists(stateFile);
+
+		if (previousState != null && previousState.canUpdateFrom(inputJar, outputJar)) {
+			updateJar(inputJar, Path.of(previousState.outputJar()), outputJar, transformers.values(), getAffectedClasses(previousState.processors(), touchedClasses));
+		} else {
+			processClasses(inputJar, outputJar, transformers);
+		}
+
+		ProcessedJarState.create(inputJar, outputJar, touchedClasses).write(stateFile);
+	}
+
+	// The classes touched by processors that were added, removed or have a different spec
+	private static Set<String> getAffectedClasses(Map<String, List<String>> previous, Map<String, List<String>> current) {
+		final Set<String> affected = new HashSet<>();
+
+		previous.forEach((key, classes) -> {
+			if (!current.containsKey(key)) {
+				affected.addAll(classes);
+			}
+		});
+
+		current.forEach((key, classes) -> {
+			if (!previous.containsKey(key)) {
+				affected.addAll(classes);
+			}
+		});
+
+		return affected;
+	}
+
+	private static void updateJar(Path inputJar, Path previousJar, Path outputJar, Collection<MinecraftJarProcessor.ClassTransformer> transformers, Set<String> affectedClasses) throws IOException {
+		LOGGER.info("Updating {} from {}, {} affected classes", outputJar.getFileName(), previousJar.getFileName(), affectedClasses.size());
+
+		final Path tempJar = Files.createTempFile(outputJar.toAbsolutePath().getParent(), outputJar.getFileName().toString(), ".tmp");
+
+		try {
+			try (RawZipReader input = RawZipReader.open(inputJar);
+					RawZipReader previous = RawZipReader.open(previousJar);
+					RawZipWriter writer = RawZipWriter.create(tempJar)) {
+				for (RawZipEntry entry : input.entries()) {
+					final String className = getClassName(entry.name());
+					final RawZipEntry previousEntry = previous.getEntry(entry.name());
+
+					if (className == null || !affectedClasses.contains(className)) {
+						if (previousEntry != null) {
+							writer.copyRaw(previous, previousEntry);
+						} else {
+							writer.copyRaw(input, entry);
+						}
+					} else if (shouldTransform(transformers, className)) {
+						writer.write(entry.name(), transformClass(transformers, className, input.read(entry)), ZipEntry.DEFLATED, entry.dosTime());
+					} else {
+						writer.copyRaw(input, entry);
+					}
+				}
+			}
+
+			Files.move(tempJar, outputJar, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | RuntimeException e) {
+			throw new IOException("Failed to update %s from %s".formatted(outputJar, previousJar), e);
+		} finally {
+			Files.deleteIfExists(tempJar);
+		}
+	}
+
+	private static void processClasses(Path jar, List<ProcessorEntry<?>> entries, ProcessorContext context) throws IOException {
+		final Map<ProcessorEntry<?>, MinecraftJarProcessor.ClassTransformer> transformers = createTransformers(entries, context);
+
+		if (transformers.isEmpty()) {
+			return;
+		}
+
+		final Path tempJar = Files.createTempFile(jar.toAbsolutePath().getParent(), jar.getFileName().toString(), ".tmp");
+
+		try {
+			processClasses(jar, tempJar, transformers);
+			Files.move(tempJar, jar, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tempJar);
+		}
+	}
+
+	private static void processClasses(Path inputJar, Path outputJar, Map<ProcessorEntry<?>, MinecraftJarProcessor.ClassTransformer> transformers) throws IOException {
+		final String names = transformers.keySet().stream().map(ProcessorEntry::name).collect(Collectors.joining(", "));
+		LOGGER.debug("Transforming classes with jar processors: {}", names);
+
+		try {
+			AsyncZipProcessor.transformEntries(inputJar, outputJar, new AsyncZipProcessor.EntryTransformer() {
+				@Override
+				public boolean shouldTransform(String name) {
+					final String className = getClassName(name);
+					return className != null && MinecraftJarProcessorManager.shouldTransform(transformers.values(), className);
+				}
+
+				@Override
+				public byte[] transform(String name, byte[] input) {
+					return transformClass(transformers.values(), getClassName(name), input);
+				}
+			});
+		} catch (IOException | RuntimeException e) {
+			throw new IOException("Failed to process jar when running jar processors: %s".formatted(names), e);
+		}
+	}
+
+	private static Map<ProcessorEntry<?>, MinecraftJarProcessor.ClassTransformer> createTransformers(List<ProcessorEntry<?>> entries, ProcessorContext context) throws IOException {
+		final Map<ProcessorEntry<?>, MinecraftJarProcessor.ClassTransformer> transformers = new LinkedHashMap<>();
+
+		for (ProcessorEntry<?> entry : entries) {
+			final MinecraftJarProcessor.ClassTransformer transformer;
+
+			try {
+				transformer = entry.createClassTransformer(context);
+			} catch (IOException e) {
+				throw new IOException("Failed to process jar when running jar processor: %s".formatted(entry.name()), e);
+			}
+
+			if (transformer != null) {
+				transformers.put(entry, transformer);
+			}
+		}
+
+		return transformers;
+	}
+
+	@Nullable
+	private static String getClassName(String entryName) {
+		return entryName.endsWith(".class") ? entryName.substring(0, entryName.length() - ".class".length()) : null;
+	}
+
+	private static boolean shouldTransform(Collection<MinecraftJarProcessor.ClassTransformer> transformers, String className) {
+		for (MinecraftJarProcessor.ClassTransformer transformer : transformers) {
+			if (transformer.shouldTransform(className)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static byte[] transformClass(Collection<MinecraftJarProcessor.ClassTransformer> transformers, String className, byte[] input) {
+		final ClassWriter writer = new ClassWriter(0);
+		final List<MinecraftJarProcessor.ClassTransformer> applicable = transformers.stream()
+				.filter(transformer -> transformer.shouldTransform(className))
+				.toList();
+		ClassVisitor visitor = writer;
+
+		// Build the chain backwards so that the processors visit the class in order
+		for (int i = applicable.size() - 1; i >= 0; i--) {
+			visitor = applicable.get(i).transform(className, visitor);
+		}
+
+		new ClassReader(input).accept(visitor, 0);
+		return writer.toByteArray();
 	}
 
 	public boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
@@ -149,16 +369,21 @@ public final class MinecraftJarProcessorManager {
 		return transformed;
 	}
 
-	record ProcessorEntry<S extends MinecraftJarProcessor.Spec>(S spec, MinecraftJarProcessor<S> processor, @Nullable MinecraftJarProcessor.MappingsProcessor<S> mappingsProcessor) {
+	record ProcessorEntry<S extends MinecraftJarProcessor.Spec>(S spec, MinecraftJarProcessor<S> processor, @Nullable MinecraftJarProcessor.MappingsProcessor<S> mappingsProcessor, @Nullable MinecraftJarProcessor.ClassesProcessor<S> classesProcessor) {
 		@SuppressWarnings("unchecked")
 		ProcessorEntry(MinecraftJarProcessor<?> processor, MinecraftJarProcessor.Spec spec) {
-			this((S) Objects.requireNonNull(spec), (MinecraftJarProcessor<S>) processor, (MinecraftJarProcessor.MappingsProcessor<S>) processor.processMappings());
+			this((S) Objects.requireNonNull(spec), (MinecraftJarProcessor<S>) processor, (MinecraftJarProcessor.MappingsProcessor<S>) processor.processMappings(), (MinecraftJarProcessor.ClassesProcessor<S>) processor.processClasses());
 		}
 
 		private void processJar(Path jar, ProcessorContext context) throws IOException {
 			processor().processJar(jar, spec, context);
 		}
 
+		@Nullable
+		private MinecraftJarProcessor.ClassTransformer createClassTransformer(ProcessorContext context) throws IOException {
+			return Objects.requireNonNull(classesProcessor()).createTransformer(spec, context);
+		}
+
 		private boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
 			if (mappingsProcessor() == null) {
 				return false;
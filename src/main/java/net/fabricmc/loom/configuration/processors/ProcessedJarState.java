@@ -0,0 +1,95 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.processors;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * Records how a processed jar was produced, so that it can be updated when the jar processors change.
+ *
+ * @param inputJar the unprocessed jar
+ * @param inputSize the size of the unprocessed jar
+ * @param inputLastModified the last modified time of the unprocessed jar, in milliseconds
+ * @param outputJar the processed jar
+ * @param processors the classes touched by each processor, keyed by the processor name and spec hash
+ */
+record ProcessedJarState(String inputJar, long inputSize, long inputLastModified, String outputJar, Map<String, List<String>> processors) {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProcessedJarState.class);
+
+	static ProcessedJarState create(Path inputJar, Path outputJar, Map<String, List<String>> processors) throws IOException {
+		return new ProcessedJarState(
+				inputJar.toAbsolutePath().toString(),
+				Files.size(inputJar),
+				Files.getLastModifiedTime(inputJar).toMillis(),
+				outputJar.toAbsolutePath().toString(),
+				processors
+		);
+	}
+
+	@Nullable
+	static ProcessedJarState read(Path path) {
+		if (Files.notExists(path)) {
+			return null;
+		}
+
+		try {
+			return LoomGradlePlugin.GSON.fromJson(Files.readString(path), ProcessedJarState.class);
+		} catch (IOException | JsonParseException e) {
+			LOGGER.warn("Failed to read processed jar state from {}", path, e);
+			return null;
+		}
+	}
+
+	void write(Path path) throws IOException {
+		Files.createDirectories(path.getParent());
+		Files.writeString(path, LoomGradlePlugin.GSON.toJson(this));
+	}
+
+	/**
+	 * @return true when the processed jar still exists and was produced from the current unprocessed jar
+	 */
+	boolean canUpdateFrom(Path inputJar, Path outputJar) throws IOException {
+		final Path previousOutput = Path.of(outputJar());
+
+		if (previousOutput.equals(outputJar.toAbsolutePath()) || Files.notExists(previousOutput) || processors == null) {
+			return false;
+		}
+
+		return inputJar.toAbsolutePath().toString().equals(inputJar())
+				&& Files.size(inputJar) == inputSize
+				&& Files.getLastModifiedTime(inputJar).toMillis() == inputLastModified;
+	}
+}
@@ -48,8 +48,8 @@ import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.processor.SpecContext;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.fmj.FabricModJson;
-import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 import net.fabricmc.loom.util.fmj.FabricModJsonHelpers;
+import net.fabricmc.loom.util.fmj.ModMetadataIndex;
 import net.fabricmc.loom.util.gradle.GradleUtils;
 
 /**
@@ -60,11 +60,14 @@ import net.fabricmc.loom.util.gradle.GradleUtils;
 public record SpecContextImpl(List<FabricModJson> modDependencies, List<FabricModJson> localMods, List<FabricModJson> compileRuntimeMods) implements SpecContext {
 	public static SpecContextImpl create(Project project) {
 		final Map<String, List<FabricModJson>> fmjCache = new HashMap<>();
-		return new SpecContextImpl(getDependentMods(project, fmjCache), FabricModJsonHelpers.getModsInProject(project), getCompileRuntimeMods(project, fmjCache));
+		final ModMetadataIndex metadataIndex = ModMetadataIndex.get(LoomGradleExtension.get(project).getFiles().getModMetadataIndex().toPath());
+		final SpecContextImpl context = new SpecContextImpl(getDependentMods(project, fmjCache, metadataIndex), FabricModJsonHelpers.getModsInProject(project), getCompileRuntimeMods(project, fmjCache, metadataIndex));
+		metadataIndex.save();
+		return context;
 	}
 
 	// Reruns a list of mods found on both the compile and/or runtime classpaths
-	private static List<FabricModJson> getDependentMods(Project project, Map<String, List<FabricModJson>> fmjCache) {
+	private static List<FabricModJson> getDependentMods(Project project, Map<String, List<FabricModJson>> fmjCache, ModMetadataIndex metadataIndex) {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		var mods = new ArrayList<FabricModJson>();
 
@@ -73,7 +76,7 @@ public record SpecContextImpl(List<FabricModJson> modDependencies, List<FabricMo
 
 			for (File artifact : artifacts) {
 				final List<FabricModJson> fabricModJson = fmjCache.computeIfAbsent(artifact.toPath().toAbsolutePath().toString(), $ -> {
-					return FabricModJsonFactory.createFromZipOptional(artifact.toPath())
+					return metadataIndex.getMod(artifact.toPath())
 							.map(List::of)
 							.orElseGet(List::of);
 				});
@@ -105,8 +108,8 @@ public record SpecContextImpl(List<FabricModJson> modDependencies, List<FabricMo
 	}
 
 	// Returns a list of mods that are on both to compile and runtime classpath
-	private static List<FabricModJson> getCompileRuntimeMods(Project project, Map<String, List<FabricModJson>> fmjCache) {
-		var mods = new ArrayList<>(getCompileRuntimeModsFromRemapConfigs(project, fmjCache).toList());
+	private static List<FabricModJson> getCompileRuntimeMods(Project project, Map<String, List<FabricModJson>> fmjCache, ModMetadataIndex metadataIndex) {
+		var mods = new ArrayList<>(getCompileRuntimeModsFromRemapConfigs(project, fmjCache, metadataIndex).toList());
 
 		for (Project dependentProject : getCompileRuntimeProjectDependencies(project).toList()) {
 			mods.addAll(fmjCache.computeIfAbsent(dependentProject.getPath(), $ -> {
@@ -118,7 +121,7 @@ public record SpecContextImpl(List<FabricModJson> modDependencies, List<FabricMo
 	}
 
 	// Returns a list of jar mods that are found on the compile and runtime remapping configurations
-	private static Stream<FabricModJson> getCompileRuntimeModsFromRemapConfigs(Project project, Map<String, List<FabricModJson>> fmjCache) {
+	private static Stream<FabricModJson> getCompileRuntimeModsFromRemapConfigs(Project project, Map<String, List<FabricModJson>> fmjCache, ModMetadataIndex metadataIndex) {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final List<Path> runtimeEntries = extension.getRuntimeRemapConfigurations().stream()
 				.filter(settings -> settings.getApplyDependencyTransforms().get())
@@ -131,7 +134,7 @@ public record SpecContextImpl(List<FabricModJson> modDependencies, List<FabricMo
 				.filter(runtimeEntries::contains) // Use the intersection of the two configurations.
 				.map(zipPath -> {
 					final List<FabricModJson> list = fmjCache.computeIfAbsent(zipPath.toAbsolutePath().toString(), $ -> {
-						return FabricModJsonFactory.createFromZipOptional(zipPath)
+						return metadataIndex.getMod(zipPath)
 								.map(List::of)
 								.orElseGet(List::of);
 					});
@@ -28,8 +28,11 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -52,6 +55,8 @@ import java.util.stream.Stream;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import de.oceanlabs.mcp.mcinjector.adaptors.ParameterAnnotationFixer;
+import dev.architectury.at.AccessTransformSet;
+import dev.architectury.at.io.AccessTransformFormats;
 import dev.architectury.loom.forge.UserdevConfig;
 import dev.architectury.loom.util.MappingOption;
 import dev.architectury.loom.util.TempFiles;
@@ -69,6 +74,7 @@ import org.objectweb.asm.tree.ClassNode;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.build.IntermediaryNamespaces;
 import net.fabricmc.loom.configuration.accesstransformer.AccessTransformerJarProcessor;
+import net.fabricmc.loom.configuration.providers.forge.binpatch.BinaryPatcher;
 import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpConfigProvider;
 import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpExecutor;
 import net.fabricmc.loom.configuration.providers.forge.minecraft.ForgeMinecraftProvider;
@@ -83,6 +89,7 @@ import net.fabricmc.loom.util.ThreadingUtils;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.function.FsPathConsumer;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.CoreModClassRemapper;
@@ -390,21 +397,20 @@ public class MinecraftPatchedProvider {
 
 		Files.deleteIfExists(target);
 
-		try (var tempFiles = new TempFiles()) {
-			AccessTransformerJarProcessor.executeAt(project, input, target, args -> {
-				for (Path jar : atSources) {
-					byte[] atBytes = ZipUtils.unpackNullable(jar, Constants.Forge.ACCESS_TRANSFORMER_PATH);
+		final AccessTransformSet accessTransformSet = AccessTransformSet.create();
 
-					if (atBytes != null) {
-						Path tmpFile = tempFiles.file("at-conf", ".cfg");
-						Files.write(tmpFile, atBytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-						args.add("--atFile");
-						args.add(tmpFile.toAbsolutePath().toString());
-					}
+		for (Path jar : atSources) {
+			byte[] atBytes = ZipUtils.unpackNullable(jar, Constants.Forge.ACCESS_TRANSFORMER_PATH);
+
+			if (atBytes != null) {
+				try (Reader reader = new InputStreamReader(new ByteArrayInputStream(atBytes), StandardCharsets.UTF_8)) {
+					AccessTransformFormats.FML.read(reader, accessTransformSet);
 				}
-			});
+			}
 		}
 
+		AccessTransformerJarProcessor.applyAccessTransformers(project, accessTransformSet, input, target);
+
 		project.getLogger().lifecycle(":access transformed minecraft in " + stopwatch.stop());
 	}
 
@@ -450,8 +456,6 @@ public class MinecraftPatchedProvider {
 		Stopwatch stopwatch = Stopwatch.createStarted();
 		logger.lifecycle(":patching jars");
 		patchJars(minecraftIntermediateJar, minecraftPatchedIntermediateJar, type.patches.apply(getExtension().getPatchProvider(), getExtension().getForgeUserdevProvider()));
-
-		copyMissingClasses(minecraftIntermediateJar, minecraftPatchedIntermediateJar);
 		deleteParameterNames(minecraftPatchedIntermediateJar);
 
 		if (getExtension().isForgeLikeAndNotOfficial()) {
@@ -461,9 +465,26 @@ public class MinecraftPatchedProvider {
 		logger.lifecycle(":patched jars in " + stopwatch.stop());
 	}
 
+	/**
+	 * Applies the binary patches to the clean jar, classes without patches are copied from the clean jar.
+	 *
+	 * <p>The patches are applied in-process unless the {@value Constants.Properties#FORK_BINARY_PATCHER} property is
+	 * set or the patcher is configured with arguments that are not supported, in which case the Forge or NeoForge
+	 * binary patcher tool is run instead.
+	 */
 	protected void patchJars(Path clean, Path output, Path patches) throws Exception {
+		final UserdevConfig.BinaryPatcherConfig config = getExtension().getForgeUserdevProvider().getConfig().binpatcher();
+
+		if (!GradleUtils.getBooleanProperty(project, Constants.Properties.FORK_BINARY_PATCHER) && BinaryPatcher.supportsArgs(config.args())) {
+			BinaryPatcher.read(patches).apply(clean, output, config.args().contains("--data"));
+			return;
+		}
+
+		if (!BinaryPatcher.supportsArgs(config.args())) {
+			logger.info("Running the binary patcher tool, as its arguments are not supported in-process: {}", config.args());
+		}
+
 		ForgeToolExecutor.exec(project, spec -> {
-			UserdevConfig.BinaryPatcherConfig config = getExtension().getForgeUserdevProvider().getConfig().binpatcher();
 			spec.classpath(DependencyDownloader.download(project, config.dependency()));
 			spec.getMainClass().set("net.minecraftforge.binarypatcher.ConsoleTool");
 
@@ -477,6 +498,8 @@ public class MinecraftPatchedProvider {
 				spec.args(actual);
 			}
 		});
+
+		copyMissingClasses(clean, output);
 	}
 
 	private void walkFileSystems(Path source, Path target, Predicate<Path> filter, Function<FileSystem, Iterable<Path>> toWalk, FsPathConsumer action)
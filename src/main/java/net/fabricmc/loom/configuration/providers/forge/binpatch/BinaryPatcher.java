@@ -0,0 +1,263 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.forge.binpatch;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import lzma.sdk.lzma.Decoder;
+import lzma.streams.LzmaInputStream;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.util.zip.RawZipEntry;
+import net.fabricmc.loom.util.zip.RawZipReader;
+import net.fabricmc.loom.util.zip.RawZipWriter;
+
+/**
+ * Applies Forge's binary patches in-process, in place of the {@code binarypatcher} tool.
+ *
+ * <p>The patch bundle is read once, the patches are applied in parallel and the classes without patches are copied
+ * without being inflated or recompressed. Only the arguments understood by {@link #supportsArgs(List)} are supported.
+ */
+public final class BinaryPatcher {
+	private static final String PATCH_SUFFIX = ".binpatch";
+	private static final String CLASS_SUFFIX = ".class";
+	private static final List<String> SUPPORTED_ARGS = List.of("--clean", "--output", "--apply", "--data", "--unpatched");
+
+	// Obfuscated class name to its patch
+	private final Map<String, ClassPatch> patches;
+
+	private BinaryPatcher(Map<String, ClassPatch> patches) {
+		this.patches = patches;
+	}
+
+	/**
+	 * @return true if the arguments of the {@code binarypatcher} tool can be handled in-process
+	 */
+	public static boolean supportsArgs(List<String> args) {
+		return args.stream().filter(arg -> arg.startsWith("--")).allMatch(SUPPORTED_ARGS::contains)
+				&& args.stream().filter("--apply"::equals).count() == 1;
+	}
+
+	/**
+	 * Read the patches from a bundle, bundles ending in {@code .lzma} are decompressed first.
+	 */
+	public static BinaryPatcher read(Path bundle) throws IOException {
+		final Map<String, ClassPatch> patches = new LinkedHashMap<>();
+
+		try (InputStream fileIn = new BufferedInputStream(Files.newInputStream(bundle));
+				InputStream in = bundle.getFileName().toString().endsWith(".lzma") ? new LzmaInputStream(fileIn, new Decoder()) : fileIn;
+				ZipInputStream zipIn = new ZipInputStream(in)) {
+			for (ZipEntry entry; (entry = zipIn.getNextEntry()) != null;) {
+				if (entry.isDirectory() || !entry.getName().endsWith(PATCH_SUFFIX)) {
+					continue;
+				}
+
+				final ClassPatch patch = ClassPatch.read(zipIn);
+
+				if (patches.put(patch.obf(), patch) != null) {
+					throw new IOException("Duplicate binary patch for " + patch.obf() + " in " + bundle);
+				}
+			}
+		}
+
+		return new BinaryPatcher(patches);
+	}
+
+	/**
+	 * Patch the clean jar, writing the result to the output jar. Entries are written in the same order as the clean
+	 * jar, followed by the classes that are added by the patches.
+	 *
+	 * @param keepData whether to copy the files that are not classes
+	 */
+	public void apply(Path clean, Path output, boolean keepData) throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+		try {
+			apply(clean, output, keepData, executor);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void apply(Path clean, Path output, boolean keepData, ExecutorService executor) throws IOException {
+		// Bound the number of patched classes held in memory at once
+		final int window = Runtime.getRuntime().availableProcessors() * 4;
+		final Deque<PendingEntry> pending = new ArrayDeque<>();
+		final Set<String> patched = new HashSet<>();
+
+		try (RawZipReader reader = RawZipReader.open(clean);
+				RawZipWriter writer = RawZipWriter.create(output)) {
+			try {
+				for (RawZipEntry entry : reader.entries()) {
+					if (entry.isDirectory()) {
+						continue;
+					}
+
+					final String name = entry.name();
+
+					if (name.endsWith(CLASS_SUFFIX)) {
+						final String className = name.substring(0, name.length() - CLASS_SUFFIX.length());
+						final ClassPatch patch = patches.get(className);
+
+						if (patch != null) {
+							patched.add(className);
+							pending.add(new PendingEntry(className, entry, executor.submit(() -> patch.apply(reader.read(entry)))));
+						} else {
+							pending.add(new PendingEntry(className, entry, null));
+						}
+					} else if (keepData) {
+						pending.add(new PendingEntry(name, entry, null));
+					}
+
+					// Raw copies can be written as soon as all entries before them have been
+					while (!pending.isEmpty() && (pending.peekFirst().patched() == null || pending.size() > window)) {
+						writePending(reader, writer, pending.removeFirst());
+					}
+				}
+
+				for (ClassPatch patch : patches.values()) {
+					if (!patched.contains(patch.obf())) {
+						pending.add(new PendingEntry(patch.obf(), null, executor.submit(() -> patch.apply(null))));
+					}
+				}
+
+				while (!pending.isEmpty()) {
+					writePending(reader, writer, pending.removeFirst());
+				}
+			} finally {
+				for (PendingEntry entry : pending) {
+					if (entry.patched() != null) {
+						entry.patched().cancel(true);
+					}
+				}
+			}
+		}
+	}
+
+	private static void writePending(RawZipReader reader, RawZipWriter writer, PendingEntry pending) throws IOException {
+		if (pending.patched() == null) {
+			writer.copyRaw(reader, pending.entry());
+			return;
+		}
+
+		final byte[] patched;
+
+		try {
+			patched = pending.patched().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while patching " + pending.name(), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioe) {
+				throw ioe;
+			}
+
+			throw new RuntimeException("Failed to patch " + pending.name(), e.getCause());
+		}
+
+		if (patched == null) {
+			// The patch deletes the class
+			return;
+		}
+
+		final int dosTime = pending.entry() != null ? pending.entry().dosTime() : RawZipWriter.CONSTANT_DOS_TIME;
+		writer.write(pending.name() + CLASS_SUFFIX, patched, ZipEntry.DEFLATED, dosTime);
+	}
+
+	/**
+	 * @param checksum the Adler-32 checksum of the clean class, when it exists
+	 * @param data the GDIFF patch, empty when the class is deleted
+	 */
+	private record ClassPatch(String obf, String srg, boolean exists, int checksum, byte[] data) {
+		private static final int VERSION = 1;
+
+		static ClassPatch read(InputStream in) throws IOException {
+			final var input = new DataInputStream(in);
+			final int version = input.readUnsignedByte();
+
+			if (version != VERSION) {
+				throw new IOException("Unsupported binary patch version " + version);
+			}
+
+			final String obf = input.readUTF();
+			final String srg = input.readUTF();
+			final boolean exists = input.readBoolean();
+			final int checksum = exists ? input.readInt() : 0;
+			final byte[] data = new byte[input.readInt()];
+			input.readFully(data);
+			return new ClassPatch(obf, srg, exists, checksum, data);
+		}
+
+		byte @Nullable [] apply(byte @Nullable [] input) throws IOException {
+			if (exists && input == null) {
+				throw new IOException("Patch for %s (%s) expected the class to exist".formatted(obf, srg));
+			} else if (!exists && input != null) {
+				throw new IOException("Patch for %s (%s) expected the class to not exist".formatted(obf, srg));
+			}
+
+			if (exists) {
+				final var adler = new Adler32();
+				adler.update(input);
+
+				if ((int) adler.getValue() != checksum) {
+					throw new IOException("Patch for %s (%s) expected the checksum %08x, but the class has %08x".formatted(obf, srg, checksum, (int) adler.getValue()));
+				}
+			}
+
+			if (data.length == 0) {
+				return null;
+			}
+
+			return GDiffPatcher.patch(input != null ? input : new byte[0], data);
+		}
+	}
+
+	/**
+	 * @param name the class name, or the path of a file that is not a class
+	 * @param entry the entry in the clean jar, or {@code null} for a class added by a patch
+	 * @param patched the patched class, or {@code null} when the entry is copied as is
+	 */
+	private record PendingEntry(String name, @Nullable RawZipEntry entry, @Nullable Future<byte[]> patched) {
+	}
+}
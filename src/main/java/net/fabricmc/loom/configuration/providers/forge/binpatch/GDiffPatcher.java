@@ -0,0 +1,111 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.forge.binpatch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Applies patches in the GDIFF format, as used by Forge's binary patches.
+ *
+ * @see <a href="https://www.w3.org/TR/NOTE-gdiff-19970901">GDIFF</a>
+ */
+final class GDiffPatcher {
+	private static final int MAGIC = 0xD1FFD1FF;
+	private static final int VERSION = 4;
+
+	private static final int EOF = 0;
+	private static final int DATA_MAX = 246;
+	private static final int DATA_USHORT = 247;
+	private static final int DATA_INT = 248;
+	private static final int COPY_USHORT_UBYTE = 249;
+	private static final int COPY_USHORT_USHORT = 250;
+	private static final int COPY_USHORT_INT = 251;
+	private static final int COPY_INT_UBYTE = 252;
+	private static final int COPY_INT_USHORT = 253;
+	private static final int COPY_INT_INT = 254;
+	private static final int COPY_LONG_INT = 255;
+
+	private GDiffPatcher() {
+	}
+
+	static byte[] patch(byte[] source, byte[] patch) throws IOException {
+		final var in = new DataInputStream(new ByteArrayInputStream(patch));
+
+		if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+			throw new IOException("Not a GDIFF version 4 patch");
+		}
+
+		final var out = new ByteArrayOutputStream(source.length + patch.length);
+
+		while (true) {
+			final int command = in.readUnsignedByte();
+
+			switch (command) {
+			case EOF -> {
+				return out.toByteArray();
+			}
+			case DATA_USHORT -> append(in, out, in.readUnsignedShort());
+			case DATA_INT -> append(in, out, in.readInt());
+			case COPY_USHORT_UBYTE -> copy(source, out, in.readUnsignedShort(), in.readUnsignedByte());
+			case COPY_USHORT_USHORT -> copy(source, out, in.readUnsignedShort(), in.readUnsignedShort());
+			case COPY_USHORT_INT -> copy(source, out, in.readUnsignedShort(), in.readInt());
+			case COPY_INT_UBYTE -> copy(source, out, in.readInt(), in.readUnsignedByte());
+			case COPY_INT_USHORT -> copy(source, out, in.readInt(), in.readUnsignedShort());
+			case COPY_INT_INT -> copy(source, out, in.readInt(), in.readInt());
+			case COPY_LONG_INT -> copy(source, out, in.readLong(), in.readInt());
+			default -> {
+				// 1 to 246, the command is the length of the data that follows
+				assert command <= DATA_MAX;
+				append(in, out, command);
+			}
+			}
+		}
+	}
+
+	private static void append(DataInputStream in, ByteArrayOutputStream out, int length) throws IOException {
+		if (length < 0) {
+			throw new IOException("Invalid GDIFF data length " + length);
+		}
+
+		final byte[] data = in.readNBytes(length);
+
+		if (data.length != length) {
+			throw new IOException("Unexpected end of GDIFF patch");
+		}
+
+		out.write(data);
+	}
+
+	private static void copy(byte[] source, ByteArrayOutputStream out, long offset, int length) throws IOException {
+		if (offset < 0 || length < 0 || offset + length > source.length) {
+			throw new IOException("GDIFF copy of %d bytes at %d is outside of the %d byte source".formatted(length, offset, source.length));
+		}
+
+		out.write(source, (int) offset, length);
+	}
+}
@@ -282,8 +282,7 @@ public class MinecraftLegacyPatchedProvider extends MinecraftPatchedProvider {
 	protected void patchJars(Path clean, Path output, Path patches) throws Exception {
 		super.patchJars(clean, output, patches);
 
-		// Patching only preserves affected classes, everything else we need to copy manually
-		copyMissingClasses(clean, output);
+		// Patching only preserves classes, everything else we need to copy manually
 		walkFileSystems(clean, output, file -> !file.toString().endsWith(".class"), this::copyReplacing);
 
 		// Workaround Forge patches apparently violating the JVM spec (see ParameterAnnotationsFixer for details)
@@ -99,14 +99,16 @@ public final class IntermediateMappingsService implements SharedService {
 	}
 
 	private MemoryMappingTree createMemoryMappingTree() {
-		final MemoryMappingTree tree = new MemoryMappingTree();
+		final MemoryMappingTree tree;
 
 		try {
-			MappingNsCompleter nsCompleter = new MappingNsCompleter(tree, Collections.singletonMap(MappingsNamespace.NAMED.toString(), MappingsNamespace.INTERMEDIARY.toString()), true);
+			tree = MappingTreeCache.read(getIntermediaryTiny(), "-completed", visitor -> {
+				MappingNsCompleter nsCompleter = new MappingNsCompleter(visitor, Collections.singletonMap(MappingsNamespace.NAMED.toString(), MappingsNamespace.INTERMEDIARY.toString()), true);
 
-			try (BufferedReader reader = Files.newBufferedReader(getIntermediaryTiny(), StandardCharsets.UTF_8)) {
-				Tiny2FileReader.read(reader, nsCompleter);
-			}
+				try (BufferedReader reader = Files.newBufferedReader(getIntermediaryTiny(), StandardCharsets.UTF_8)) {
+					Tiny2FileReader.read(reader, nsCompleter);
+				}
+			});
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read intermediary mappings", e);
 		}
@@ -96,7 +96,13 @@ public record LayeredMappingsFactory(LayeredMappingSpec spec) {
 
 		Files.deleteIfExists(mappingsZip);
 
-		writeMapping(processor, layers, mappingsZip);
+		final Path snapshotDir = mappingsDir.resolve("snapshots");
+
+		if (mappingContext.refreshDeps()) {
+			// The inputs of the layers may have changed, so the layers are visited and saved again
+			LayeredMappingsProcessor.deleteSnapshots(snapshotDir);
+		}
+		writeMapping(processor, layers, snapshotDir, mappingsZip);
 		writeSignatureFixes(processor, layers, mappingsZip);
 		writeUnpickData(processor, layers, mappingsZip);
 
@@ -111,8 +117,8 @@ public record LayeredMappingsFactory(LayeredMappingSpec spec) {
 		return String.format("%s:%s:%s", GROUP, MODULE, spec.getVersion());
 	}
 
-	private void writeMapping(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile) throws IOException {
-		MemoryMappingTree mappings = processor.getMappings(layers);
+	private void writeMapping(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path snapshotDir, Path mappingsFile) throws IOException {
+		MemoryMappingTree mappings = processor.getMappings(layers, snapshotDir);
 
 		try (Writer writer = new StringWriter()) {
 			var tiny2Writer = new Tiny2FileWriter(writer, false);
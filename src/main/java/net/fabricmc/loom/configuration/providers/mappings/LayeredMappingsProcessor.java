@@ -25,14 +25,21 @@
 package net.fabricmc.loom.configuration.providers.mappings;
 
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
@@ -44,6 +51,8 @@ import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class LayeredMappingsProcessor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LayeredMappingsProcessor.class);
+
 	private final LayeredMappingSpec layeredMappingSpec;
 
 	public LayeredMappingsProcessor(LayeredMappingSpec spec) {
@@ -71,42 +80,109 @@ public class LayeredMappingsProcessor {
 	}
 
 	public MemoryMappingTree getMappings(List<MappingLayer> layers) throws IOException {
-		MemoryMappingTree mappingTree = new MemoryMappingTree();
+		return getMappings(layers, null);
+	}
 
-		for (MappingLayer layer : layers) {
-			// We have to rebuild a new tree to work on when a layer doesnt merge into layered
-			boolean rebuild = layer.getSourceNamespace() != MappingsNamespace.NAMED;
-			MemoryMappingTree workingTree;
+	/**
+	 * Merge the layers into a single tree with named as the source namespace.
+	 *
+	 * <p>The tree is only switched to another source namespace when a layer requires it, consecutive layers with the
+	 * same source namespace are visited into the same tree.
+	 *
+	 * @param snapshotDir when not null the tree is saved after each layer but the last, keyed by the specs up to and
+	 *                    including that layer. When the specs change only the layers from the first changed spec onwards
+	 *                    are visited. Snapshots that were not produced by the current specs are deleted.
+	 */
+	public MemoryMappingTree getMappings(List<MappingLayer> layers, @Nullable Path snapshotDir) throws IOException {
+		MemoryMappingTree mappingTree = new MemoryMappingTree();
+		int firstLayer = 0;
 
-			if (rebuild) {
-				var tempTree = new MemoryMappingTree();
+		if (snapshotDir != null) {
+			for (int i = layers.size() - 2; i >= 0; i--) {
+				final MemoryMappingTree snapshot = MappingTreeCache.readSnapshot(getSnapshotPath(snapshotDir, i));
 
-				// This can be null on the first layer
-				if (mappingTree.getSrcNamespace() != null) {
-					var sourceNsSwitch = new MappingSourceNsSwitch(tempTree, layer.getSourceNamespace().toString());
-					mappingTree.accept(sourceNsSwitch);
+				if (snapshot != null) {
+					mappingTree = snapshot;
+					firstLayer = i + 1;
+					break;
 				}
+			}
+		}
+
+		for (int i = firstLayer; i < layers.size(); i++) {
+			final MappingLayer layer = layers.get(i);
 
-				workingTree = tempTree;
-			} else {
-				workingTree = mappingTree;
+			// This can be null on the first layer
+			if (mappingTree.getSrcNamespace() != null) {
+				mappingTree = switchSourceNamespace(mappingTree, layer.getSourceNamespace().toString());
 			}
 
 			try {
-				layer.visit(workingTree);
+				layer.visit(mappingTree);
 			} catch (IOException e) {
 				throw new IOException("Failed to visit: " + layer.getClass(), e);
 			}
 
-			if (rebuild) {
-				mappingTree = new MemoryMappingTree();
-				workingTree.accept(new MappingSourceNsSwitch(mappingTree, MappingsNamespace.NAMED.toString()));
+			// The full tree is not saved, when the specs are unchanged the mappings file is used as is
+			if (snapshotDir != null && i < layers.size() - 1) {
+				MappingTreeCache.writeSnapshot(mappingTree, getSnapshotPath(snapshotDir, i));
 			}
 		}
 
+		if (snapshotDir != null) {
+			final Set<Path> current = new HashSet<>();
+
+			for (int i = 0; i < layers.size() - 1; i++) {
+				current.add(getSnapshotPath(snapshotDir, i));
+			}
+
+			deleteSnapshots(snapshotDir, current);
+		}
+
+		if (mappingTree.getSrcNamespace() != null) {
+			mappingTree = switchSourceNamespace(mappingTree, MappingsNamespace.NAMED.toString());
+		}
+
 		return mappingTree;
 	}
 
+	private static MemoryMappingTree switchSourceNamespace(MemoryMappingTree mappingTree, String namespace) throws IOException {
+		if (namespace.equals(mappingTree.getSrcNamespace())) {
+			return mappingTree;
+		}
+
+		final var switched = new MemoryMappingTree();
+		mappingTree.accept(new MappingSourceNsSwitch(switched, namespace));
+		return switched;
+	}
+
+	/**
+	 * Delete all the snapshots in the directory, such as when the inputs of the layers may have changed.
+	 */
+	public static void deleteSnapshots(Path snapshotDir) throws IOException {
+		deleteSnapshots(snapshotDir, Set.of());
+	}
+
+	private static void deleteSnapshots(Path snapshotDir, Set<Path> keep) throws IOException {
+		if (Files.notExists(snapshotDir)) {
+			return;
+		}
+
+		try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(snapshotDir, "*.tree")) {
+			for (Path snapshot : snapshots) {
+				if (!keep.contains(snapshot)) {
+					LOGGER.debug("Deleting mapping snapshot {}", snapshot);
+					Files.deleteIfExists(snapshot);
+				}
+			}
+		}
+	}
+
+	private Path getSnapshotPath(Path snapshotDir, int layer) {
+		final int hash = layeredMappingSpec.layers().subList(0, layer + 1).hashCode();
+		return snapshotDir.resolve("%08x-%d.tree".formatted(hash, layer));
+	}
+
 	@Nullable
 	public Map<String, String> getSignatureFixes(List<MappingLayer> layers) {
 		Map<String, String> signatureFixes = new HashMap<>();
@@ -165,6 +165,10 @@ public class MappingConfiguration {
 	}
 
 	public TinyMappingsService getMappingsService(SharedServiceManager serviceManager, MappingOption mappingOption) {
+		return TinyMappingsService.create(serviceManager, getMappingsFile(mappingOption));
+	}
+
+	public Path getMappingsFile(MappingOption mappingOption) {
 		final Path tinyMappings = switch (mappingOption) {
 		case WITH_SRG -> {
 			if (Files.notExists(this.tinyMappingsWithSrg)) {
@@ -183,7 +187,7 @@ public class MappingConfiguration {
 		default -> this.tinyMappings;
 		};
 
-		return TinyMappingsService.create(serviceManager, Objects.requireNonNull(tinyMappings));
+		return Objects.requireNonNull(tinyMappings);
 	}
 
 	protected void setup(Project project, SharedServiceManager serviceManager, MinecraftProvider minecraftProvider, Path inputJar) throws IOException {
@@ -0,0 +1,405 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.mappings;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.function.IoConsumer;
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * A binary cache of a mapping tree, written next to the mappings file it was read from.
+ *
+ * <p>Parsing large tiny files is slow and allocates a lot, especially for Forge-like platforms that have many
+ * namespaces. The cache stores each distinct string once in a string table, followed by the elements of the tree
+ * referencing the table by index. It is read into memory at once, and only used when the size and last modified time
+ * of the mappings file match those it was written from. The file is not memory mapped, as an unreleased mapping
+ * would keep it locked on Windows until the buffer is garbage collected.
+ */
+public final class MappingTreeCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(MappingTreeCache.class);
+	private static final int MAGIC = 0x4C4D5443; // LMTC
+	private static final int VERSION = 1;
+	private static final int NULL = -1;
+
+	private MappingTreeCache() {
+	}
+
+	/**
+	 * Read a mappings file into a tree, using the cache when it is up to date.
+	 */
+	public static MemoryMappingTree read(Path mappings) throws IOException {
+		return read(mappings, "", visitor -> MappingReader.read(mappings, visitor));
+	}
+
+	/**
+	 * Read a mappings file into a tree using the given reader, using the cache when it is up to date.
+	 *
+	 * @param variant distinguishes caches of the same file read in different ways, such as with a namespace completer
+	 * @param reader reads the mappings file into the visitor when the cache cannot be used
+	 */
+	public static MemoryMappingTree read(Path mappings, String variant, IoConsumer<MappingVisitor> reader) throws IOException {
+		final Path cache = getCachePath(mappings, variant);
+		final BasicFileAttributes attributes = Files.readAttributes(mappings, BasicFileAttributes.class);
+		final long size = attributes.size();
+		final long lastModified = attributes.lastModifiedTime().toMillis();
+
+		if (Files.exists(cache)) {
+			try {
+				final MemoryMappingTree tree = readCache(cache, size, lastModified);
+
+				if (tree != null) {
+					return tree;
+				}
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Failed to read mapping tree cache {}, the mappings will be read again", cache, e);
+			}
+		}
+
+		final var tree = new MemoryMappingTree();
+		reader.accept(tree);
+
+		try {
+			writeCache(tree, cache, size, lastModified);
+		} catch (IOException e) {
+			// Not fatal, the mappings will be read again next time
+			LOGGER.info("Failed to write mapping tree cache {}", cache, e);
+		}
+
+		return tree;
+	}
+
+	/**
+	 * Write a tree that is not backed by a mappings file, the caller is responsible for keying the file by its inputs.
+	 */
+	public static void writeSnapshot(MappingTreeView tree, Path snapshot) throws IOException {
+		Files.createDirectories(snapshot.toAbsolutePath().getParent());
+		writeCache(tree, snapshot, 0, 0);
+	}
+
+	/**
+	 * @return the tree written by {@link #writeSnapshot(MappingTreeView, Path)}, or {@code null} if it does not exist
+	 */
+	public static @Nullable MemoryMappingTree readSnapshot(Path snapshot) throws IOException {
+		return Files.exists(snapshot) ? readCache(snapshot, 0, 0) : null;
+	}
+
+	@VisibleForTesting
+	public static Path getCachePath(Path mappings, String variant) {
+		return mappings.resolveSibling(mappings.getFileName() + variant + ".tree");
+	}
+
+	private static @Nullable MemoryMappingTree readCache(Path cache, long size, long lastModified) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cache));
+
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != size || buffer.getLong() != lastModified) {
+			return null;
+		}
+
+		final String[] strings = new String[buffer.getInt()];
+
+		for (int i = 0; i < strings.length; i++) {
+			final byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		final var tree = new MemoryMappingTree();
+		new CacheReader(buffer, strings).accept(tree);
+		return tree;
+	}
+
+	private static void writeCache(MappingTreeView tree, Path cache, long size, long lastModified) throws IOException {
+		final var strings = new StringTable();
+		strings.collect(tree);
+
+		final Path tempFile = Files.createTempFile(cache.toAbsolutePath().getParent(), cache.getFileName().toString(), ".tmp");
+
+		try {
+			try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 65536))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(size);
+				out.writeLong(lastModified);
+				strings.write(out);
+				new CacheWriter(out, strings, tree.getDstNamespaces().size()).write(tree);
+			}
+
+			try {
+				Files.move(tempFile, cache, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, cache, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private static final class StringTable {
+		private final Map<String, Integer> indices = new HashMap<>();
+		private final List<String> strings = new ArrayList<>();
+
+		void collect(MappingTreeView tree) {
+			add(tree.getSrcNamespace());
+			tree.getDstNamespaces().forEach(this::add);
+
+			for (MappingTreeView.MetadataEntryView metadata : tree.getMetadata()) {
+				add(metadata.getKey());
+				add(metadata.getValue());
+			}
+
+			for (MappingTreeView.ClassMappingView clazz : tree.getClasses()) {
+				addElement(clazz, tree);
+
+				for (MappingTreeView.FieldMappingView field : clazz.getFields()) {
+					addElement(field, tree);
+					add(field.getSrcDesc());
+				}
+
+				for (MappingTreeView.MethodMappingView method : clazz.getMethods()) {
+					addElement(method, tree);
+					add(method.getSrcDesc());
+					method.getArgs().forEach(arg -> addElement(arg, tree));
+					method.getVars().forEach(var -> addElement(var, tree));
+				}
+			}
+		}
+
+		private void addElement(MappingTreeView.ElementMappingView element, MappingTreeView tree) {
+			add(element.getSrcName());
+			add(element.getComment());
+
+			for (int i = 0; i < tree.getDstNamespaces().size(); i++) {
+				add(element.getDstName(i));
+			}
+		}
+
+		private void add(@Nullable String string) {
+			if (string != null && !indices.containsKey(string)) {
+				indices.put(string, strings.size());
+				strings.add(string);
+			}
+		}
+
+		int indexOf(@Nullable String string) {
+			return string != null ? indices.get(string) : NULL;
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(strings.size());
+
+			for (String string : strings) {
+				final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+	}
+
+	private record CacheWriter(DataOutputStream out, StringTable strings, int dstNamespaces) {
+		void write(MappingTreeView tree) throws IOException {
+			writeString(tree.getSrcNamespace());
+			out.writeInt(dstNamespaces);
+
+			for (String namespace : tree.getDstNamespaces()) {
+				writeString(namespace);
+			}
+
+			out.writeInt(tree.getMetadata().size());
+
+			for (MappingTreeView.MetadataEntryView metadata : tree.getMetadata()) {
+				writeString(metadata.getKey());
+				writeString(metadata.getValue());
+			}
+
+			out.writeInt(tree.getClasses().size());
+
+			for (MappingTreeView.ClassMappingView clazz : tree.getClasses()) {
+				writeElement(clazz);
+				out.writeInt(clazz.getFields().size());
+
+				for (MappingTreeView.FieldMappingView field : clazz.getFields()) {
+					writeElement(field);
+					writeString(field.getSrcDesc());
+				}
+
+				out.writeInt(clazz.getMethods().size());
+
+				for (MappingTreeView.MethodMappingView method : clazz.getMethods()) {
+					writeElement(method);
+					writeString(method.getSrcDesc());
+					out.writeInt(method.getArgs().size());
+
+					for (MappingTreeView.MethodArgMappingView arg : method.getArgs()) {
+						writeElement(arg);
+						out.writeInt(arg.getArgPosition());
+						out.writeInt(arg.getLvIndex());
+					}
+
+					out.writeInt(method.getVars().size());
+
+					for (MappingTreeView.MethodVarMappingView var : method.getVars()) {
+						writeElement(var);
+						out.writeInt(var.getLvtRowIndex());
+						out.writeInt(var.getLvIndex());
+						out.writeInt(var.getStartOpIdx());
+						out.writeInt(var.getEndOpIdx());
+					}
+				}
+			}
+		}
+
+		private void writeElement(MappingTreeView.ElementMappingView element) throws IOException {
+			writeString(element.getSrcName());
+			writeString(element.getComment());
+
+			for (int i = 0; i < dstNamespaces; i++) {
+				writeString(element.getDstName(i));
+			}
+		}
+
+		private void writeString(@Nullable String string) throws IOException {
+			out.writeInt(strings.indexOf(string));
+		}
+	}
+
+	private record CacheReader(ByteBuffer buffer, String[] strings) {
+		void accept(MappingVisitor visitor) throws IOException {
+			final String srcNamespace = readString();
+			final String[] dstNamespaces = new String[buffer.getInt()];
+
+			for (int i = 0; i < dstNamespaces.length; i++) {
+				dstNamespaces[i] = readString();
+			}
+
+			visitor.visitHeader();
+			visitor.visitNamespaces(srcNamespace, Arrays.asList(dstNamespaces));
+			final int metadataCount = buffer.getInt();
+
+			for (int i = 0; i < metadataCount; i++) {
+				visitor.visitMetadata(readString(), readString());
+			}
+
+			visitor.visitContent();
+			final int classCount = buffer.getInt();
+
+			for (int i = 0; i < classCount; i++) {
+				final Element clazz = readElement(dstNamespaces.length);
+				visitor.visitClass(clazz.srcName());
+				clazz.accept(visitor, MappedElementKind.CLASS);
+
+				final int fieldCount = buffer.getInt();
+
+				for (int j = 0; j < fieldCount; j++) {
+					final Element field = readElement(dstNamespaces.length);
+					visitor.visitField(field.srcName(), readString());
+					field.accept(visitor, MappedElementKind.FIELD);
+				}
+
+				final int methodCount = buffer.getInt();
+
+				for (int j = 0; j < methodCount; j++) {
+					final Element method = readElement(dstNamespaces.length);
+					visitor.visitMethod(method.srcName(), readString());
+					method.accept(visitor, MappedElementKind.METHOD);
+
+					final int argCount = buffer.getInt();
+
+					for (int k = 0; k < argCount; k++) {
+						final Element arg = readElement(dstNamespaces.length);
+						visitor.visitMethodArg(buffer.getInt(), buffer.getInt(), arg.srcName());
+						arg.accept(visitor, MappedElementKind.METHOD_ARG);
+					}
+
+					final int varCount = buffer.getInt();
+
+					for (int k = 0; k < varCount; k++) {
+						final Element var = readElement(dstNamespaces.length);
+						visitor.visitMethodVar(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), var.srcName());
+						var.accept(visitor, MappedElementKind.METHOD_VAR);
+					}
+				}
+			}
+
+			visitor.visitEnd();
+		}
+
+		private Element readElement(int dstNamespaces) {
+			final String srcName = readString();
+			final String comment = readString();
+			final String[] dstNames = new String[dstNamespaces];
+
+			for (int i = 0; i < dstNamespaces; i++) {
+				dstNames[i] = readString();
+			}
+
+			return new Element(srcName, comment, dstNames);
+		}
+
+		private @Nullable String readString() {
+			final int index = buffer.getInt();
+			return index != NULL ? strings[index] : null;
+		}
+	}
+
+	private record Element(String srcName, @Nullable String comment, @Nullable String[] dstNames) {
+		void accept(MappingVisitor visitor, MappedElementKind kind) throws IOException {
+			for (int i = 0; i < dstNames.length; i++) {
+				if (dstNames[i] != null) {
+					visitor.visitDstName(kind, i, dstNames[i]);
+				}
+			}
+
+			visitor.visitElementContent(kind);
+
+			if (comment != null) {
+				visitor.visitComment(kind, comment);
+			}
+		}
+	}
+}
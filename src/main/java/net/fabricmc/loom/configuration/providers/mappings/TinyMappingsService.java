@@ -28,28 +28,35 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
 
+import net.fabricmc.loom.util.service.FileStamp;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class TinyMappingsService implements SharedService {
 	private final MemoryMappingTree mappingTree;
+	private final FileStamp mappingsStamp;
 
 	public TinyMappingsService(Path tinyMappings) {
+		this.mappingsStamp = FileStamp.of(tinyMappings);
+
 		try {
-			this.mappingTree = new MemoryMappingTree();
-			MappingReader.read(tinyMappings, mappingTree);
+			this.mappingTree = MappingTreeCache.read(tinyMappings);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read mappings", e);
 		}
 	}
 
-	public static synchronized TinyMappingsService create(SharedServiceManager serviceManager, Path tinyMappings) {
+	public static TinyMappingsService create(SharedServiceManager serviceManager, Path tinyMappings) {
 		return serviceManager.getOrCreateService("TinyMappingsService:" + tinyMappings.toAbsolutePath(), () -> new TinyMappingsService(tinyMappings));
 	}
 
 	public MemoryMappingTree getMappingTree() {
 		return mappingTree;
 	}
+
+	@Override
+	public boolean isReusable() {
+		return mappingsStamp.isUpToDate();
+	}
 }
@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.util.CacheLock;
 
 public class MergedMinecraftProvider extends MinecraftProvider {
 	private static final Logger LOGGER = LoggerFactory.getLogger(MergedMinecraftProvider.class);
@@ -73,7 +74,7 @@ public class MergedMinecraftProvider extends MinecraftProvider {
 			throw new UnsupportedOperationException("This version does not provide both the client and server jars - please select the client-only or server-only jar configuration!");
 		}
 
-		if (!Files.exists(minecraftMergedJar) || getExtension().refreshDeps()) {
+		CacheLock.produceIfInvalid(minecraftMergedJar, () -> Files.exists(minecraftMergedJar) && !getExtension().refreshDeps(), () -> {
 			try {
 				mergeJars();
 			} catch (Throwable e) {
@@ -84,7 +85,7 @@ public class MergedMinecraftProvider extends MinecraftProvider {
 				getProject().getLogger().error("Could not merge JARs! Deleting source JARs - please re-run the command and move on.", e);
 				throw e;
 			}
-		}
+		});
 	}
 
 	protected void mergeJars() throws IOException {
@@ -24,6 +24,7 @@
 
 package net.fabricmc.loom.configuration.providers.minecraft;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
@@ -31,6 +32,7 @@ import java.util.List;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContext;
 import net.fabricmc.loom.configuration.providers.BundleMetadata;
+import net.fabricmc.loom.util.CacheLock;
 
 public final class SplitMinecraftProvider extends MinecraftProvider {
 	private Path minecraftClientOnlyJar;
@@ -62,12 +64,11 @@ public final class SplitMinecraftProvider extends MinecraftProvider {
 	public void provide() throws Exception {
 		super.provide();
 
-		boolean requiresRefresh = getExtension().refreshDeps() || Files.notExists(minecraftClientOnlyJar) || Files.notExists(minecraftCommonJar);
-
-		if (!requiresRefresh) {
-			return;
-		}
+		// Both jars are split together, so they share the lock of the common jar
+		CacheLock.produceIfInvalid(minecraftCommonJar, () -> !getExtension().refreshDeps() && Files.exists(minecraftClientOnlyJar) && Files.exists(minecraftCommonJar), this::splitJars);
+	}
 
+	private void splitJars() throws IOException {
 		BundleMetadata serverBundleMetadata = getServerBundleMetadata();
 
 		if (serverBundleMetadata == null) {
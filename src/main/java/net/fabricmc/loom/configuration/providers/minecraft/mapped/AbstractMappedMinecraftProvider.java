@@ -28,16 +28,24 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import dev.architectury.loom.util.MappingOption;
 import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
@@ -54,12 +62,17 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta;
 import net.fabricmc.loom.configuration.providers.minecraft.SignatureFixerApplyVisitor;
 import net.fabricmc.loom.extension.LoomFiles;
+import net.fabricmc.loom.util.CacheLock;
 import net.fabricmc.loom.util.SidedClassVisitor;
+import net.fabricmc.loom.util.ThreadingUtils;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.srg.InnerClassRemapper;
 import net.fabricmc.loom.util.srg.RemapObjectHolderVisitor;
+import net.fabricmc.loom.util.zip.RawZipEntry;
+import net.fabricmc.loom.util.zip.RawZipReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import net.fabricmc.tinyremapper.InputTag;
 import net.fabricmc.tinyremapper.extension.mixin.MixinExtension;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
@@ -88,7 +101,8 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 		final List<RemappedJars> remappedJars = getRemappedJars();
 		assert !remappedJars.isEmpty();
 
-		if (!areOutputsValid(remappedJars) || context.refreshOutputs()) {
+		// The jars are remapped together, so they share the lock of the first jar
+		CacheLock.produceIfInvalid(remappedJars.get(0).outputJarPath(), () -> areOutputsValid(remappedJars) && !context.refreshOutputs(), () -> {
 			try {
 				remapInputs(remappedJars, context.configContext());
 			} catch (Throwable t) {
@@ -96,17 +110,10 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 
 				throw new RuntimeException("Failed to remap minecraft", t);
 			}
-		}
+		});
 
 		if (context.applyDependencies()) {
-			final List<MinecraftJar.Type> dependencyTargets = getDependencyTypes();
-
-			if (!dependencyTargets.isEmpty()) {
-				MinecraftSourceSets.get(getProject()).applyDependencies(
-						(configuration, type) -> getProject().getDependencies().add(configuration, getDependencyNotation(type)),
-						dependencyTargets
-				);
-			}
+			applyDependencies();
 		}
 
 		return remappedJars.stream()
@@ -114,6 +121,21 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 				.toList();
 	}
 
+	/**
+	 * Add the jars of {@link #getDependencyTypes()} as dependencies of the Minecraft source sets, this must be called
+	 * on the thread configuring the project.
+	 */
+	public void applyDependencies() {
+		final List<MinecraftJar.Type> dependencyTargets = getDependencyTypes();
+
+		if (!dependencyTargets.isEmpty()) {
+			MinecraftSourceSets.get(getProject()).applyDependencies(
+					(configuration, type) -> getProject().getDependencies().add(configuration, getDependencyNotation(type)),
+					dependencyTargets
+			);
+		}
+	}
+
 	public record ProvideContext(boolean applyDependencies, boolean refreshOutputs, ConfigContext configContext) {
 		ProvideContext withApplyDependencies(boolean applyDependencies) {
 			return new ProvideContext(applyDependencies, refreshOutputs(), configContext());
@@ -193,44 +215,105 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 	private void remapInputs(List<RemappedJars> remappedJars, ConfigContext configContext) throws IOException {
 		cleanOutputs(remappedJars);
 
-		for (RemappedJars remappedJar : remappedJars) {
-			remapJar(remappedJar, configContext);
+		final String toM = getTargetNamespace().toString();
+		final Map<String, String> remappedSignatures = SignatureFixerApplyVisitor.getRemappedSignatures(getTargetNamespace() == MappingsNamespace.INTERMEDIARY, extension.getMappingConfiguration(), getProject(), configContext.serviceManager(), toM);
+
+		// Jars with the same source namespace are remapped by a single remapper, sharing one class tree.
+		final Map<MappingsNamespace, List<RemappedJars>> jarsBySourceNamespace = remappedJars.stream()
+				.collect(Collectors.groupingBy(RemappedJars::sourceNamespace, LinkedHashMap::new, Collectors.toList()));
+
+		for (List<RemappedJars> jars : jarsBySourceNamespace.values()) {
+			remapJars(jars, configContext, remappedSignatures);
 		}
+
+		ThreadingUtils.run(remappedJars, this::postRemap);
 	}
 
-	private void remapJar(RemappedJars remappedJars, ConfigContext configContext) throws IOException {
+	private void remapJars(List<RemappedJars> remappedJars, ConfigContext configContext, Map<String, String> remappedSignatures) throws IOException {
 		final MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
-		final String fromM = remappedJars.sourceNamespace().toString();
+		final String fromM = remappedJars.get(0).sourceNamespace().toString();
 		final String toM = getTargetNamespace().toString();
 
-		Files.deleteIfExists(remappedJars.outputJarPath());
+		final Set<Path> inputJars = new HashSet<>();
+		final Set<Path> classpath = new LinkedHashSet<>();
+		final Set<String> classNames = new HashSet<>();
+		final Map<String, TinyRemapper.ApplyVisitorProvider> postApplyVisitors = new HashMap<>();
+
+		for (RemappedJars remappedJar : remappedJars) {
+			inputJars.add(remappedJar.inputJar());
+			classpath.addAll(Arrays.asList(remappedJar.remapClasspath()));
+
+			if (extension.isForgeLike()) {
+				classNames.addAll(InnerClassRemapper.readClassNames(remappedJar.inputJar()));
+			}
+
+			final TinyRemapper.ApplyVisitorProvider postApplyVisitor = getPostApplyVisitor(remappedJar);
+
+			if (postApplyVisitor != null) {
+				for (String className : readClassNames(remappedJar.inputJar())) {
+					postApplyVisitors.put(className, postApplyVisitor);
+				}
+			}
+		}
+
+		// Jars that are remapped together are already in the class tree as inputs
+		classpath.removeAll(inputJars);
 
-		final Set<String> classNames = extension.isForgeLike() ? InnerClassRemapper.readClassNames(remappedJars.inputJar()) : Set.of();
-		final Map<String, String> remappedSignatures = SignatureFixerApplyVisitor.getRemappedSignatures(getTargetNamespace() == MappingsNamespace.INTERMEDIARY, mappingConfiguration, getProject(), configContext.serviceManager(), toM);
 		final MinecraftVersionMeta.JavaVersion javaVersion = minecraftProvider.getVersionInfo().javaVersion();
 		final boolean fixRecords = javaVersion != null && javaVersion.majorVersion() >= 16;
 
 		TinyRemapper remapper = TinyRemapperHelper.getTinyRemapper(getProject(), configContext.serviceManager(), fromM, toM, fixRecords, (builder) -> {
 			builder.extraPostApplyVisitor(new SignatureFixerApplyVisitor(remappedSignatures));
 			if (extension.isNeoForge()) builder.extension(new MixinExtension(inputTag -> true));
-			configureRemapper(remappedJars, builder);
+
+			if (!postApplyVisitors.isEmpty()) {
+				// Only apply the jar specific visitors to the classes from that jar
+				builder.extraPostApplyVisitor((cls, next) -> {
+					final TinyRemapper.ApplyVisitorProvider provider = postApplyVisitors.get(cls.getName());
+					return provider != null ? provider.insertApplyVisitor(cls, next) : next;
+				});
+			}
 		}, classNames);
 
-		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJars.outputJarPath()).build()) {
-			outputConsumer.addNonClassFiles(remappedJars.inputJar());
+		final List<OutputConsumerPath> outputConsumers = new ArrayList<>();
+
+		try {
+			for (Path path : classpath) {
+				remapper.readClassPathAsync(path);
+			}
+
+			final List<InputTag> inputTags = new ArrayList<>();
 
-			for (Path path : remappedJars.remapClasspath()) {
-				remapper.readClassPath(path);
+			for (RemappedJars remappedJar : remappedJars) {
+				final InputTag inputTag = remapper.createInputTag();
+				remapper.readInputsAsync(inputTag, remappedJar.inputJar());
+				inputTags.add(inputTag);
 			}
 
-			remapper.readInputs(remappedJars.inputJar());
-			remapper.apply(outputConsumer);
+			for (int i = 0; i < remappedJars.size(); i++) {
+				final RemappedJars remappedJar = remappedJars.get(i);
+				final OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJar.outputJarPath()).build();
+				outputConsumers.add(outputConsumer);
+
+				outputConsumer.addNonClassFiles(remappedJar.inputJar());
+				remapper.apply(outputConsumer, inputTags.get(i));
+			}
+
+			// Each output is written to its own jar, so they can be closed concurrently
+			ThreadingUtils.run(outputConsumers, OutputConsumerPath::close);
+			outputConsumers.clear();
 		} catch (Exception e) {
-			throw new RuntimeException("Failed to remap JAR " + remappedJars.inputJar() + " with mappings from " + mappingConfiguration.tinyMappings, e);
+			throw new RuntimeException("Failed to remap JARs " + remappedJars.stream().map(RemappedJars::inputJar).toList() + " with mappings from " + mappingConfiguration.tinyMappings, e);
 		} finally {
+			for (OutputConsumerPath outputConsumer : outputConsumers) {
+				outputConsumer.close();
+			}
+
 			remapper.finish();
 		}
+	}
 
+	private void postRemap(RemappedJars remappedJars) throws IOException {
 		getMavenHelper(remappedJars.type()).savePom();
 
 		if (extension.isForgeLikeAndOfficial()) {
@@ -252,18 +335,41 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 		}
 	}
 
-	protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
+	private static Set<String> readClassNames(Path jar) throws IOException {
+		final Set<String> classNames = new HashSet<>();
+
+		// Only the central directory needs to be read
+		try (RawZipReader reader = RawZipReader.open(jar)) {
+			for (RawZipEntry entry : reader.entries()) {
+				if (entry.name().endsWith(".class")) {
+					classNames.add(entry.name().substring(0, entry.name().length() - 6));
+				}
+			}
+		}
+
+		return classNames;
+	}
+
+	/**
+	 * @return a visitor that is only applied to the classes of the given jar, or {@code null}
+	 */
+	@Nullable
+	protected TinyRemapper.ApplyVisitorProvider getPostApplyVisitor(RemappedJars remappedJars) {
+		return null;
 	}
 
-	// Configure the remapper to add the client @Environment annotation to all classes in the client jar.
-	public static void configureSplitRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
+	// Adds the client @Environment annotation to all classes in the client jar.
+	@Nullable
+	public static TinyRemapper.ApplyVisitorProvider getSplitPostApplyVisitor(RemappedJars remappedJars) {
 		final MinecraftJar outputJar = remappedJars.outputJar();
 		assert !outputJar.isMerged();
 
 		if (outputJar.includesClient()) {
 			assert !outputJar.includesServer();
-			tinyRemapperBuilder.extraPostApplyVisitor(SidedClassVisitor.CLIENT);
+			return SidedClassVisitor.CLIENT;
 		}
+
+		return null;
 	}
 
 	private void cleanOutputs(List<RemappedJars> remappedJars) throws IOException {
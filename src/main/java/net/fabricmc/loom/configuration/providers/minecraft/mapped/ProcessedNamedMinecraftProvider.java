@@ -41,7 +41,6 @@ import net.fabricmc.loom.configuration.providers.minecraft.LegacyMergedMinecraft
 import net.fabricmc.loom.configuration.providers.minecraft.MergedMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJar;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
-import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarEnvType;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.SplitMinecraftProvider;
@@ -90,32 +89,29 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 			deleteSimilarJars(outputJar.getPath());
 
 			final LocalMavenHelper mavenHelper = getMavenHelper(minecraftJar.getType());
-			final Path outputPath = mavenHelper.copyToMaven(minecraftJar.getPath(), null);
+			final Path outputPath = mavenHelper.getOutputFile(null);
 
 			assert outputJar.getPath().equals(outputPath);
 
-			jarProcessorManager.processJar(outputPath, new ProcessorContextImpl(configContext, minecraftJar));
+			Files.createDirectories(outputPath.getParent());
+			mavenHelper.savePom();
+			jarProcessorManager.processJar(minecraftJar.getPath(), outputPath, getStateFile(minecraftJar.getType()), new ProcessorContextImpl(configContext, minecraftJar));
 		}
 	}
 
+	// Not specific to the processor hash, so that the jar can be updated from the previously processed jar
+	private Path getStateFile(MinecraftJar.Type type) {
+		final String jarPrefix = parentMinecraftProvider.getMinecraftProvider().getJarPrefix();
+		return extension.getFiles().getProjectPersistentCache().toPath()
+				.resolve("processed-minecraft")
+				.resolve(jarPrefix + "minecraft-%s.json".formatted(type.toString()));
+	}
+
 	@Override
 	public List<MinecraftJar.Type> getDependencyTypes() {
 		return parentMinecraftProvider.getDependencyTypes();
 	}
 
-	private void applyDependencies() {
-		final List<MinecraftJar.Type> dependencyTargets = getDependencyTypes();
-
-		if (dependencyTargets.isEmpty()) {
-			return;
-		}
-
-		MinecraftSourceSets.get(getProject()).applyDependencies(
-				(configuration, name) -> getProject().getDependencies().add(configuration, getDependencyNotation(name)),
-				dependencyTargets
-		);
-	}
-
 	private void deleteSimilarJars(Path jar) throws IOException {
 		Files.deleteIfExists(jar);
 		final Path parent = jar.getParent();
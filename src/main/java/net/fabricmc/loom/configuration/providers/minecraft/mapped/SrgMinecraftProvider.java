@@ -27,6 +27,7 @@ package net.fabricmc.loom.configuration.providers.minecraft.mapped;
 import java.util.List;
 
 import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.minecraft.LegacyMergedMinecraftProvider;
@@ -92,10 +93,13 @@ public abstract sealed class SrgMinecraftProvider<M extends MinecraftProvider> e
 		}
 
 		@Override
-		protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
+		@Nullable
+		protected TinyRemapper.ApplyVisitorProvider getPostApplyVisitor(RemappedJars remappedJars) {
 			if (remappedJars.outputJar().equals(getClientOnlyJar())) {
-				tinyRemapperBuilder.extraPostApplyVisitor(SidedClassVisitor.CLIENT);
+				return SidedClassVisitor.CLIENT;
 			}
+
+			return null;
 		}
 	}
 
@@ -25,12 +25,7 @@
 package net.fabricmc.loom.decompilers;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.HashSet;
-import java.util.Set;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -47,50 +42,49 @@ public record LineNumberRemapper(ClassLineNumbers lineNumbers) {
 	private static final Logger LOGGER = LoggerFactory.getLogger(LineNumberRemapper.class);
 
 	public void process(Path input, Path output) throws IOException {
-		AsyncZipProcessor.processEntries(input, output, new AsyncZipProcessor() {
-			private final Set<Path> createdParents = new HashSet<>();
-
+		// Most entries are not remapped, these are copied across without being recompressed
+		AsyncZipProcessor.transformEntries(input, output, new AsyncZipProcessor.EntryTransformer() {
 			@Override
-			public void processEntryAsync(Path file, Path dst) throws IOException {
-				Path parent = dst.getParent();
+			public boolean shouldTransform(String name) {
+				if (!name.endsWith(".class")) {
+					return false;
+				}
 
-				synchronized (createdParents) {
-					if (parent != null && createdParents.add(parent)) {
-						Files.createDirectories(parent);
-					}
+				final String idx = getLineMapKey(name);
+
+				if (!lineNumbers.lineMap().containsKey(idx)) {
+					LOGGER.debug("No linemap found for: {}", idx);
+					return false;
 				}
 
-				String fileName = file.toAbsolutePath().toString();
+				return true;
+			}
 
-				if (fileName.endsWith(".class")) {
-					// Strip the leading slash and the .class extension
-					String idx = fileName.substring(1, fileName.length() - 6);
+			@Override
+			public byte[] transform(String name, byte[] input) {
+				final String idx = getLineMapKey(name);
+				LOGGER.debug("Remapping line numbers for class: {}", idx);
 
-					int dollarPos = idx.indexOf('$'); //This makes the assumption that only Java classes are to be remapped.
+				ClassReader reader = new ClassReader(input);
+				ClassWriter writer = new ClassWriter(0);
 
-					if (dollarPos >= 0) {
-						idx = idx.substring(0, dollarPos);
-					}
+				reader.accept(new LineNumberVisitor(Constants.ASM_VERSION, writer, lineNumbers.lineMap().get(idx)), 0);
+				return writer.toByteArray();
+			}
+		});
+	}
 
-					if (lineNumbers.lineMap().containsKey(idx)) {
-						LOGGER.debug("Remapping line numbers for class: {}", idx);
+	private static String getLineMapKey(String name) {
+		// Strip the .class extension
+		String idx = name.substring(0, name.length() - 6);
 
-						try (InputStream is = Files.newInputStream(file)) {
-							ClassReader reader = new ClassReader(is);
-							ClassWriter writer = new ClassWriter(0);
+		int dollarPos = idx.indexOf('$'); //This makes the assumption that only Java classes are to be remapped.
 
-							reader.accept(new LineNumberVisitor(Constants.ASM_VERSION, writer, lineNumbers.lineMap().get(idx)), 0);
-							Files.write(dst, writer.toByteArray());
-							return;
-						}
-					} else {
-						LOGGER.debug("No linemap found for: {}", idx);
-					}
-				}
+		if (dollarPos >= 0) {
+			idx = idx.substring(0, dollarPos);
+		}
 
-				Files.copy(file, dst, StandardCopyOption.REPLACE_EXISTING);
-			}
-		});
+		return idx;
 	}
 
 	private static class LineNumberVisitor extends ClassVisitor {
@@ -50,6 +50,7 @@ import net.fabricmc.loom.decompilers.ClassLineNumbers;
 // Stores the source code and line numbers for the class
 public record CachedData(String className, String sources, @Nullable ClassLineNumbers.Entry lineNumbers) {
 	public static final CachedFileStore.EntrySerializer<CachedData> SERIALIZER = new EntrySerializer();
+	public static final CachedFileStore.ChannelSerializer<CachedData> CHANNEL_SERIALIZER = new ChannelSerializer();
 
 	private static final String HEADER_ID = "LOOM";
 	private static final String NAME_ID = "NAME";
@@ -206,4 +207,16 @@ public record CachedData(String className, String sources, @Nullable ClassLineNu
 			}
 		}
 	}
+
+	static class ChannelSerializer implements CachedFileStore.ChannelSerializer<CachedData> {
+		@Override
+		public CachedData read(InputStream inputStream) throws IOException {
+			return CachedData.read(inputStream);
+		}
+
+		@Override
+		public void write(CachedData entry, FileChannel fileChannel) {
+			entry.write(fileChannel);
+		}
+	}
 }
@@ -25,6 +25,8 @@
 package net.fabricmc.loom.decompilers.cache;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 
 import org.jetbrains.annotations.Nullable;
@@ -39,4 +41,19 @@ public interface CachedFileStore<T> {
 
 		void write(T entry, Path path) throws IOException;
 	}
+
+	/**
+	 * Serializes entries into a shared file, see {@link IndexedCachedFileStore}.
+	 */
+	interface ChannelSerializer<T> {
+		/**
+		 * @param inputStream A stream containing exactly the bytes of a single entry
+		 */
+		T read(InputStream inputStream) throws IOException;
+
+		/**
+		 * Write the entry starting at the current position of the channel, leaving the position at the end of the entry.
+		 */
+		void write(T entry, FileChannel fileChannel) throws IOException;
+	}
 }
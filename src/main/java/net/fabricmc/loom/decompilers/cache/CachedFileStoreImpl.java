@@ -27,11 +27,11 @@ package net.fabricmc.loom.decompilers.cache;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -69,11 +69,12 @@ public record CachedFileStoreImpl<T>(Path root, EntrySerializer<T> entrySerializ
 		return root.resolve(key);
 	}
 
-	public void prune() throws IOException {
-		// Sorted oldest -> newest
-		List<PathEntry> entries = new ArrayList<>();
+	public PruneStats prune() throws IOException {
+		final long start = System.nanoTime();
+		final List<PathEntry> entries = new ArrayList<>();
+		long totalBytes = 0;
 
-		// Iterate over all the files in the cache, and store them into the sorted list.
+		// Iterate over all the files in the cache
 		try (Stream<Path> walk = Files.walk(root)) {
 			Iterator<Path> iterator = walk.iterator();
 
@@ -84,58 +85,71 @@ public record CachedFileStoreImpl<T>(Path root, EntrySerializer<T> entrySerializ
 					continue;
 				}
 
-				insertSorted(entries, new PathEntry(entry));
+				final var pathEntry = new PathEntry(entry);
+				entries.add(pathEntry);
+				totalBytes += pathEntry.size();
 			}
 		}
 
-		// Delete the oldest files to get under the max file limit
-		if (entries.size() > cacheRules.maxFiles) {
-			for (int i = 0; i < cacheRules.maxFiles; i++) {
-				PathEntry toRemove = entries.remove(0);
-				Files.delete(toRemove.path);
-			}
-		}
+		// Sorted oldest -> newest
+		entries.sort(Comparator.comparing(PathEntry::lastModified));
 
 		final Instant maxAge = Instant.now().minus(cacheRules().maxAge());
-		Iterator<PathEntry> iterator = entries.iterator();
+		long remainingFiles = entries.size();
+		long remainingBytes = totalBytes;
+		int removed = 0;
 
-		while (iterator.hasNext()) {
-			final PathEntry entry = iterator.next();
+		for (PathEntry entry : entries) {
+			final boolean overLimit = remainingFiles > cacheRules.maxFiles() || remainingBytes > cacheRules.maxBytes();
 
-			if (entry.lastModified().toInstant().isAfter(maxAge)) {
-				// File is not longer than the max age
+			if (!overLimit && entry.lastModified().toInstant().isAfter(maxAge)) {
+				// Within the limits and not older than the max age
 				// As this is a sorted list we don't need to keep checking
 				break;
 			}
 
-			// Remove all files over the max age
-			iterator.remove();
-			Files.delete(entry.path);
-		}
-	}
-
-	private void insertSorted(List<PathEntry> list, PathEntry entry) {
-		int index = Collections.binarySearch(list, entry, Comparator.comparing(PathEntry::lastModified));
-
-		if (index < 0) {
-			index = -index - 1;
+			// Remove the oldest files to get under the limits, and all files over the max age
+			Files.delete(entry.path());
+			remainingFiles--;
+			remainingBytes -= entry.size();
+			removed++;
 		}
 
-		list.add(index, entry);
+		final long reclaimed = totalBytes - remainingBytes;
+		return new PruneStats(removed, reclaimed, reclaimed, Duration.ofNanos(System.nanoTime() - start));
 	}
 
 	/**
 	 * The rules for the cache.
 	 *
 	 * @param maxFiles The maximum number of files in the cache
+	 * @param maxBytes The maximum total size in bytes of the files in the cache
 	 * @param maxAge  The maximum age of a file in the cache
 	 */
-	public record CacheRules(long maxFiles, Duration maxAge) {
+	public record CacheRules(long maxFiles, long maxBytes, Duration maxAge) {
+		public CacheRules(long maxFiles, Duration maxAge) {
+			this(maxFiles, Long.MAX_VALUE, maxAge);
+		}
+	}
+
+	/**
+	 * The result of pruning the cache.
+	 *
+	 * @param removedEntries The number of entries removed from the cache
+	 * @param removedBytes The size in bytes of the entries removed from the cache
+	 * @param reclaimedBytes The number of bytes freed on disk
+	 * @param duration How long the prune took
+	 */
+	public record PruneStats(int removedEntries, long removedBytes, long reclaimedBytes, Duration duration) {
 	}
 
-	record PathEntry(Path path, FileTime lastModified) {
+	record PathEntry(Path path, FileTime lastModified, long size) {
 		PathEntry(Path path) throws IOException {
-			this(path, Files.getLastModifiedTime(path));
+			this(path, Files.readAttributes(path, BasicFileAttributes.class));
+		}
+
+		private PathEntry(Path path, BasicFileAttributes attributes) {
+			this(path, attributes.lastModifiedTime(), attributes.size());
 		}
 	}
 }
@@ -24,15 +24,27 @@
 
 package net.fabricmc.loom.decompilers.cache;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -40,51 +52,71 @@ import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.decompilers.ClassLineNumbers;
 import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.zip.RawZipWriter;
 
 public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String baseHash) {
 	private static final Logger LOGGER = LoggerFactory.getLogger(CachedJarProcessor.class);
 
-	public WorkRequest prepareJob(Path inputJar) throws IOException {
+	/**
+	 * Look up the classes of the input jar in the cache. Cached sources are written straight to the output jar,
+	 * the classes that were not found are collected into a jar to be processed.
+	 *
+	 * @param inputJar The jar to process
+	 * @param outputJar The final sources jar, any existing file is replaced
+	 */
+	public WorkRequest prepareJob(Path inputJar, Path outputJar) throws IOException {
 		boolean isIncomplete = false;
 		boolean hasSomeExisting = false;
 
 		Path incompleteJar = Files.createTempFile("loom-cache-incomplete", ".jar");
-		Path existingJar = Files.createTempFile("loom-cache-existing", ".jar");
-
-		// We must delete the empty files, so they can be created as a zip
-		Files.delete(incompleteJar);
-		Files.delete(existingJar);
 
 		// Sources name -> hash
 		Map<String, String> outputNameMap = new HashMap<>();
+		Map<String, String> existingNameMap = new LinkedHashMap<>();
 		Map<String, ClassLineNumbers.Entry> lineNumbersMap = new HashMap<>();
 
 		int hits = 0;
 		int misses = 0;
 
+		final int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
 		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar, false);
-				FileSystemUtil.Delegate incompleteFs = FileSystemUtil.getJarFileSystem(incompleteJar, true);
-				FileSystemUtil.Delegate existingFs = FileSystemUtil.getJarFileSystem(existingJar, true)) {
+				var incompleteZip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(incompleteJar)));
+				RawZipWriter outputZip = RawZipWriter.create(outputJar)) {
 			final List<ClassEntry> inputClasses = JarWalker.findClasses(inputFs);
+			final Iterator<ClassEntry> inputIterator = inputClasses.iterator();
+
+			// Hash and look up the entries in parallel, the results are written in order by this thread.
+			// Only a bounded number of entries are in flight to limit the amount of class bytes held in memory.
+			final int maxInFlight = threads * 16;
+			final Deque<Future<PreparedEntry>> inFlight = new ArrayDeque<>(maxInFlight);
 
-			for (ClassEntry entry : inputClasses) {
-				String outputFileName = entry.sourcesFileName();
-				String fullHash = baseHash + "/" + entry.hash(inputFs.getRoot());
+			while (inputIterator.hasNext() || !inFlight.isEmpty()) {
+				while (inputIterator.hasNext() && inFlight.size() < maxInFlight) {
+					final ClassEntry entry = inputIterator.next();
+					inFlight.add(executor.submit(() -> prepareEntry(inputFs.getRoot(), entry)));
+				}
 
-				final CachedData entryData = fileStore.getEntry(fullHash);
+				final PreparedEntry prepared = getPrepared(inFlight.removeFirst());
+				final String outputFileName = prepared.entry().sourcesFileName();
+				final CachedData entryData = prepared.cachedData();
 
 				if (entryData == null) {
 					// Cached entry was not found, so copy the input to the incomplete jar to be processed
-					entry.copyTo(inputFs.getRoot(), incompleteFs.getRoot());
+					for (Map.Entry<String, byte[]> classEntry : prepared.classes().entrySet()) {
+						writeEntry(incompleteZip, classEntry.getKey(), classEntry.getValue());
+					}
+
 					isIncomplete = true;
-					outputNameMap.put(outputFileName, fullHash);
+					outputNameMap.put(outputFileName, prepared.fullHash());
 
-					LOGGER.debug("Cached entry ({}) not found, going to process {}", fullHash, outputFileName);
+					LOGGER.debug("Cached entry ({}) not found, going to process {}", prepared.fullHash(), outputFileName);
 					misses++;
 				} else {
-					final Path outputPath = existingFs.getPath(outputFileName);
-					Files.createDirectories(outputPath.getParent());
-					Files.writeString(outputPath, entryData.sources());
+					// Cached entry was found, write the sources to the output jar now rather than reading it again later
+					outputZip.write(outputFileName, entryData.sources().getBytes(StandardCharsets.UTF_8));
+					existingNameMap.put(outputFileName, prepared.fullHash());
 
 					if (entryData.lineNumbers() != null) {
 						lineNumbersMap.put(entryData.className(), entryData.lineNumbers());
@@ -94,15 +126,17 @@ public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String b
 
 					hasSomeExisting = true;
 
-					LOGGER.debug("Cached entry ({}) found: {}", fullHash, outputFileName);
+					LOGGER.debug("Cached entry ({}) found: {}", prepared.fullHash(), outputFileName);
 					hits++;
 				}
 			}
+		} finally {
+			executor.shutdownNow();
 		}
 
 		// A jar file that will be created by the work action, containing the newly processed items.
-		Path outputJar = Files.createTempFile("loom-cache-output", ".jar");
-		Files.delete(outputJar);
+		Path workOutputJar = Files.createTempFile("loom-cache-output", ".jar");
+		Files.delete(workOutputJar);
 
 		final ClassLineNumbers lineNumbers = lineNumbersMap.isEmpty() ? null : new ClassLineNumbers(Collections.unmodifiableMap(lineNumbersMap));
 		final var stats = new CacheStats(hits, misses);
@@ -110,124 +144,142 @@ public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String b
 		if (isIncomplete && !hasSomeExisting) {
 			// The cache contained nothing of use, fully process the input jar
 			Files.delete(incompleteJar);
-			Files.delete(existingJar);
 
 			LOGGER.info("No cached entries found, going to process the whole jar");
-			return new FullWorkJob(inputJar, outputJar, outputNameMap)
+			return new FullWorkJob(inputJar, workOutputJar, outputNameMap)
 					.asRequest(stats, lineNumbers);
 		} else if (isIncomplete) {
 			// The cache did not contain everything so we have some work to do
 			LOGGER.info("Some cached entries found, using partial work job");
-			return new PartialWorkJob(incompleteJar, existingJar, outputJar, outputNameMap)
+			return new PartialWorkJob(incompleteJar, workOutputJar, outputNameMap, existingNameMap)
 					.asRequest(stats, lineNumbers);
 		} else {
-			// The cached contained everything we need, so the existing jar is the output
+			// The cached contained everything we need
 			LOGGER.info("All cached entries found, using completed work job");
 			Files.delete(incompleteJar);
-			return new CompletedWorkJob(existingJar)
+			return new CompletedWorkJob(existingNameMap)
 					.asRequest(stats, lineNumbers);
 		}
 	}
 
-	public void completeJob(Path output, WorkJob workJob, ClassLineNumbers lineNumbers) throws IOException {
-		if (workJob instanceof CompletedWorkJob completedWorkJob) {
-			// Fully complete, nothing new to cache
-			Files.move(completedWorkJob.completed(), output);
-			return;
-		}
-
-		// Work has been done, we need to cache the newly processed items
-		if (workJob instanceof WorkToDoJob workToDoJob) {
-			// Sources name -> hash
-			Map<String, String> outputNameMap = workToDoJob.outputNameMap();
+	private PreparedEntry prepareEntry(Path inputRoot, ClassEntry entry) throws IOException {
+		final Map<String, byte[]> classes = entry.readClasses(inputRoot);
+		final String fullHash = baseHash + "/" + ClassEntry.hash(classes.values());
+		final CachedData cachedData = fileStore.getEntry(fullHash);
 
-			try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(workToDoJob.output(), false);
-					Stream<Path> walk = Files.walk(outputFs.getRoot())) {
-				Iterator<Path> iterator = walk.iterator();
+		// The class bytes are only needed when the entry must be processed
+		return new PreparedEntry(entry, fullHash, cachedData, cachedData == null ? classes : Map.of());
+	}
 
-				while (iterator.hasNext()) {
-					final Path fsPath = iterator.next();
+	private static PreparedEntry getPrepared(Future<PreparedEntry> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while preparing cache job", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioe) {
+				throw ioe;
+			}
 
-					if (fsPath.startsWith("/META-INF/")) {
-						continue;
-					}
+			throw new RuntimeException("Failed to prepare cache entry", e.getCause());
+		}
+	}
 
-					if (!Files.isRegularFile(fsPath)) {
-						continue;
-					}
+	private static void writeEntry(ZipOutputStream zipOutputStream, String name, byte[] bytes) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry(name));
+		zipOutputStream.write(bytes);
+		zipOutputStream.closeEntry();
+	}
 
-					final String hash = outputNameMap.get(fsPath.toString().substring(outputFs.getRoot().toString().length()));
+	/**
+	 * Add the newly processed sources to the output jar written by {@link #prepareJob(Path, Path)}, saving them to the cache.
+	 */
+	public void completeJob(Path output, WorkJob workJob, ClassLineNumbers lineNumbers) throws IOException {
+		if (!(workJob instanceof WorkToDoJob workToDoJob)) {
+			// The cached sources were already written when preparing the job
+			return;
+		}
 
-					if (hash == null) {
-						throw new IllegalStateException("Unexpected output: " + fsPath);
-					}
+		try (RawZipWriter outputZip = RawZipWriter.append(output)) {
+			cacheProcessedEntries(workToDoJob, lineNumbers, outputZip);
+		}
 
-					// Trim the leading / and the .java extension
-					final String className = fsPath.toString().substring(1, fsPath.toString().length() - ".java".length());
-					final String sources = Files.readString(fsPath);
+		Files.delete(workToDoJob.output());
+	}
 
-					ClassLineNumbers.Entry lineMapEntry = null;
+	// Work has been done, copy the newly processed items to the output while saving them to the cache
+	private void cacheProcessedEntries(WorkToDoJob workToDoJob, @Nullable ClassLineNumbers lineNumbers, RawZipWriter outputZip) throws IOException {
+		// Sources name -> hash
+		final Map<String, String> outputNameMap = workToDoJob.outputNameMap();
 
-					if (lineNumbers != null) {
-						lineMapEntry = lineNumbers.lineMap().get(className);
-					}
+		try (var zipFile = new ZipFile(workToDoJob.output().toFile())) {
+			final Iterator<? extends ZipEntry> iterator = zipFile.entries().asIterator();
 
-					if (lineMapEntry == null) {
-						LOGGER.info("No line numbers generated for class: {}", className);
-					}
+			while (iterator.hasNext()) {
+				final ZipEntry zipEntry = iterator.next();
+				final byte[] bytes;
 
-					final var cachedData = new CachedData(className, sources, lineMapEntry);
-					fileStore.putEntry(hash, cachedData);
+				try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+					bytes = inputStream.readAllBytes();
+				}
 
-					LOGGER.debug("Saving processed entry ({}) to cache: {}", hash, fsPath);
+				if (zipEntry.isDirectory() || zipEntry.getName().startsWith("META-INF/")) {
+					outputZip.write(zipEntry.getName(), bytes);
+					continue;
 				}
-			}
-		} else {
-			throw new IllegalStateException();
-		}
 
-		if (workJob instanceof PartialWorkJob partialWorkJob) {
-			// Copy all the existing items to the output jar
-			try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(partialWorkJob.output(), false);
-					FileSystemUtil.Delegate existingFs = FileSystemUtil.getJarFileSystem(partialWorkJob.existing(), false);
-					Stream<Path> walk = Files.walk(existingFs.getRoot())) {
-				Iterator<Path> iterator = walk.iterator();
+				final String hash = outputNameMap.get(zipEntry.getName());
 
-				while (iterator.hasNext()) {
-					Path existingPath = iterator.next();
+				if (hash == null) {
+					throw new IllegalStateException("Unexpected output: " + zipEntry.getName());
+				}
 
-					if (!Files.isRegularFile(existingPath)) {
-						continue;
-					}
+				// Trim the .java extension
+				final String className = zipEntry.getName().substring(0, zipEntry.getName().length() - ".java".length());
+				final String sources = new String(bytes, StandardCharsets.UTF_8);
 
-					final Path outputPath = outputFs.getRoot().resolve(existingPath.toString());
+				ClassLineNumbers.Entry lineMapEntry = null;
 
-					LOGGER.debug("Copying existing entry to output: {}", existingPath);
-					Files.createDirectories(outputPath.getParent());
-					Files.copy(existingPath, outputPath);
+				if (lineNumbers != null) {
+					lineMapEntry = lineNumbers.lineMap().get(className);
 				}
-			}
 
-			Files.delete(partialWorkJob.existing());
-			Files.move(partialWorkJob.output(), output);
-		} else if (workJob instanceof FullWorkJob fullWorkJob) {
-			// Nothing to merge, just use the output jar
-			Files.move(fullWorkJob.output, output);
-		} else {
-			throw new IllegalStateException();
+				if (lineMapEntry == null) {
+					LOGGER.info("No line numbers generated for class: {}", className);
+				}
+
+				final var cachedData = new CachedData(className, sources, lineMapEntry);
+				fileStore.putEntry(hash, cachedData);
+				outputZip.write(zipEntry.getName(), bytes);
+
+				LOGGER.debug("Saving processed entry ({}) to cache: {}", hash, zipEntry.getName());
+			}
 		}
 	}
 
+	private record PreparedEntry(ClassEntry entry, String fullHash, @Nullable CachedData cachedData, Map<String, byte[]> classes) {
+	}
+
 	public record WorkRequest(WorkJob job, CacheStats stats, @Nullable ClassLineNumbers lineNumbers) {
 	}
 
 	public record CacheStats(int hits, int misses) {
+		public double hitRatio() {
+			final int total = hits + misses;
+			return total == 0 ? 0 : (double) hits / total;
+		}
 	}
 
 	public sealed interface WorkJob permits CompletedWorkJob, WorkToDoJob {
 		default WorkRequest asRequest(CacheStats stats, @Nullable ClassLineNumbers lineNumbers) {
 			return new WorkRequest(this, stats, lineNumbers);
 		}
+
+		/**
+		 * @return A map of sources name to hash, for the cached entries already written to the output jar
+		 */
+		Map<String, String> existingNameMap();
 	}
 
 	public sealed interface WorkToDoJob extends WorkJob permits PartialWorkJob, FullWorkJob {
@@ -250,20 +302,20 @@ public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String b
 	/**
 	 * No work to be done, all restored from cache.
 	 *
-	 * @param completed
+	 * @param existingNameMap A map of sources name to hash, for the cached entries already written to the output jar
 	 */
-	public record CompletedWorkJob(Path completed) implements WorkJob {
+	public record CompletedWorkJob(Map<String, String> existingNameMap) implements WorkJob {
 	}
 
 	/**
 	 * Some work needs to be done.
 	 *
 	 * @param incomplete A path to jar file containing all the classes to be processed
-	 * @param existing A path pointing to a jar containing existing classes that have previously been processed
 	 * @param output A path to a temporary jar where work output should be written to
 	 * @param outputNameMap A map of sources name to hash
+	 * @param existingNameMap A map of sources name to hash, for the cached entries already written to the output jar
 	 */
-	public record PartialWorkJob(Path incomplete, Path existing, Path output, Map<String, String> outputNameMap) implements WorkToDoJob {
+	public record PartialWorkJob(Path incomplete, Path output, Map<String, String> outputNameMap, Map<String, String> existingNameMap) implements WorkToDoJob {
 	}
 
 	/**
@@ -274,5 +326,9 @@ public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String b
 	 * @param outputNameMap A map of sources name to hash
 	 */
 	public record FullWorkJob(Path incomplete, Path output, Map<String, String> outputNameMap) implements WorkToDoJob {
+		@Override
+		public Map<String, String> existingNameMap() {
+			return Map.of();
+		}
 	}
 }
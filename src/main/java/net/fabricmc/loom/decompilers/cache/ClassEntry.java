@@ -27,7 +27,10 @@ package net.fabricmc.loom.decompilers.cache;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
 
 import net.fabricmc.loom.util.Checksum;
@@ -58,12 +61,39 @@ public record ClassEntry(String parentClass, List<String> innerClasses) {
 	 * @throws IOException If an error occurs while hashing the files
 	 */
 	public String hash(Path root) throws IOException {
-		StringJoiner joiner = new StringJoiner(",");
+		return hash(readClasses(root).values());
+	}
 
-		joiner.add(Checksum.sha256Hex(Files.readAllBytes(root.resolve(parentClass))));
+	/**
+	 * Read the class and its inner classes.
+	 * @param root The root of the jar
+	 * @return A map of file name to class bytes, starting with the parent class followed by the inner classes
+	 *
+	 * @throws IOException If an error occurs while reading the files
+	 */
+	public Map<String, byte[]> readClasses(Path root) throws IOException {
+		Map<String, byte[]> classes = new LinkedHashMap<>();
+		classes.put(parentClass, Files.readAllBytes(root.resolve(parentClass)));
 
 		for (String innerClass : innerClasses) {
-			joiner.add(Checksum.sha256Hex(Files.readAllBytes(root.resolve(innerClass))));
+			classes.put(innerClass, Files.readAllBytes(root.resolve(innerClass)));
+		}
+
+		return classes;
+	}
+
+	/**
+	 * Hash the bytes of a class and its inner classes using sha256.
+	 * @param classes The class bytes, as returned by {@link #readClasses(Path)}
+	 * @return The hash of the class and its inner classes
+	 *
+	 * @throws IOException If an error occurs while hashing the bytes
+	 */
+	public static String hash(Collection<byte[]> classes) throws IOException {
+		StringJoiner joiner = new StringJoiner(",");
+
+		for (byte[] bytes : classes) {
+			joiner.add(Checksum.sha256Hex(bytes));
 		}
 
 		return Checksum.sha256Hex(joiner.toString().getBytes());
@@ -0,0 +1,672 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.Checksum;
+
+/**
+ * A {@link CachedFileStore} backed by a single append-only data file and a memory-mapped hash index.
+ *
+ * <p>The index is an open addressing hash table keyed by the sha256 of the entry key, each slot holds the offset and
+ * length of the entry in the data file and the time it was last accessed. A lookup only touches the mapped index and
+ * performs a single positional read of the data file, nothing is rewritten on a cache hit.
+ *
+ * <p>The slots are also linked into a least recently used list, so that {@link #prune()} only visits the entries it evicts.
+ *
+ * <p>Entries are only ever appended to the data file, replaced or evicted entries leave dead bytes behind that are
+ * reclaimed by compacting the data file during {@link #prune()}.
+ *
+ * <p>A directory is only opened once per JVM, as the file lock that keeps other processes out cannot be taken twice.
+ * Opening the same directory again returns the same store, which is closed once every caller has closed it.
+ */
+public final class IndexedCachedFileStore<T> implements CachedFileStore<T>, Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(IndexedCachedFileStore.class);
+
+	static final String INDEX_FILE_NAME = "index.bin";
+	static final String DATA_FILE_NAME = "data.bin";
+
+	private static final int MAGIC = 0x4C494458; // LIDX
+	private static final int VERSION = 2;
+	private static final int INITIAL_CAPACITY = 1 << 15;
+	private static final double MAX_LOAD_FACTOR = 0.7D;
+
+	// Header layout
+	private static final int HEADER_SIZE = 64;
+	private static final int HEADER_MAGIC = 0;
+	private static final int HEADER_VERSION = 4;
+	private static final int HEADER_CAPACITY = 8;
+	private static final int HEADER_SIZE_FIELD = 12;
+	private static final int HEADER_TOMBSTONES = 16;
+	private static final int HEADER_STATE = 20;
+	private static final int HEADER_DATA_LENGTH = 24;
+	private static final int HEADER_LIVE_BYTES = 32;
+	private static final int HEADER_LRU_HEAD = 40; // Most recently used
+	private static final int HEADER_LRU_TAIL = 44; // Least recently used
+
+	private static final int STATE_CLEAN = 0;
+	private static final int STATE_COMPACTING = 1;
+
+	// Slot layout
+	private static final int KEY_SIZE = 32;
+	private static final int SLOT_SIZE = 64;
+	private static final int SLOT_OFFSET = KEY_SIZE;
+	private static final int SLOT_LENGTH = SLOT_OFFSET + 8;
+	private static final int SLOT_LAST_ACCESS = SLOT_LENGTH + 8;
+	private static final int SLOT_PREV = SLOT_LAST_ACCESS + 8;
+	private static final int SLOT_NEXT = SLOT_PREV + 4;
+
+	private static final int EMPTY = 0;
+	private static final int TOMBSTONE = -1;
+	private static final int NIL = -1;
+
+	// Root -> open store
+	private static final Map<Path, IndexedCachedFileStore<?>> OPEN_STORES = new HashMap<>();
+
+	private final Path root;
+	private final Path indexPath;
+	private final Path dataPath;
+	private final CachedFileStore.ChannelSerializer<T> serializer;
+	private final CachedFileStoreImpl.CacheRules cacheRules;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	// Guards the LRU list while holding the read lock
+	private final Object lruLock = new Object();
+
+	private final FileChannel indexChannel;
+	private final FileLock fileLock;
+	private FileChannel dataChannel;
+	private MappedByteBuffer index;
+	private int capacity;
+	// Guarded by OPEN_STORES
+	private int references = 1;
+
+	private IndexedCachedFileStore(Path root, CachedFileStore.ChannelSerializer<T> serializer, CachedFileStoreImpl.CacheRules cacheRules) throws IOException {
+		this.root = root;
+		this.indexPath = root.resolve(INDEX_FILE_NAME);
+		this.dataPath = root.resolve(DATA_FILE_NAME);
+		this.serializer = serializer;
+		this.cacheRules = cacheRules;
+
+		this.indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		// Prevent other processes from using the cache at the same time
+		this.fileLock = indexChannel.lock();
+		this.dataChannel = openDataChannel();
+	}
+
+	/**
+	 * Opens, or creates the cache in the given directory.
+	 *
+	 * <p>An index that cannot be read, or that was left behind by an interrupted compaction, results in an empty cache.
+	 *
+	 * <p>Each call must be matched with a call to {@link #close()}.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> IndexedCachedFileStore<T> open(Path root, CachedFileStore.ChannelSerializer<T> serializer, CachedFileStoreImpl.CacheRules cacheRules) throws IOException {
+		Objects.requireNonNull(root, "root");
+		Objects.requireNonNull(serializer, "serializer");
+		Objects.requireNonNull(cacheRules, "cacheRules");
+
+		final Path normalizedRoot = root.toAbsolutePath().normalize();
+
+		synchronized (OPEN_STORES) {
+			final IndexedCachedFileStore<?> existing = OPEN_STORES.get(normalizedRoot);
+
+			if (existing != null) {
+				if (existing.serializer != serializer || !existing.cacheRules.equals(cacheRules)) {
+					throw new IllegalStateException("Cache " + root + " is already open with a different serializer or cache rules");
+				}
+
+				existing.references++;
+				return (IndexedCachedFileStore<T>) existing;
+			}
+
+			Files.createDirectories(normalizedRoot);
+
+			var store = new IndexedCachedFileStore<>(normalizedRoot, serializer, cacheRules);
+
+			try {
+				store.load();
+			} catch (IOException | RuntimeException e) {
+				store.close();
+				throw e;
+			}
+
+			OPEN_STORES.put(normalizedRoot, store);
+			return store;
+		}
+	}
+
+	private void load() throws IOException {
+		if (indexChannel.size() >= HEADER_SIZE) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			indexChannel.read(header, 0);
+			header.flip();
+
+			final int capacity = header.getInt(HEADER_CAPACITY);
+			final boolean valid = header.getInt(HEADER_MAGIC) == MAGIC
+					&& header.getInt(HEADER_VERSION) == VERSION
+					&& header.getInt(HEADER_STATE) == STATE_CLEAN
+					&& capacity > 0 && Integer.bitCount(capacity) == 1
+					&& indexChannel.size() >= HEADER_SIZE + (long) capacity * SLOT_SIZE
+					&& dataChannel.size() >= header.getLong(HEADER_DATA_LENGTH);
+
+			if (valid) {
+				this.capacity = capacity;
+				this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize(capacity));
+
+				// Discard anything that was written after the last committed entry.
+				dataChannel.truncate(getDataLength());
+				return;
+			}
+
+			LOGGER.warn("Decompile cache index at {} is invalid, resetting the cache", indexPath);
+		}
+
+		reset(INITIAL_CAPACITY);
+	}
+
+	private void reset(int capacity) throws IOException {
+		dataChannel.truncate(0);
+		indexChannel.truncate(0);
+
+		this.capacity = capacity;
+		this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize(capacity));
+
+		index.putInt(HEADER_MAGIC, MAGIC);
+		index.putInt(HEADER_VERSION, VERSION);
+		index.putInt(HEADER_CAPACITY, capacity);
+		index.putInt(HEADER_SIZE_FIELD, 0);
+		index.putInt(HEADER_TOMBSTONES, 0);
+		index.putInt(HEADER_STATE, STATE_CLEAN);
+		index.putLong(HEADER_DATA_LENGTH, 0);
+		index.putLong(HEADER_LIVE_BYTES, 0);
+		index.putInt(HEADER_LRU_HEAD, NIL);
+		index.putInt(HEADER_LRU_TAIL, NIL);
+	}
+
+	@Override
+	public @Nullable T getEntry(String key) throws IOException {
+		final byte[] keyHash = hashKey(key);
+		final byte[] bytes;
+
+		lock.readLock().lock();
+
+		try {
+			final int slot = findSlot(keyHash);
+
+			if (slot < 0) {
+				return null;
+			}
+
+			final int position = slotPosition(slot);
+
+			// Move the entry to the front of the LRU list, so recently used entries stay in the cache
+			synchronized (lruLock) {
+				touch(slot);
+			}
+
+			bytes = readData(index.getLong(position + SLOT_OFFSET), index.getInt(position + SLOT_LENGTH));
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return serializer.read(new ByteArrayInputStream(bytes));
+	}
+
+	@Override
+	public void putEntry(String key, T entry) throws IOException {
+		final byte[] keyHash = hashKey(key);
+
+		lock.writeLock().lock();
+
+		try {
+			final long offset = getDataLength();
+			dataChannel.position(offset);
+			serializer.write(entry, dataChannel);
+			final long length = dataChannel.position() - offset;
+
+			if (length <= 0 || length > Integer.MAX_VALUE) {
+				throw new IOException("Invalid cache entry length " + length + " for " + key);
+			}
+
+			ensureCapacity();
+
+			final int existing = findSlot(keyHash);
+
+			if (existing >= 0) {
+				// Replace the existing entry, its old data becomes dead space.
+				final int position = slotPosition(existing);
+				addLiveBytes(-index.getInt(position + SLOT_LENGTH));
+				writeSlot(existing, keyHash, offset, (int) length, System.currentTimeMillis());
+				touch(existing);
+			} else {
+				final int slot = findInsertSlot(keyHash);
+
+				if (index.getInt(slotPosition(slot) + SLOT_LENGTH) == TOMBSTONE) {
+					index.putInt(HEADER_TOMBSTONES, index.getInt(HEADER_TOMBSTONES) - 1);
+				}
+
+				writeSlot(slot, keyHash, offset, (int) length, System.currentTimeMillis());
+				linkFirst(slot);
+				index.putInt(HEADER_SIZE_FIELD, size() + 1);
+			}
+
+			addLiveBytes(length);
+			// Commit the entry
+			index.putLong(HEADER_DATA_LENGTH, offset + length);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return The number of entries in the cache
+	 */
+	public int size() {
+		return index.getInt(HEADER_SIZE_FIELD);
+	}
+
+	/**
+	 * @return The total size in bytes of the entries in the cache
+	 */
+	public long liveBytes() {
+		return index.getLong(HEADER_LIVE_BYTES);
+	}
+
+	/**
+	 * Evict the least recently used entries until the cache is within the {@link CachedFileStoreImpl.CacheRules},
+	 * and compact the data file once enough of it is dead space.
+	 */
+	public CachedFileStoreImpl.PruneStats prune() throws IOException {
+		final long start = System.nanoTime();
+
+		lock.writeLock().lock();
+
+		try {
+			final long maxAge = Instant.now().minus(cacheRules.maxAge()).toEpochMilli();
+			final long dataLength = getDataLength();
+			int removed = 0;
+			long removedBytes = 0;
+
+			// Walk from the least recently used entry, stopping at the first entry that can be kept
+			for (int slot = index.getInt(HEADER_LRU_TAIL); slot != NIL; slot = index.getInt(HEADER_LRU_TAIL)) {
+				final int position = slotPosition(slot);
+				final boolean overLimit = size() > cacheRules.maxFiles() || liveBytes() > cacheRules.maxBytes();
+
+				if (!overLimit && index.getLong(position + SLOT_LAST_ACCESS) >= maxAge) {
+					break;
+				}
+
+				removedBytes += index.getInt(position + SLOT_LENGTH);
+				removeSlot(slot);
+				removed++;
+			}
+
+			if (removed > 0) {
+				LOGGER.info("Removed {} entries ({} bytes) from the decompile cache", removed, removedBytes);
+			}
+
+			compact();
+
+			return new CachedFileStoreImpl.PruneStats(removed, removedBytes, dataLength - getDataLength(), Duration.ofNanos(System.nanoTime() - start));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (OPEN_STORES) {
+			if (--references > 0) {
+				return;
+			}
+
+			OPEN_STORES.remove(root, this);
+
+			// Still holding the lock, so the directory cannot be opened again before the file lock is released
+			closeChannels();
+		}
+	}
+
+	private void closeChannels() throws IOException {
+		lock.writeLock().lock();
+
+		try {
+			if (index != null) {
+				index.force();
+				dataChannel.force(false);
+			}
+		} finally {
+			dataChannel.close();
+			fileLock.release();
+			indexChannel.close();
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Rewrites the data file containing only the live entries, once at least half of it is dead space.
+	private void compact() throws IOException {
+		final long dataLength = getDataLength();
+		final long liveBytes = index.getLong(HEADER_LIVE_BYTES);
+
+		if (dataLength == 0 || liveBytes * 2 > dataLength) {
+			return;
+		}
+
+		final List<SlotEntry> entries = liveEntries();
+		entries.sort(Comparator.comparingLong(SlotEntry::offset));
+
+		final Path tempPath = root.resolve(DATA_FILE_NAME + ".tmp");
+		final long[] newOffsets = new long[entries.size()];
+		long position = 0;
+
+		try (FileChannel tempChannel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			for (int i = 0; i < entries.size(); i++) {
+				final SlotEntry entry = entries.get(i);
+				transferFully(entry.offset(), entry.length(), tempChannel);
+				newOffsets[i] = position;
+				position += entry.length();
+			}
+
+			tempChannel.force(false);
+		}
+
+		// Mark the index as being compacted, so that a crash before the offsets are updated resets the cache.
+		index.putInt(HEADER_STATE, STATE_COMPACTING);
+		index.force();
+
+		dataChannel.close();
+		Files.move(tempPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		dataChannel = openDataChannel();
+
+		for (int i = 0; i < entries.size(); i++) {
+			index.putLong(slotPosition(entries.get(i).slot()) + SLOT_OFFSET, newOffsets[i]);
+		}
+
+		index.putLong(HEADER_DATA_LENGTH, position);
+		index.putLong(HEADER_LIVE_BYTES, position);
+		index.putInt(HEADER_STATE, STATE_CLEAN);
+		index.force();
+
+		LOGGER.info("Compacted decompile cache from {} to {} bytes", dataLength, position);
+	}
+
+	private void transferFully(long offset, long length, FileChannel target) throws IOException {
+		long transferred = 0;
+
+		while (transferred < length) {
+			final long count = dataChannel.transferTo(offset + transferred, length - transferred, target);
+
+			if (count <= 0) {
+				throw new IOException("Unexpected end of cache data file");
+			}
+
+			transferred += count;
+		}
+	}
+
+	private byte[] readData(long offset, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+
+		while (buffer.hasRemaining()) {
+			if (dataChannel.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of cache data file");
+			}
+		}
+
+		return buffer.array();
+	}
+
+	// Grows and rehashes the index once the load factor (including tombstones) would be exceeded by another insert.
+	private void ensureCapacity() throws IOException {
+		final int used = size() + index.getInt(HEADER_TOMBSTONES) + 1;
+
+		if (used <= capacity * MAX_LOAD_FACTOR) {
+			return;
+		}
+
+		// Least recently used first, so that re-linking each entry at the front keeps the order
+		final List<SlotEntry> entries = lruEntries();
+		final List<byte[]> keys = new ArrayList<>(entries.size());
+
+		for (SlotEntry entry : entries) {
+			keys.add(readKey(entry.slot()));
+		}
+
+		// Only grow when the live entries need it, otherwise rehash in place to clear out the tombstones
+		final int newCapacity = (size() + 1) * 2 > capacity * MAX_LOAD_FACTOR ? capacity * 2 : capacity;
+		final long dataLength = getDataLength();
+		final long liveBytes = index.getLong(HEADER_LIVE_BYTES);
+
+		this.capacity = newCapacity;
+		this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize(newCapacity));
+
+		// Clear all the slots before re-inserting the live entries
+		final byte[] empty = new byte[SLOT_SIZE];
+
+		for (int slot = 0; slot < newCapacity; slot++) {
+			index.put(slotPosition(slot), empty);
+		}
+
+		index.putInt(HEADER_CAPACITY, newCapacity);
+		index.putInt(HEADER_SIZE_FIELD, entries.size());
+		index.putInt(HEADER_TOMBSTONES, 0);
+		index.putLong(HEADER_DATA_LENGTH, dataLength);
+		index.putLong(HEADER_LIVE_BYTES, liveBytes);
+		index.putInt(HEADER_LRU_HEAD, NIL);
+		index.putInt(HEADER_LRU_TAIL, NIL);
+
+		for (int i = 0; i < entries.size(); i++) {
+			final SlotEntry entry = entries.get(i);
+			final int slot = findInsertSlot(keys.get(i));
+			writeSlot(slot, keys.get(i), entry.offset(), entry.length(), entry.lastAccess());
+			linkFirst(slot);
+		}
+
+		LOGGER.debug("Resized decompile cache index to {} slots", newCapacity);
+	}
+
+	private int findSlot(byte[] keyHash) {
+		final int mask = capacity - 1;
+
+		for (int i = 0, slot = bucket(keyHash); i < capacity; i++, slot = (slot + 1) & mask) {
+			final int length = index.getInt(slotPosition(slot) + SLOT_LENGTH);
+
+			if (length == EMPTY) {
+				return -1;
+			}
+
+			if (length != TOMBSTONE && Arrays.equals(readKey(slot), keyHash)) {
+				return slot;
+			}
+		}
+
+		return -1;
+	}
+
+	private int findInsertSlot(byte[] keyHash) {
+		final int mask = capacity - 1;
+
+		for (int i = 0, slot = bucket(keyHash); i < capacity; i++, slot = (slot + 1) & mask) {
+			final int length = index.getInt(slotPosition(slot) + SLOT_LENGTH);
+
+			if (length == EMPTY || length == TOMBSTONE) {
+				return slot;
+			}
+		}
+
+		throw new IllegalStateException("Decompile cache index is full");
+	}
+
+	private void removeSlot(int slot) {
+		final int position = slotPosition(slot);
+		unlink(slot);
+		addLiveBytes(-index.getInt(position + SLOT_LENGTH));
+		index.putInt(position + SLOT_LENGTH, TOMBSTONE);
+		index.putInt(HEADER_SIZE_FIELD, size() - 1);
+		index.putInt(HEADER_TOMBSTONES, index.getInt(HEADER_TOMBSTONES) + 1);
+	}
+
+	private void writeSlot(int slot, byte[] keyHash, long offset, int length, long lastAccess) {
+		final int position = slotPosition(slot);
+		index.put(position, keyHash);
+		index.putLong(position + SLOT_OFFSET, offset);
+		index.putLong(position + SLOT_LAST_ACCESS, lastAccess);
+		// Written last, a non-empty length marks the slot as used
+		index.putInt(position + SLOT_LENGTH, length);
+	}
+
+	private void touch(int slot) {
+		index.putLong(slotPosition(slot) + SLOT_LAST_ACCESS, System.currentTimeMillis());
+
+		if (index.getInt(HEADER_LRU_HEAD) != slot) {
+			unlink(slot);
+			linkFirst(slot);
+		}
+	}
+
+	private void linkFirst(int slot) {
+		final int position = slotPosition(slot);
+		final int head = index.getInt(HEADER_LRU_HEAD);
+
+		index.putInt(position + SLOT_PREV, NIL);
+		index.putInt(position + SLOT_NEXT, head);
+
+		if (head != NIL) {
+			index.putInt(slotPosition(head) + SLOT_PREV, slot);
+		} else {
+			index.putInt(HEADER_LRU_TAIL, slot);
+		}
+
+		index.putInt(HEADER_LRU_HEAD, slot);
+	}
+
+	private void unlink(int slot) {
+		final int position = slotPosition(slot);
+		final int prev = index.getInt(position + SLOT_PREV);
+		final int next = index.getInt(position + SLOT_NEXT);
+
+		if (prev != NIL) {
+			index.putInt(slotPosition(prev) + SLOT_NEXT, next);
+		} else {
+			index.putInt(HEADER_LRU_HEAD, next);
+		}
+
+		if (next != NIL) {
+			index.putInt(slotPosition(next) + SLOT_PREV, prev);
+		} else {
+			index.putInt(HEADER_LRU_TAIL, prev);
+		}
+	}
+
+	private byte[] readKey(int slot) {
+		final byte[] key = new byte[KEY_SIZE];
+		index.get(slotPosition(slot), key);
+		return key;
+	}
+
+	private List<SlotEntry> liveEntries() {
+		final List<SlotEntry> entries = new ArrayList<>(size());
+
+		for (int slot = 0; slot < capacity; slot++) {
+			final int position = slotPosition(slot);
+			final int length = index.getInt(position + SLOT_LENGTH);
+
+			if (length > 0) {
+				entries.add(new SlotEntry(slot, index.getLong(position + SLOT_OFFSET), length, index.getLong(position + SLOT_LAST_ACCESS)));
+			}
+		}
+
+		return entries;
+	}
+
+	private List<SlotEntry> lruEntries() {
+		final List<SlotEntry> entries = new ArrayList<>(size());
+
+		for (int slot = index.getInt(HEADER_LRU_TAIL); slot != NIL; slot = index.getInt(slotPosition(slot) + SLOT_PREV)) {
+			final int position = slotPosition(slot);
+			entries.add(new SlotEntry(slot, index.getLong(position + SLOT_OFFSET), index.getInt(position + SLOT_LENGTH), index.getLong(position + SLOT_LAST_ACCESS)));
+		}
+
+		return entries;
+	}
+
+	private void addLiveBytes(long bytes) {
+		index.putLong(HEADER_LIVE_BYTES, index.getLong(HEADER_LIVE_BYTES) + bytes);
+	}
+
+	private long getDataLength() {
+		return index.getLong(HEADER_DATA_LENGTH);
+	}
+
+	private int bucket(byte[] keyHash) {
+		return (int) (ByteBuffer.wrap(keyHash).getLong() & (capacity - 1));
+	}
+
+	private FileChannel openDataChannel() throws IOException {
+		return FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private static byte[] hashKey(String key) {
+		return Checksum.sha256(key);
+	}
+
+	private static int slotPosition(int slot) {
+		return HEADER_SIZE + slot * SLOT_SIZE;
+	}
+
+	private static long indexSize(int capacity) {
+		return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+	}
+
+	private record SlotEntry(int slot, long offset, int length, long lastAccess) {
+	}
+}
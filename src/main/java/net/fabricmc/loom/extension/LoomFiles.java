@@ -52,4 +52,7 @@ public interface LoomFiles {
 	File getLocalMinecraftRepo();
 	File getDecompileCache(String version);
 	File getForgeDependencyRepo();
+	File getRemappedModStore();
+	File getModMetadataIndex();
+	File getMissingSourcesCache();
 }
@@ -36,6 +36,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
 
 import javax.inject.Inject;
 
@@ -70,6 +71,7 @@ import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ZipReprocessorUtil;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
+import net.fabricmc.loom.util.zip.ZipEntryPipeline;
 
 public abstract class AbstractRemapJarTask extends Jar {
 	@InputFile
@@ -206,18 +208,25 @@ public abstract class AbstractRemapJarTask extends Jar {
 		}
 
 		protected void modifyJarManifest() throws IOException {
-			int count = ZipUtils.transform(outputFile, Map.of(Constants.Manifest.PATH, bytes -> {
-				var manifest = new Manifest(new ByteArrayInputStream(bytes));
+			int count = ZipUtils.transform(outputFile, Map.of(Constants.Manifest.PATH, this::modifyManifest));
 
-				getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
-				manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, getParameters().getTargetNamespace().get());
+			Preconditions.checkState(count > 0, "Did not transform any jar manifest");
+		}
 
-				ByteArrayOutputStream out = new ByteArrayOutputStream();
-				manifest.write(out);
-				return out.toByteArray();
-			}));
+		protected void modifyJarManifest(ZipEntryPipeline pipeline) {
+			Preconditions.checkState(pipeline.contains(Constants.Manifest.PATH), "Did not transform any jar manifest");
+			pipeline.transform(Constants.Manifest.PATH, this::modifyManifest);
+		}
 
-			Preconditions.checkState(count > 0, "Did not transform any jar manifest");
+		private byte[] modifyManifest(byte[] bytes) throws IOException {
+			var manifest = new Manifest(new ByteArrayInputStream(bytes));
+
+			getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
+			manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, getParameters().getTargetNamespace().get());
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			manifest.write(out);
+			return out.toByteArray();
 		}
 
 		protected void rewriteJar() throws IOException {
@@ -229,6 +238,22 @@ public abstract class AbstractRemapJarTask extends Jar {
 				ZipReprocessorUtil.reprocessZip(outputFile, isReproducibleFileOrder, isPreserveFileTimestamps, compression);
 			}
 		}
+
+		/**
+		 * The archive settings of the task, for use when the output is written by a {@link ZipEntryPipeline}.
+		 */
+		protected ZipEntryPipeline.OutputOptions getOutputOptions() {
+			final int compressionMethod = switch (getParameters().getEntryCompression().get()) {
+			case STORED -> ZipEntry.STORED;
+			case DEFLATED -> ZipEntry.DEFLATED;
+			};
+
+			return new ZipEntryPipeline.OutputOptions(
+					getParameters().getArchiveReproducibleFileOrder().get(),
+					getParameters().getArchivePreserveFileTimestamps().get(),
+					compressionMethod
+			);
+		}
 	}
 
 	@Deprecated
@@ -97,6 +97,7 @@ import net.fabricmc.loom.decompilers.LineNumberRemapper;
 import net.fabricmc.loom.decompilers.cache.CachedData;
 import net.fabricmc.loom.decompilers.cache.CachedFileStoreImpl;
 import net.fabricmc.loom.decompilers.cache.CachedJarProcessor;
+import net.fabricmc.loom.decompilers.cache.IndexedCachedFileStore;
 import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
@@ -118,7 +119,8 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 @DisableCachingByDefault
 public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	private static final Logger LOGGER = LoggerFactory.getLogger(GenerateSourcesTask.class);
-	private static final String CACHE_VERSION = "v1";
+	private static final String CACHE_VERSION = "v2";
+	private static final CachedFileStoreImpl.CacheRules CACHE_RULES = new CachedFileStoreImpl.CacheRules(50_000, 1024L * 1024 * 1024, Duration.ofDays(90));
 	private final DecompilerOptions decompilerOptions;
 
 	/**
@@ -216,14 +218,17 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		LOGGER.info("Using decompile cache.");
 
 		try (var timer = new Timer("Decompiled sources with cache")) {
-			final Path cacheFile = getDecompileCacheFile().getAsFile().get().toPath();
+			final Path cacheDir = getDecompileCacheFile().getAsFile().get().toPath();
 
-			// TODO ensure we have a lock on this file to prevent multiple tasks from running at the same time
-			// TODO handle being unable to read the cache file
-			Files.createDirectories(cacheFile.getParent());
+			try (var decompileCache = IndexedCachedFileStore.open(cacheDir, CachedData.CHANNEL_SERIALIZER, CACHE_RULES)) {
+				runWithCache(decompileCache);
 
-			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(cacheFile, true)) {
-				runWithCache(fs.getRoot());
+				try (var pruneTimer = new Timer("Prune cache")) {
+					final CachedFileStoreImpl.PruneStats pruneStats = decompileCache.prune();
+					getProject().getLogger().lifecycle("Decompile cache pruned: {} entries evicted ({} KiB), {} KiB reclaimed in {}ms, {} entries ({} KiB) remaining",
+							pruneStats.removedEntries(), pruneStats.removedBytes() / 1024, pruneStats.reclaimedBytes() / 1024, pruneStats.duration().toMillis(),
+							decompileCache.size(), decompileCache.liveBytes() / 1024);
+				}
 			}
 		} catch (Exception e) {
 			ExceptionUtil.printFileLocks(e, getProject());
@@ -231,39 +236,41 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 	}
 
-	private void runWithCache(Path cacheRoot) throws IOException {
+	private void runWithCache(IndexedCachedFileStore<CachedData> decompileCache) throws IOException {
 		final MinecraftJar minecraftJar = rebuildInputJar();
-		final var cacheRules = new CachedFileStoreImpl.CacheRules(50_000, Duration.ofDays(90));
-		final var decompileCache = new CachedFileStoreImpl<>(cacheRoot, CachedData.SERIALIZER, cacheRules);
 		final String cacheKey = getCacheKey();
 		final CachedJarProcessor cachedJarProcessor = new CachedJarProcessor(decompileCache, cacheKey);
 		final CachedJarProcessor.WorkRequest workRequest;
 
 		LOGGER.info("Decompile cache key: {}", cacheKey);
 
+		// The final output sources jar, the cached sources are written to it while preparing the job
+		final Path sourcesJar = getOutputJar().get().getAsFile().toPath();
+
 		try (var timer = new Timer("Prepare job")) {
-			workRequest = cachedJarProcessor.prepareJob(minecraftJar.getPath());
+			workRequest = cachedJarProcessor.prepareJob(minecraftJar.getPath(), sourcesJar);
 		}
 
 		final CachedJarProcessor.WorkJob job = workRequest.job();
 		final CachedJarProcessor.CacheStats cacheStats = workRequest.stats();
 
-		getProject().getLogger().lifecycle("Decompile cache stats: {} hits, {} misses", cacheStats.hits(), cacheStats.misses());
+		getProject().getLogger().lifecycle("Decompile cache stats: {} hits, {} misses ({}% hit ratio)", cacheStats.hits(), cacheStats.misses(), Math.round(cacheStats.hitRatio() * 100));
 
 		ClassLineNumbers outputLineNumbers = null;
 
 		if (job instanceof CachedJarProcessor.WorkToDoJob workToDoJob) {
 			Path inputJar = workToDoJob.incomplete();
-			@Nullable Path existing = (job instanceof CachedJarProcessor.PartialWorkJob partialWorkJob) ? partialWorkJob.existing() : null;
+			// The classes restored from the cache are not in the incomplete jar, provide them on the classpath instead
+			@Nullable Path classpathJar = (job instanceof CachedJarProcessor.PartialWorkJob) ? minecraftJar.getPath() : null;
 
 			if (getUnpickDefinitions().isPresent()) {
 				try (var timer = new Timer("Unpick")) {
-					inputJar = unpickJar(inputJar, existing);
+					inputJar = unpickJar(inputJar, classpathJar);
 				}
 			}
 
 			try (var timer = new Timer("Decompile")) {
-				outputLineNumbers = runDecompileJob(inputJar, workToDoJob.output(), existing);
+				outputLineNumbers = runDecompileJob(inputJar, workToDoJob.output(), classpathJar);
 				removeForgeInnerClassSources(workToDoJob.output());
 				outputLineNumbers = filterForgeLineNumbers(outputLineNumbers);
 			}
@@ -275,10 +282,6 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			// Nothing to do :)
 		}
 
-		// The final output sources jar
-		final Path sourcesJar = getOutputJar().get().getAsFile().toPath();
-		Files.deleteIfExists(sourcesJar);
-
 		try (var timer = new Timer("Complete job")) {
 			cachedJarProcessor.completeJob(sourcesJar, job, outputLineNumbers);
 		}
@@ -303,10 +306,6 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 
 		Files.move(tempJar, classesJar, StandardCopyOption.REPLACE_EXISTING);
-
-		try (var timer = new Timer("Prune cache")) {
-			decompileCache.prune();
-		}
 	}
 
 	private void runWithoutCache() throws IOException {
@@ -391,7 +390,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	}
 
 	@Nullable
-	private ClassLineNumbers runDecompileJob(Path inputJar, Path outputJar, @Nullable Path existingJar) throws IOException {
+	private ClassLineNumbers runDecompileJob(Path inputJar, Path outputJar, @Nullable Path classpathJar) throws IOException {
 		final Platform platform = Platform.CURRENT;
 		final Path lineMapFile = File.createTempFile("loom", "linemap").toPath();
 		Files.delete(lineMapFile);
@@ -399,7 +398,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		if (!platform.supportsUnixDomainSockets()) {
 			getProject().getLogger().warn("Decompile worker logging disabled as Unix Domain Sockets is not supported on your operating system.");
 
-			doWork(null, inputJar, outputJar, lineMapFile, existingJar);
+			doWork(null, inputJar, outputJar, lineMapFile, classpathJar);
 
 			// Inject Forge's own sources
 			if (getExtension().isForgeLike()) {
@@ -417,7 +416,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		try (ThreadedProgressLoggerConsumer loggerConsumer = new ThreadedProgressLoggerConsumer(getProject(), decompilerOptions.getName(), "Decompiling minecraft sources");
 				IPCServer logReceiver = new IPCServer(ipcPath, loggerConsumer)) {
-			doWork(logReceiver, inputJar, outputJar, lineMapFile, existingJar);
+			doWork(logReceiver, inputJar, outputJar, lineMapFile, classpathJar);
 		} catch (InterruptedException e) {
 			throw new RuntimeException("Failed to shutdown log receiver", e);
 		} finally {
@@ -514,9 +513,9 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		);
 	}
 
-	private Path unpickJar(Path inputJar, @Nullable Path existingJar) {
+	private Path unpickJar(Path inputJar, @Nullable Path classpathJar) {
 		final Path outputJar = getUnpickOutputJar().get().getAsFile().toPath();
-		final List<String> args = getUnpickArgs(inputJar, outputJar, existingJar);
+		final List<String> args = getUnpickArgs(inputJar, outputJar, classpathJar);
 
 		ExecResult result = getExecOperations().javaexec(spec -> {
 			spec.getMainClass().set("daomephsta.unpick.cli.Main");
@@ -530,7 +529,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		return outputJar;
 	}
 
-	private List<String> getUnpickArgs(Path inputJar, Path outputJar, @Nullable Path existingJar) {
+	private List<String> getUnpickArgs(Path inputJar, Path outputJar, @Nullable Path classpathJar) {
 		var fileArgs = new ArrayList<File>();
 
 		fileArgs.add(inputJar.toFile());
@@ -547,8 +546,8 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			fileArgs.add(file);
 		}
 
-		if (existingJar != null) {
-			fileArgs.add(existingJar.toFile());
+		if (classpathJar != null) {
+			fileArgs.add(classpathJar.toFile());
 		}
 
 		return fileArgs.stream()
@@ -583,15 +582,15 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		LOGGER.info("Wrote linemap to {}", lineMap);
 	}
 
-	private void doWork(@Nullable IPCServer ipcServer, Path inputJar, Path outputJar, Path linemapFile, @Nullable Path existingJar) {
+	private void doWork(@Nullable IPCServer ipcServer, Path inputJar, Path outputJar, Path linemapFile, @Nullable Path classpathJar) {
 		final String jvmMarkerValue = UUID.randomUUID().toString();
 		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue);
 
 		ConfigurableFileCollection classpath = getProject().files();
 		classpath.from(getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_COMPILE_LIBRARIES));
 
-		if (existingJar != null) {
-			classpath.from(existingJar);
+		if (classpathJar != null) {
+			classpath.from(classpathJar);
 		}
 
 		workQueue.submit(DecompileAction.class, params -> {
@@ -132,6 +132,14 @@ public abstract class LoomTasks implements Runnable {
 			t.dependsOn(getIDELaunchConfigureTaskName(getProject()));
 			t.setGroup(Constants.TaskGroup.IDE);
 		});
+
+		TaskProvider<RemapModSourcesTask> remapModSources = getTasks().register(RemapModSourcesTask.NAME, RemapModSourcesTask.class, t -> {
+			t.setDescription("Remaps the sources of mod dependencies, so that they can be attached in an IDE.");
+			t.setGroup(Constants.TaskGroup.IDE);
+		});
+
+		// Eclipse reads the sources when generating the classpath
+		getTasks().named("eclipse").configure(task -> task.dependsOn(remapModSources));
 	}
 
 	private static String getRunConfigTaskName(RunConfigSettings config) {
@@ -34,11 +34,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
@@ -89,6 +86,7 @@ import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 import net.fabricmc.loom.util.fmj.FabricModJsonUtils;
 import net.fabricmc.loom.util.service.BuildSharedServiceManager;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
+import net.fabricmc.loom.util.zip.ZipEntryPipeline;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
@@ -343,26 +341,29 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 					Files.copy(inputFile, outputFile, StandardCopyOption.REPLACE_EXISTING);
 				}
 
-				if (getParameters().getClientOnlyEntries().isPresent()) {
-					markClientOnlyClasses();
-				}
+				// All of the changes to the output are made in a single pass, along with the archive settings
+				try (ZipEntryPipeline pipeline = ZipEntryPipeline.open(outputFile)) {
+					if (getParameters().getClientOnlyEntries().isPresent()) {
+						markClientOnlyClasses(pipeline);
+					}
 
-				if (!injectAccessWidener()) {
-					remapAccessWidener();
-				}
+					if (!injectAccessWidener(pipeline)) {
+						remapAccessWidener(pipeline);
+					}
 
-				addRefmaps();
-				addNestedJars();
-				ModBuildExtensions.convertAwToAt(getParameters().getAtAccessWideners(), outputFile, getParameters().getMappingBuildServiceUuid());
+					addRefmaps(pipeline);
+					addNestedJars(pipeline);
+					ModBuildExtensions.convertAwToAt(getParameters().getAtAccessWideners(), pipeline, getParameters().getMappingBuildServiceUuid());
 
-				if (!getParameters().getPlatform().get().isForgeLike()) {
-					modifyJarManifest();
-				}
+					if (!getParameters().getPlatform().get().isForgeLike()) {
+						modifyJarManifest(pipeline);
+					}
 
-				rewriteJar();
+					if (getParameters().getOptimizeFmj().get()) {
+						optimizeFMJ(pipeline);
+					}
 
-				if (getParameters().getOptimizeFmj().get()) {
-					optimizeFMJ();
+					pipeline.apply(getOutputOptions());
 				}
 
 				if (tinyRemapperService != null && !getParameters().getMultiProjectOptimisation().get()) {
@@ -399,41 +400,38 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			}
 		}
 
-		private void markClientOnlyClasses() throws IOException {
-			final Stream<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> tranformers = getParameters().getClientOnlyEntries().get().stream()
-					.map(s -> new Pair<>(s,
-							(ZipUtils.AsmClassOperator) classVisitor -> SidedClassVisitor.CLIENT.insertApplyVisitor(null, classVisitor)
-					));
-
-			ZipUtils.transform(outputFile, tranformers);
+		private void markClientOnlyClasses(ZipEntryPipeline pipeline) {
+			for (String entry : getParameters().getClientOnlyEntries().get()) {
+				pipeline.transform(entry, (ZipUtils.AsmClassOperator) classVisitor -> SidedClassVisitor.CLIENT.insertApplyVisitor(null, classVisitor));
+			}
 		}
 
-		private boolean injectAccessWidener() throws IOException {
+		private boolean injectAccessWidener(ZipEntryPipeline pipeline) throws IOException {
 			if (!getParameters().getInjectAccessWidener().isPresent()) return false;
 
 			Path path = getParameters().getInjectAccessWidener().getAsFile().get().toPath();
 
 			byte[] remapped = remapAccessWidener(Files.readAllBytes(path));
 
-			ZipUtils.add(outputFile, path.getFileName().toString(), remapped);
+			pipeline.add(path.getFileName().toString(), remapped);
 
 			if (getParameters().getPlatform().get() == ModPlatform.QUILT) {
-				ZipUtils.transformJson(JsonObject.class, outputFile, Map.of("quilt.mod.json", json -> {
+				pipeline.transformJson(JsonObject.class, "quilt.mod.json", json -> {
 					json.addProperty("access_widener", path.getFileName().toString());
 					return json;
-				}));
+				});
 				return true;
 			}
 
-			ZipUtils.transformJson(JsonObject.class, outputFile, Map.of("fabric.mod.json", json -> {
+			pipeline.transformJson(JsonObject.class, "fabric.mod.json", json -> {
 				json.addProperty("accessWidener", path.getFileName().toString());
 				return json;
-			}));
+			});
 
 			return true;
 		}
 
-		private void remapAccessWidener() throws IOException {
+		private void remapAccessWidener(ZipEntryPipeline pipeline) throws IOException {
 			if (getParameters().namespacesMatch()) {
 				return;
 			}
@@ -447,7 +445,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			byte[] remapped = remapAccessWidener(accessWidenerFile.content());
 
 			// Finally, replace the output with the remaped aw
-			ZipUtils.replace(outputFile, accessWidenerFile.path(), remapped);
+			pipeline.replace(accessWidenerFile.path(), remapped);
 		}
 
 		private byte[] remapAccessWidener(byte[] input) {
@@ -468,7 +466,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			return writer.write();
 		}
 
-		private void addNestedJars() {
+		private void addNestedJars(ZipEntryPipeline pipeline) {
 			FileCollection nestedJars = getParameters().getNestedJars();
 			ListProperty<NestedFile> forgeNestedJars = getParameters().getForgeNestedJars();
 
@@ -479,33 +477,35 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 
 			Set<File> jars = new LinkedHashSet<>(nestedJars.getFiles());
 			jars.addAll(forgeNestedJars.get().stream().map(NestedFile::file).toList());
-			JarNester.nestJars(jars, forgeNestedJars.getOrElse(List.of()), outputFile.toFile(), getParameters().getPlatform().get(), LOGGER);
+			JarNester.nestJars(jars, forgeNestedJars.getOrElse(List.of()), pipeline, getParameters().getPlatform().get(), LOGGER);
 		}
 
-		private void addRefmaps() throws IOException {
+		private void addRefmaps(ZipEntryPipeline pipeline) {
 			if (getParameters().getUseMixinExtension().getOrElse(false)) {
 				return;
 			}
 
 			for (RemapParams.RefmapData refmapData : getParameters().getMixinData().get()) {
-				if (ZipUtils.contains(outputFile, refmapData.refmapName())) {
-					int transformed = ZipUtils.transformJson(JsonObject.class, outputFile, refmapData.mixinConfigs().stream().collect(Collectors.toMap(s -> s, s -> json -> {
-						if (!json.has("refmap")) {
-							json.addProperty("refmap", refmapData.refmapName());
-						}
-
-						return json;
-					})));
+				if (pipeline.contains(refmapData.refmapName())) {
+					for (String mixinConfig : refmapData.mixinConfigs()) {
+						pipeline.transformJson(JsonObject.class, mixinConfig, json -> {
+							if (!json.has("refmap")) {
+								json.addProperty("refmap", refmapData.refmapName());
+							}
+
+							return json;
+						});
+					}
 				}
 			}
 		}
 
-		private void optimizeFMJ() throws IOException {
-			if (!ZipUtils.contains(outputFile, FabricModJsonFactory.FABRIC_MOD_JSON)) {
+		private void optimizeFMJ(ZipEntryPipeline pipeline) {
+			if (!pipeline.contains(FabricModJsonFactory.FABRIC_MOD_JSON)) {
 				return;
 			}
 
-			ZipUtils.transformJson(JsonObject.class, outputFile, FabricModJsonFactory.FABRIC_MOD_JSON, FabricModJsonUtils::optimizeFmj);
+			pipeline.transformJson(JsonObject.class, FabricModJsonFactory.FABRIC_MOD_JSON, FabricModJsonUtils::optimizeFmj);
 		}
 	}
 
@@ -0,0 +1,105 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.task;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+
+import net.fabricmc.loom.configuration.mods.dependency.ModDependency;
+import net.fabricmc.loom.util.SourceRemapper;
+import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
+
+/**
+ * Remaps the sources of mod dependencies into the remapped mod cache, so that they can be attached by an IDE.
+ *
+ * <p>This used to happen while the project was configured, it is now only done when this task runs. IntelliJ runs it
+ * for a single dependency when downloading its sources.
+ */
+@DisableCachingByDefault(because = "The sources are written to the remapped mod cache.")
+public abstract class RemapModSourcesTask extends AbstractLoomTask {
+	public static final String NAME = "remapModSources";
+
+	private final List<ModDependency> dependencies = new ArrayList<>();
+
+	/**
+	 * The notations of the dependencies to remap the sources of, when empty the sources of all dependencies are remapped.
+	 */
+	@Input
+	public abstract ListProperty<String> getDependencyNotations();
+
+	public RemapModSourcesTask() {
+		// The cache is checked when running
+		getOutputs().upToDateWhen(o -> false);
+	}
+
+	/**
+	 * Remap the sources of the dependency when this task runs.
+	 */
+	public void remapSources(ModDependency dependency) {
+		dependencies.add(dependency);
+	}
+
+	@TaskAction
+	public void run() {
+		final List<String> notations = getDependencyNotations().get();
+		final List<ModDependency> pending = dependencies.stream()
+				.filter(dependency -> notations.isEmpty() || notations.stream().anyMatch(dependency::matchesNotation))
+				.filter(dependency -> dependency.isCacheInvalid(getProject(), "sources"))
+				.toList();
+
+		if (pending.isEmpty()) {
+			setDidWork(false);
+			return;
+		}
+
+		try (var serviceManager = new ScopedSharedServiceManager()) {
+			final SourceRemapper sourceRemapper = new SourceRemapper(getProject(), serviceManager, true);
+
+			for (ModDependency dependency : pending) {
+				final Path sources = Objects.requireNonNull(dependency.getInputArtifact().sources());
+				final Path output = dependency.getWorkingFile("sources");
+
+				sourceRemapper.scheduleRemapSources(sources.toFile(), output.toFile(), false, true, () -> {
+					try {
+						dependency.copyToCache(getProject(), output, "sources");
+					} catch (IOException e) {
+						throw new UncheckedIOException("Failed to apply sources to local cache for: " + dependency, e);
+					}
+				});
+			}
+
+			sourceRemapper.remapAll();
+		}
+	}
+}
@@ -46,25 +46,31 @@ public final class LorenzMappingService implements SharedService {
 	}
 
 	public static synchronized LorenzMappingService create(SharedServiceManager sharedServiceManager, MappingConfiguration mappingConfiguration, MappingsNamespace from, MappingsNamespace to) {
-		return sharedServiceManager.getOrCreateService(mappingConfiguration.getBuildServiceName("LorenzMappingService", from.toString(), to.toString()), () -> {
-			MappingOption mappingOption = MappingOption.DEFAULT;
+		return sharedServiceManager.getOrCreateService(mappingConfiguration.getBuildServiceName("LorenzMappingService", from.toString(), to.toString()),
+				() -> new LorenzMappingService(read(sharedServiceManager, mappingConfiguration, from, to)));
+	}
 
-			if (from == MappingsNamespace.SRG || to == MappingsNamespace.SRG) {
-				mappingOption = MappingOption.WITH_SRG;
-			} else if (from == MappingsNamespace.MOJANG || to == MappingsNamespace.MOJANG) {
-				mappingOption = MappingOption.WITH_MOJANG;
-			}
+	/**
+	 * Read a new mapping set, for users that cannot share the one held by the service.
+	 */
+	public static MappingSet read(SharedServiceManager sharedServiceManager, MappingConfiguration mappingConfiguration, MappingsNamespace from, MappingsNamespace to) {
+		MappingOption mappingOption = MappingOption.DEFAULT;
+
+		if (from == MappingsNamespace.SRG || to == MappingsNamespace.SRG) {
+			mappingOption = MappingOption.WITH_SRG;
+		} else if (from == MappingsNamespace.MOJANG || to == MappingsNamespace.MOJANG) {
+			mappingOption = MappingOption.WITH_MOJANG;
+		}
 
-			MemoryMappingTree m = mappingConfiguration.getMappingsService(sharedServiceManager, mappingOption).getMappingTree();
+		MemoryMappingTree m = mappingConfiguration.getMappingsService(sharedServiceManager, mappingOption).getMappingTree();
 
-			try {
-				try (var reader = new TinyMappingsReader(m, from.toString(), to.toString())) {
-					return new LorenzMappingService(reader.read());
-				}
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to read lorenz mappings", e);
+		try {
+			try (var reader = new TinyMappingsReader(m, from.toString(), to.toString())) {
+				return reader.read();
 			}
-		});
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read lorenz mappings", e);
+		}
 	}
 
 	@Override
@@ -32,17 +32,18 @@ import org.gradle.api.Project;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
+import net.fabricmc.loom.configuration.providers.mappings.MappingTreeCache;
 import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.util.service.FileStamp;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.IMappingProvider;
 
 public final class MappingsService implements SharedService {
 	private record Options(Path mappingsFile, String from, String to, boolean remapLocals) { }
 
-	public static synchronized MappingsService create(SharedServiceManager sharedServiceManager, String name, Path mappingsFile, String from, String to, boolean remapLocals) {
+	public static MappingsService create(SharedServiceManager sharedServiceManager, String name, Path mappingsFile, String from, String to, boolean remapLocals) {
 		final Options options = new Options(mappingsFile, from, to, remapLocals);
 		final String id = name + options.hashCode();
 		return sharedServiceManager.getOrCreateService(id, () -> new MappingsService(options));
@@ -56,9 +57,11 @@ public final class MappingsService implements SharedService {
 	}
 
 	private final Options options;
+	private final FileStamp mappingsStamp;
 
 	public MappingsService(Options options) {
 		this.options = options;
+		this.mappingsStamp = FileStamp.of(options.mappingsFile());
 	}
 
 	private IMappingProvider mappingProvider = null;
@@ -83,10 +86,8 @@ public final class MappingsService implements SharedService {
 
 	public synchronized MemoryMappingTree getMemoryMappingTree() {
 		if (memoryMappingTree == null) {
-			memoryMappingTree = new MemoryMappingTree();
-
 			try {
-				MappingReader.read(options.mappingsFile(), memoryMappingTree);
+				memoryMappingTree = MappingTreeCache.read(options.mappingsFile());
 			} catch (IOException e) {
 				throw new UncheckedIOException("Failed to read mappings from: " + options.mappingsFile(), e);
 			}
@@ -103,6 +104,11 @@ public final class MappingsService implements SharedService {
 		return options.to();
 	}
 
+	@Override
+	public boolean isReusable() {
+		return mappingsStamp.isUpToDate();
+	}
+
 	@Override
 	public void close() {
 		mappingProvider = null;
@@ -30,22 +30,45 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.util.zip.RawZipEntry;
+import net.fabricmc.loom.util.zip.RawZipReader;
+import net.fabricmc.loom.util.zip.RawZipWriter;
 
 public interface AsyncZipProcessor {
 	static void processEntries(Path inputZip, Path outputZip, AsyncZipProcessor processor) throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+		try {
+			processEntries(inputZip, outputZip, processor, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Process the entries using the provided executor, the executor is not shut down allowing it to be shared across calls.
+	 */
+	static void processEntries(Path inputZip, Path outputZip, AsyncZipProcessor processor, ExecutorService executor) throws IOException {
 		try (FileSystemUtil.Delegate inFs = FileSystemUtil.getJarFileSystem(inputZip, false);
 				FileSystemUtil.Delegate outFs = FileSystemUtil.getJarFileSystem(outputZip, true)) {
 			final Path inRoot = inFs.get().getPath("/");
 			final Path outRoot = outFs.get().getPath("/");
 
 			List<CompletableFuture<Void>> futures = new ArrayList<>();
-			final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
 			Files.walkFileTree(inRoot, new SimpleFileVisitor<>() {
 				@Override
@@ -79,10 +102,92 @@ public interface AsyncZipProcessor {
 					throw new RuntimeException("Failed to process zip", e.getCause());
 				}
 			}
+		}
+	}
+
+	/**
+	 * Transform the entries selected by the transformer, all other entries are copied without being inflated
+	 * or recompressed. Entries are written in the same order as the input zip.
+	 */
+	static void transformEntries(Path inputZip, Path outputZip, EntryTransformer transformer) throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
+		try {
+			transformEntries(inputZip, outputZip, transformer, executor);
+		} finally {
 			executor.shutdown();
 		}
 	}
 
+	/**
+	 * Transform the entries using the provided executor, the executor is not shut down allowing it to be shared across calls.
+	 */
+	static void transformEntries(Path inputZip, Path outputZip, EntryTransformer transformer, ExecutorService executor) throws IOException {
+		// Bound the number of transformed entries held in memory at once
+		final int window = Runtime.getRuntime().availableProcessors() * 4;
+		final Deque<PendingEntry> pending = new ArrayDeque<>();
+
+		try (RawZipReader reader = RawZipReader.open(inputZip);
+				RawZipWriter writer = RawZipWriter.create(outputZip)) {
+			try {
+				for (RawZipEntry entry : reader.entries()) {
+					if (!entry.isDirectory() && transformer.shouldTransform(entry.name())) {
+						pending.add(new PendingEntry(entry, executor.submit(() -> transformer.transform(entry.name(), reader.read(entry)))));
+					} else {
+						pending.add(new PendingEntry(entry, null));
+					}
+
+					// Raw copies can be written as soon as all entries before them have been
+					while (!pending.isEmpty() && (pending.peekFirst().transformed() == null || pending.size() > window)) {
+						writePending(reader, writer, pending.removeFirst());
+					}
+				}
+
+				while (!pending.isEmpty()) {
+					writePending(reader, writer, pending.removeFirst());
+				}
+			} finally {
+				for (PendingEntry entry : pending) {
+					if (entry.transformed() != null) {
+						entry.transformed().cancel(true);
+					}
+				}
+			}
+		}
+	}
+
+	private static void writePending(RawZipReader reader, RawZipWriter writer, PendingEntry pending) throws IOException {
+		if (pending.transformed() == null) {
+			writer.copyRaw(reader, pending.entry());
+			return;
+		}
+
+		final byte[] output;
+
+		try {
+			output = pending.transformed().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while transforming " + pending.entry().name(), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioe) {
+				throw ioe;
+			}
+
+			throw new RuntimeException("Failed to transform " + pending.entry().name(), e.getCause());
+		}
+
+		writer.write(pending.entry().name(), output, ZipEntry.DEFLATED, pending.entry().dosTime());
+	}
+
 	void processEntryAsync(Path inputEntry, Path outputEntry) throws IOException;
+
+	interface EntryTransformer {
+		boolean shouldTransform(String name);
+
+		byte[] transform(String name, byte[] input) throws IOException;
+	}
+
+	record PendingEntry(RawZipEntry entry, @Nullable Future<byte[]> transformed) {
+	}
 }
@@ -0,0 +1,373 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A lock on a file in a cache, shared between threads and between processes using the cache.
+ *
+ * <p>Any number of {@link Mode#SHARED shared} locks can be held at once, while an {@link Mode#EXCLUSIVE exclusive}
+ * lock is only held on its own. The lock is held by the operating system, so it is released when the process exits,
+ * even abruptly.
+ *
+ * <p>The owner of an exclusive lock is written to the lock file, and is only cleared by {@link #complete()}. This
+ * allows the next owner to find out whether the previous owner finished its work, see {@link #previousState()}.
+ */
+public final class CacheLock implements Closeable {
+	private static final Logger LOGGER = Logging.getLogger(CacheLock.class);
+	// A single byte far past the end of the file is locked, so that the owner can still be read on Windows.
+	private static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+	private static final String DISOWNED = "disowned";
+	private static final long POLL_INTERVAL_MS = 100;
+	// File locks are held by the whole JVM, so threads of this JVM are coordinated separately.
+	private static final Map<Path, Holder> HOLDERS = new ConcurrentHashMap<>();
+
+	public enum Mode {
+		SHARED,
+		EXCLUSIVE
+	}
+
+	public enum State {
+		// The lock is new, or the previous exclusive owner completed its work
+		CLEAN,
+		// The previous exclusive owner gave up the lock after failing
+		DISOWNED,
+		// The previous exclusive owner did not complete its work, it may have exited abruptly
+		ABANDONED
+	}
+
+	private final Holder holder;
+	private final Mode mode;
+	private final State previousState;
+	private boolean closed = false;
+
+	private CacheLock(Holder holder, Mode mode, State previousState) {
+		this.holder = holder;
+		this.mode = mode;
+		this.previousState = previousState;
+	}
+
+	public static CacheLock acquire(Path file, Mode mode) throws IOException {
+		return acquire(file, mode, getDefaultTimeout(), null);
+	}
+
+	/**
+	 * Acquire a lock, waiting while it is held in a conflicting mode.
+	 *
+	 * @param processUtil used to print the process holding the lock while waiting, or {@code null} to only print its pid
+	 * @throws GradleException when the lock could not be acquired within the timeout
+	 */
+	public static CacheLock acquire(Path file, Mode mode, Duration timeout, @Nullable ProcessUtil processUtil) throws IOException {
+		final Holder holder = HOLDERS.computeIfAbsent(file.toAbsolutePath().normalize(), Holder::new);
+
+		if (holder.threadLock.isWriteLockedByCurrentThread() || holder.threadLock.getReadHoldCount() > 0) {
+			throw new IllegalStateException("Lock " + file + " is already held by the current thread");
+		}
+
+		final long deadline = System.nanoTime() + timeout.toNanos();
+		final Lock threadLock = mode == Mode.SHARED ? holder.threadLock.readLock() : holder.threadLock.writeLock();
+
+		try {
+			if (!threadLock.tryLock(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				throw new GradleException("Have been waiting on lock '%s' for %s ms. Giving up as timeout is %s ms."
+						.formatted(file, timeout.toMillis(), timeout.toMillis()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting on lock " + file);
+		}
+
+		try {
+			return new CacheLock(holder, mode, holder.lock(mode, deadline, timeout, processUtil));
+		} catch (Throwable t) {
+			threadLock.unlock();
+			throw t;
+		}
+	}
+
+	/**
+	 * Produce a cached artifact when it is not valid, only one producer of the artifact runs at once.
+	 *
+	 * <p>Checking a valid artifact only waits while it is being produced. The artifact is produced again when a
+	 * previous producer did not complete, even if it looks valid.
+	 *
+	 * @param artifact the artifact, the lock file is created next to it
+	 * @param isValid whether the artifact exists and is up to date, this is checked again once the exclusive lock is held
+	 * @return true when the artifact was produced by this call
+	 */
+	public static boolean produceIfInvalid(Path artifact, BooleanSupplier isValid, Producer producer) throws IOException {
+		final Path lockFile = getLockFile(artifact);
+
+		try (CacheLock lock = acquire(lockFile, Mode.SHARED)) {
+			if (lock.previousState() == State.CLEAN && isValid.getAsBoolean()) {
+				return false;
+			}
+		}
+
+		try (CacheLock lock = acquire(lockFile, Mode.EXCLUSIVE)) {
+			if (lock.previousState() == State.CLEAN && isValid.getAsBoolean()) {
+				// Produced by another owner while waiting
+				lock.complete();
+				return false;
+			}
+
+			producer.produce();
+			lock.complete();
+			return true;
+		}
+	}
+
+	public static Path getLockFile(Path artifact) {
+		return artifact.resolveSibling("." + artifact.getFileName() + ".lock");
+	}
+
+	public static Duration getDefaultTimeout() {
+		if (System.getenv("CI") != null) {
+			// Set a small timeout on CI, as it's unlikely going to unlock.
+			return Duration.ofMinutes(1);
+		}
+
+		return Duration.ofHours(1);
+	}
+
+	/**
+	 * @return the state the previous exclusive owner left the lock in
+	 */
+	public State previousState() {
+		return previousState;
+	}
+
+	/**
+	 * Mark the work done while holding the exclusive lock as complete, the lock is still held until it is closed.
+	 */
+	public void complete() throws IOException {
+		holder.writeOwner(this, "");
+	}
+
+	/**
+	 * Mark the work done while holding the exclusive lock as failed, the next owner will see {@link State#DISOWNED}.
+	 */
+	public void disown() throws IOException {
+		holder.writeOwner(this, DISOWNED);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+
+		try {
+			holder.unlock(mode);
+		} finally {
+			(mode == Mode.SHARED ? holder.threadLock.readLock() : holder.threadLock.writeLock()).unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CacheLock{file=%s, mode=%s}".formatted(holder.file, mode);
+	}
+
+	@FunctionalInterface
+	public interface Producer {
+		void produce() throws IOException;
+	}
+
+	private static final class Holder {
+		private final Path file;
+		private final ReentrantReadWriteLock threadLock = new ReentrantReadWriteLock();
+
+		// The fields below are guarded by this holder
+		private FileChannel channel;
+		private FileLock fileLock;
+		private State state;
+		private int sharedCount = 0;
+
+		private Holder(Path file) {
+			this.file = file;
+		}
+
+		private synchronized State lock(Mode mode, long deadline, Duration timeout, @Nullable ProcessUtil processUtil) throws IOException {
+			if (mode == Mode.SHARED && sharedCount > 0) {
+				// Another thread of this JVM already holds the shared file lock
+				sharedCount++;
+				return state;
+			}
+
+			Files.createDirectories(file.toAbsolutePath().getParent());
+			final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			try {
+				final FileLock fileLock = lockFile(channel, mode == Mode.SHARED, deadline, timeout, processUtil);
+				final String owner = readOwner(channel);
+
+				if (owner.isEmpty()) {
+					state = State.CLEAN;
+				} else if (owner.equals(DISOWNED)) {
+					state = State.DISOWNED;
+				} else {
+					state = State.ABANDONED;
+				}
+
+				this.channel = channel;
+				this.fileLock = fileLock;
+
+				if (mode == Mode.SHARED) {
+					sharedCount = 1;
+				} else {
+					write(channel, String.valueOf(ProcessHandle.current().pid()));
+				}
+
+				return state;
+			} catch (Throwable t) {
+				channel.close();
+				throw t;
+			}
+		}
+
+		@SuppressWarnings("BusyWait")
+		private FileLock lockFile(FileChannel channel, boolean shared, long deadline, Duration timeout, @Nullable ProcessUtil processUtil) throws IOException {
+			long waitingSince = -1;
+			long lastMessage = -1;
+
+			while (true) {
+				final FileLock fileLock = channel.tryLock(LOCK_POSITION, 1, shared);
+
+				if (fileLock != null) {
+					return fileLock;
+				}
+
+				final long now = System.nanoTime();
+
+				if (waitingSince < 0) {
+					waitingSince = now;
+					lastMessage = now;
+					logOwner(channel, processUtil);
+				} else if (now - lastMessage >= TimeUnit.MINUTES.toNanos(1)) {
+					lastMessage = now;
+					LOGGER.lifecycle(
+							"""
+									Have been waiting on "{}" for {} minute(s).
+									If this persists for an unreasonable length of time, kill the process holding it, run './gradlew --stop' and then try again.""",
+							file, TimeUnit.NANOSECONDS.toMinutes(now - waitingSince)
+					);
+				}
+
+				if (now - deadline >= 0) {
+					throw new GradleException("Have been waiting on lock '%s' for %s ms. Giving up as timeout is %s ms."
+							.formatted(file, TimeUnit.NANOSECONDS.toMillis(now - waitingSince), timeout.toMillis()));
+				}
+
+				try {
+					Thread.sleep(POLL_INTERVAL_MS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting on lock " + file);
+				}
+			}
+		}
+
+		private void logOwner(FileChannel channel, @Nullable ProcessUtil processUtil) throws IOException {
+			final String owner = readOwner(channel);
+			Optional<ProcessHandle> handle = Optional.empty();
+
+			try {
+				handle = ProcessHandle.of(Long.parseLong(owner));
+			} catch (NumberFormatException ignored) {
+				// Held in shared mode, or the owner has not been written yet
+			}
+
+			if (handle.isPresent()) {
+				LOGGER.lifecycle("\"{}\" is currently held by pid '{}'.", file, owner);
+
+				if (processUtil != null) {
+					LOGGER.lifecycle(processUtil.printWithParents(handle.get()));
+				}
+			}
+
+			LOGGER.lifecycle("Waiting for lock on \"{}\" to be released...", file);
+		}
+
+		private synchronized void writeOwner(CacheLock lock, String owner) throws IOException {
+			if (lock.mode != Mode.EXCLUSIVE || lock.closed) {
+				throw new IllegalStateException("Exclusive lock " + file + " is not held");
+			}
+
+			write(channel, owner);
+		}
+
+		private synchronized void unlock(Mode mode) throws IOException {
+			if (mode == Mode.SHARED && --sharedCount > 0) {
+				return;
+			}
+
+			try {
+				fileLock.release();
+			} finally {
+				channel.close();
+				channel = null;
+				fileLock = null;
+				state = null;
+			}
+		}
+
+		private static String readOwner(FileChannel channel) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 64));
+			channel.read(buffer, 0);
+			return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).trim();
+		}
+
+		private static void write(FileChannel channel, String contents) throws IOException {
+			channel.truncate(0);
+			channel.write(ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8)), 0);
+		}
+	}
+}
@@ -151,7 +151,14 @@ public class Constants {
 		public static final String DISABLE_REMAPPED_VARIANTS = "fabric.loom.disableRemappedVariants";
 		public static final String DISABLE_PROJECT_DEPENDENT_MODS = "fabric.loom.disableProjectDependentMods";
 		public static final String LIBRARY_PROCESSORS = "fabric.loom.libraryProcessors";
+		public static final String DISABLE_REMAPPED_MOD_STORE = "fabric.loom.disableRemappedModStore";
 		public static final String ALLOW_MISMATCHED_PLATFORM_VERSION = "loom.allowMismatchedPlatformVersion";
+		public static final String FORK_ACCESS_TRANSFORMERS = "loom.forkAccessTransformers";
+		public static final String FORK_BINARY_PATCHER = "loom.forkBinaryPatcher";
+		public static final String SHARED_SERVICE_RETENTION_MB = "fabric.loom.sharedServiceRetentionMb";
+		public static final String MINECRAFT_SETUP_THREADS = "fabric.loom.minecraftSetupThreads";
+		public static final String SOURCES_REMAP_THREADS = "fabric.loom.sourcesRemapThreads";
+		public static final String MISSING_SOURCES_TTL_HOURS = "fabric.loom.missingSourcesTtlHours";
 	}
 
 	public static final class Manifest {
@@ -0,0 +1,181 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * A map of string keys to values stored in a json file, shared by all callers in the same daemon.
+ *
+ * <p>Changes are kept in memory until {@link #save(Predicate)}, which merges them into the file as it is on disk
+ * while holding an exclusive {@link CacheLock}, so that entries written by other daemons in the meantime are kept.
+ *
+ * @param <V> the type of the values, serialised with {@link LoomGradlePlugin#GSON}
+ */
+public final class JsonFileCache<V> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(JsonFileCache.class);
+	private static final Map<Path, JsonFileCache<?>> INSTANCES = new ConcurrentHashMap<>();
+
+	private final Path file;
+	private final int version;
+	private final Class<V> valueType;
+	private final Type entriesType;
+	private Map<String, V> entries;
+	// Changes not yet written to the file, a null value removes the entry
+	private final Map<String, @Nullable V> changes = new HashMap<>();
+
+	private JsonFileCache(Path file, int version, Class<V> valueType) {
+		this.file = file;
+		this.version = version;
+		this.valueType = valueType;
+		this.entriesType = TypeToken.getParameterized(Map.class, String.class, valueType).getType();
+		this.entries = read();
+	}
+
+	/**
+	 * @param version the version of the file format, a file with another version is ignored and replaced on save
+	 * @return the cache stored in the file
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V> JsonFileCache<V> get(Path file, int version, Class<V> valueType) {
+		final JsonFileCache<?> cache = INSTANCES.computeIfAbsent(file.toAbsolutePath().normalize(), path -> new JsonFileCache<>(path, version, valueType));
+
+		if (cache.version != version || cache.valueType != valueType) {
+			throw new IllegalStateException("Cache " + file + " is already open with a different version or value type");
+		}
+
+		return (JsonFileCache<V>) cache;
+	}
+
+	public synchronized @Nullable V get(String key) {
+		if (changes.containsKey(key)) {
+			return changes.get(key);
+		}
+
+		return entries.get(key);
+	}
+
+	public synchronized void put(String key, V value) {
+		changes.put(key, value);
+	}
+
+	public synchronized void remove(String key) {
+		if (get(key) != null) {
+			changes.put(key, null);
+		}
+	}
+
+	/**
+	 * Write the changes made since the last save, if any.
+	 *
+	 * @param retain whether an entry is kept, applied to all entries in the merged file
+	 */
+	public synchronized void save(Predicate<String> retain) {
+		if (changes.isEmpty()) {
+			return;
+		}
+
+		try {
+			Files.createDirectories(file.getParent());
+
+			try (CacheLock lock = CacheLock.acquire(CacheLock.getLockFile(file), CacheLock.Mode.EXCLUSIVE)) {
+				final Map<String, V> merged = read();
+
+				changes.forEach((key, value) -> {
+					if (value != null) {
+						merged.put(key, value);
+					} else {
+						merged.remove(key);
+					}
+				});
+
+				merged.keySet().removeIf(retain.negate());
+				write(merged);
+				lock.complete();
+
+				entries = merged;
+				changes.clear();
+			}
+		} catch (IOException e) {
+			// Not fatal, the changes are kept and written by a later save
+			LOGGER.info("Failed to write {}", file, e);
+		}
+	}
+
+	private Map<String, V> read() {
+		if (Files.exists(file)) {
+			try {
+				final Data data = LoomGradlePlugin.GSON.fromJson(Files.readString(file), Data.class);
+
+				if (data != null && data.version() == version && data.entries() != null) {
+					final Map<String, V> read = LoomGradlePlugin.GSON.fromJson(data.entries(), entriesType);
+					return new HashMap<>(read);
+				}
+			} catch (IOException | JsonParseException e) {
+				LOGGER.warn("Failed to read {}, it will be recreated", file, e);
+			}
+		}
+
+		return new HashMap<>();
+	}
+
+	private void write(Map<String, V> entries) throws IOException {
+		final Data data = new Data(version, LoomGradlePlugin.GSON.toJsonTree(entries, entriesType));
+		final Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+		try {
+			Files.writeString(tempFile, LoomGradlePlugin.GSON.toJson(data));
+
+			try {
+				Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private record Data(int version, @Nullable JsonElement entries) {
+	}
+}
@@ -31,7 +31,13 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -53,6 +59,7 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.build.IntermediaryNamespaces;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
 import net.fabricmc.loom.task.service.LorenzMappingService;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
 public class SourceRemapper {
@@ -60,9 +67,10 @@ public class SourceRemapper {
 	private final SharedServiceManager serviceManager;
 	private String from;
 	private String to;
-	private final List<Consumer<ProgressLogger>> remapTasks = new ArrayList<>();
+	private final List<RemapTask> remapTasks = new ArrayList<>();
 
 	private Mercury mercury;
+	private int javaCompileRelease;
 
 	public SourceRemapper(Project project, SharedServiceManager serviceManager, boolean toNamed) {
 		this(project, serviceManager, toNamed ? IntermediaryNamespaces.runtimeIntermediary(project) : "named", !toNamed ? IntermediaryNamespaces.runtimeIntermediary(project) : "named");
@@ -76,10 +84,10 @@ public class SourceRemapper {
 	}
 
 	public void scheduleRemapSources(File source, File destination, boolean reproducibleFileOrder, boolean preserveFileTimestamps, Runnable completionCallback) {
-		remapTasks.add((logger) -> {
+		remapTasks.add((mercury, progress) -> {
 			try {
-				logger.progress("remapping sources - " + source.getName());
-				remapSourcesInner(source, destination);
+				progress.accept("remapping sources - " + source.getName());
+				remapSourcesInner(mercury, source, destination);
 				ZipReprocessorUtil.reprocessZip(destination.toPath(), reproducibleFileOrder, preserveFileTimestamps);
 
 				// Set the remapped sources creation date to match the sources if we're likely succeeded in making it
@@ -104,17 +112,84 @@ public class SourceRemapper {
 		ProgressLogger progressLogger = progressLoggerFactory.newOperation(SourceRemapper.class.getName());
 		progressLogger.start("Remapping dependency sources", "sources");
 
-		remapTasks.forEach(consumer -> consumer.accept(progressLogger));
+		final Consumer<String> progress = message -> {
+			synchronized (progressLogger) {
+				progressLogger.progress(message);
+			}
+		};
+
+		// Uses the project, so the first instance is created on this thread
+		final Mercury mercury = getMercuryInstance();
+		final int threads = Math.min(remapTasks.size(), GradleUtils.getIntProperty(project, Constants.Properties.SOURCES_REMAP_THREADS, getDefaultThreads()));
 
+		if (threads <= 1) {
+			remapTasks.forEach(task -> task.remap(mercury, progress));
+		} else {
+			remapConcurrently(mercury, threads, progress);
+		}
+
+		remapTasks.clear();
 		progressLogger.completed();
 
 		// TODO: FIXME - WORKAROUND https://github.com/FabricMC/fabric-loom/issues/45
 		System.gc();
 	}
 
-	private void remapSourcesInner(File source, File destination) throws Exception {
+	// Mercury instances are not thread safe, so each thread takes an instance from the pool.
+	// Every instance parses the classpath again when it remaps a jar, and has its own copy of the mappings as Lorenz
+	// completes them lazily, so each extra thread costs about as much memory as the first instance.
+	private void remapConcurrently(Mercury first, int threads, Consumer<String> progress) {
+		final Queue<Mercury> pool = new ConcurrentLinkedQueue<>();
+		pool.add(first);
+
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+		final MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
+		final List<Path> classPath = List.copyOf(first.getClassPath());
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+
+			for (RemapTask task : remapTasks) {
+				futures.add(executor.submit(() -> {
+					Mercury mercury = pool.poll();
+
+					if (mercury == null) {
+						mercury = createMercury(classPath, LorenzMappingService.read(serviceManager, mappingConfiguration, getFrom(), getTo()));
+					}
+
+					try {
+						task.remap(mercury, progress);
+					} finally {
+						pool.add(mercury);
+					}
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while remapping sources", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static int getDefaultThreads() {
+		// Each thread holds its own mappings and parsed classpath
+		return Math.min(2, Runtime.getRuntime().availableProcessors());
+	}
+
+	private void remapSourcesInner(Mercury mercury, File source, File destination) throws Exception {
 		project.getLogger().info(":remapping source jar");
-		Mercury mercury = getMercuryInstance();
 
 		if (source.equals(destination)) {
 			if (source.isDirectory()) {
@@ -176,12 +251,13 @@ public class SourceRemapper {
 
 		MappingSet mappings = LorenzMappingService.create(serviceManager,
 															mappingConfiguration,
-															Objects.requireNonNull(MappingsNamespace.of(from)),
-															Objects.requireNonNull(MappingsNamespace.of(to))
+															getFrom(),
+															getTo()
 		).mappings();
 
-		Mercury mercury = createMercuryWithClassPath(project, MappingsNamespace.of(to) == MappingsNamespace.NAMED);
-		mercury.setSourceCompatibilityFromRelease(getJavaCompileRelease(project));
+		Mercury mercury = createMercuryWithClassPath(project, getTo() == MappingsNamespace.NAMED);
+		javaCompileRelease = getJavaCompileRelease(project);
+		mercury.setSourceCompatibilityFromRelease(javaCompileRelease);
 
 		for (File file : extension.getUnmappedModCollection()) {
 			Path path = file.toPath();
@@ -223,6 +299,23 @@ public class SourceRemapper {
 		return this.mercury;
 	}
 
+	private Mercury createMercury(List<Path> classPath, MappingSet mappings) {
+		Mercury mercury = new Mercury();
+		mercury.setGracefulClasspathChecks(true);
+		mercury.setSourceCompatibilityFromRelease(javaCompileRelease);
+		mercury.getClassPath().addAll(classPath);
+		mercury.getProcessors().add(MercuryRemapper.create(mappings));
+		return mercury;
+	}
+
+	private MappingsNamespace getFrom() {
+		return Objects.requireNonNull(MappingsNamespace.of(from));
+	}
+
+	private MappingsNamespace getTo() {
+		return Objects.requireNonNull(MappingsNamespace.of(to));
+	}
+
 	public static int getJavaCompileRelease(Project project) {
 		AtomicInteger release = new AtomicInteger(-1);
 
@@ -294,6 +387,11 @@ public class SourceRemapper {
 		return m;
 	}
 
+	@FunctionalInterface
+	private interface RemapTask {
+		void remap(Mercury mercury, Consumer<String> progress);
+	}
+
 	private static boolean isJavaFile(Path path) {
 		String name = path.getFileName().toString();
 		// ".java" is not a valid java file
@@ -0,0 +1,277 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a graph of tasks, each task starts once all of its dependencies have completed.
+ *
+ * <p>Tasks added with {@link #run} or {@link #supply} run on the thread calling {@link #execute(int)}, these may use
+ * the Gradle project. Tasks added with {@link #runAsync} or {@link #supplyAsync} run on a bounded pool and must only use
+ * their inputs, they run alongside other tasks.
+ *
+ * <p>When a task fails no new tasks are started, the tasks that are already running are waited for before the failure
+ * is thrown.
+ */
+public final class TaskGraph {
+	private static final Logger LOGGER = LoggerFactory.getLogger(TaskGraph.class);
+
+	private final String name;
+	private final List<Node<?>> nodes = new ArrayList<>();
+
+	public TaskGraph(String name) {
+		this.name = name;
+	}
+
+	public Node<Void> run(String name, ThreadingUtils.UnsafeRunnable action, Node<?>... dependencies) {
+		return add(name, false, toCallable(action), dependencies);
+	}
+
+	public <T> Node<T> supply(String name, ThreadingUtils.UnsafeCallable<T> action, Node<?>... dependencies) {
+		return add(name, false, action, dependencies);
+	}
+
+	public Node<Void> runAsync(String name, ThreadingUtils.UnsafeRunnable action, Node<?>... dependencies) {
+		return add(name, true, toCallable(action), dependencies);
+	}
+
+	public <T> Node<T> supplyAsync(String name, ThreadingUtils.UnsafeCallable<T> action, Node<?>... dependencies) {
+		return add(name, true, action, dependencies);
+	}
+
+	private <T> Node<T> add(String name, boolean async, ThreadingUtils.UnsafeCallable<T> action, Node<?>... dependencies) {
+		for (Node<?> dependency : dependencies) {
+			if (!nodes.contains(dependency)) {
+				throw new IllegalArgumentException("Dependency %s of %s is not part of %s".formatted(dependency.name, name, this.name));
+			}
+		}
+
+		final var node = new Node<>(name, async, action, List.of(dependencies));
+		nodes.add(node);
+		return node;
+	}
+
+	private static ThreadingUtils.UnsafeCallable<Void> toCallable(ThreadingUtils.UnsafeRunnable runnable) {
+		return () -> {
+			runnable.run();
+			return null;
+		};
+	}
+
+	/**
+	 * Run all the tasks, blocking until they have completed.
+	 *
+	 * @param parallelism the maximum number of async tasks that run at once, with 1 or less every task runs on the calling thread in the order it was added
+	 */
+	public void execute(int parallelism) throws Exception {
+		final long start = System.nanoTime();
+		final int asyncNodes = (int) nodes.stream().filter(node -> node.async).count();
+		final int threads = Math.min(parallelism, asyncNodes);
+
+		try {
+			if (threads <= 1) {
+				for (Node<?> node : nodes) {
+					node.execute();
+					throwIfFailed(node);
+				}
+			} else {
+				executeConcurrently(threads);
+			}
+		} finally {
+			logTimings(start, Math.max(1, threads));
+		}
+	}
+
+	private void executeConcurrently(int threads) throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final BlockingQueue<Node<?>> completed = new LinkedBlockingQueue<>();
+		final Deque<Node<?>> readyOnCaller = new ArrayDeque<>();
+		final List<Node<?>> waiting = new ArrayList<>(nodes);
+		int running = 0;
+		Node<?> failed = null;
+
+		try {
+			while (true) {
+				if (failed == null) {
+					// Start the async tasks first, so that they run while the caller is busy
+					for (Node<?> node : takeReady(waiting)) {
+						if (node.async) {
+							running++;
+							executor.execute(() -> {
+								node.execute();
+								completed.add(node);
+							});
+						} else {
+							readyOnCaller.add(node);
+						}
+					}
+				}
+
+				final Node<?> done;
+
+				if (failed == null && !readyOnCaller.isEmpty()) {
+					done = readyOnCaller.removeFirst();
+					done.execute();
+				} else if (running > 0) {
+					done = completed.take();
+					running--;
+				} else {
+					break;
+				}
+
+				if (done.failure != null && failed == null) {
+					failed = done;
+				}
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw e;
+		} finally {
+			executor.shutdown();
+		}
+
+		if (failed != null) {
+			throwIfFailed(failed);
+		}
+
+		if (!waiting.isEmpty()) {
+			throw new IllegalStateException("Tasks of %s could not be started: %s".formatted(name, waiting.stream().map(node -> node.name).toList()));
+		}
+	}
+
+	private static List<Node<?>> takeReady(List<Node<?>> waiting) {
+		final List<Node<?>> ready = new ArrayList<>();
+
+		for (Node<?> node : waiting) {
+			if (node.dependencies.stream().allMatch(Node::isComplete)) {
+				ready.add(node);
+			}
+		}
+
+		waiting.removeAll(ready);
+		return ready;
+	}
+
+	private static void throwIfFailed(Node<?> node) throws Exception {
+		if (node.failure == null) {
+			return;
+		}
+
+		if (node.failure instanceof Exception e) {
+			throw e;
+		} else if (node.failure instanceof Error e) {
+			throw e;
+		}
+
+		throw new RuntimeException("Failed to run " + node.name, node.failure);
+	}
+
+	private void logTimings(long start, int threads) {
+		if (!LOGGER.isInfoEnabled()) {
+			return;
+		}
+
+		final var sb = new StringBuilder();
+		sb.append("%s took %d ms with %d thread(s):".formatted(name, toMillis(System.nanoTime() - start), threads));
+
+		for (Node<?> node : nodes) {
+			sb.append('\n');
+
+			if (node.startNanos < 0) {
+				sb.append("  %-28s not run".formatted(node.name));
+			} else {
+				sb.append("  %-28s started at %6d ms, took %6d ms on %s".formatted(node.name, toMillis(node.startNanos - start), toMillis(node.endNanos - node.startNanos), node.threadName));
+			}
+		}
+
+		LOGGER.info(sb.toString());
+	}
+
+	private static long toMillis(long nanos) {
+		return nanos / 1_000_000;
+	}
+
+	public static final class Node<T> {
+		private final String name;
+		private final boolean async;
+		private final ThreadingUtils.UnsafeCallable<T> action;
+		private final List<Node<?>> dependencies;
+
+		private volatile boolean complete = false;
+		private volatile long startNanos = -1;
+		private volatile long endNanos = -1;
+		private volatile String threadName;
+		private volatile T result;
+		private volatile Throwable failure;
+
+		private Node(String name, boolean async, ThreadingUtils.UnsafeCallable<T> action, List<Node<?>> dependencies) {
+			this.name = name;
+			this.async = async;
+			this.action = action;
+			this.dependencies = dependencies;
+		}
+
+		/**
+		 * @return the result of the task, only call this from a task that depends on this one
+		 */
+		public T get() {
+			if (!complete || failure != null) {
+				throw new IllegalStateException("Task " + name + " has not completed");
+			}
+
+			return result;
+		}
+
+		private boolean isComplete() {
+			return complete && failure == null;
+		}
+
+		private void execute() {
+			threadName = Thread.currentThread().getName();
+			startNanos = System.nanoTime();
+
+			try {
+				result = action.call();
+			} catch (Throwable t) {
+				failure = t;
+			} finally {
+				endNanos = System.nanoTime();
+				complete = true;
+			}
+		}
+	}
+}
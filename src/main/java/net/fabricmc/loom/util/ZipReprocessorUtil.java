@@ -63,7 +63,10 @@ public class ZipReprocessorUtil {
 				|| parts[1].endsWith(".EC");
 	}
 
-	private static int specialOrdering(String name1, String name2) {
+	/**
+	 * Orders zip entry names reproducibly, with the manifest and signature files first as required by the jar spec.
+	 */
+	public static int specialOrdering(String name1, String name2) {
 		if (name1.equals(name2)) {
 			return 0;
 		} else if (name1.equals(Constants.Manifest.PATH)) {
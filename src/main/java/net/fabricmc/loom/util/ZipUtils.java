@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
@@ -40,6 +41,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -49,6 +52,8 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 
 import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.zip.RawZipEntry;
+import net.fabricmc.loom.util.zip.RawZipReader;
 
 public class ZipUtils {
 	public static boolean isZip(Path zip) throws IOException {
@@ -245,20 +250,63 @@ public class ZipUtils {
 		return transform(zip, newTransforms);
 	}
 
+	/**
+	 * Transform entries of the zip, the operators are run concurrently. The zip is read once and streamed to a new file
+	 * that replaces the original, entries without an operator are copied without being recompressed.
+	 *
+	 * @return the number of entries that were transformed
+	 */
 	public static int transform(Path zip, Map<String, UnsafeUnaryOperator<byte[]>> transforms) throws IOException {
-		int replacedCount = 0;
+		final Map<String, UnsafeUnaryOperator<byte[]>> entryTransforms = new HashMap<>();
 
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(zip, false)) {
-			for (Map.Entry<String, UnsafeUnaryOperator<byte[]>> entry : transforms.entrySet()) {
-				Path fsPath = fs.get().getPath(entry.getKey());
+		for (Map.Entry<String, UnsafeUnaryOperator<byte[]>> entry : transforms.entrySet()) {
+			if (entry.getValue() != null) {
+				// Match the zip file system, which allows paths to start with a slash
+				final String name = entry.getKey().startsWith("/") ? entry.getKey().substring(1) : entry.getKey();
+				entryTransforms.put(name, entry.getValue());
+			}
+		}
 
-				if (Files.exists(fsPath) && entry.getValue() != null) {
-					Files.write(fsPath, entry.getValue().apply(Files.readAllBytes(fsPath)), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		int replacedCount = 0;
+
+		try (RawZipReader reader = RawZipReader.open(zip)) {
+			for (RawZipEntry entry : reader.entries()) {
+				if (!entry.isDirectory() && entryTransforms.containsKey(entry.name())) {
 					replacedCount++;
 				}
 			}
 		}
 
+		if (replacedCount == 0) {
+			return 0;
+		}
+
+		final Path tempFile = Files.createTempFile(zip.toAbsolutePath().getParent(), zip.getFileName().toString(), ".tmp");
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(replacedCount, Runtime.getRuntime().availableProcessors()));
+
+		try {
+			AsyncZipProcessor.transformEntries(zip, tempFile, new AsyncZipProcessor.EntryTransformer() {
+				@Override
+				public boolean shouldTransform(String name) {
+					return entryTransforms.containsKey(name);
+				}
+
+				@Override
+				public byte[] transform(String name, byte[] input) throws IOException {
+					return entryTransforms.get(name).apply(input);
+				}
+			}, executor);
+
+			try {
+				Files.move(tempFile, zip, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, zip, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			executor.shutdownNow();
+			Files.deleteIfExists(tempFile);
+		}
+
 		return replacedCount;
 	}
 
@@ -0,0 +1,149 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.fmj;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import com.google.gson.JsonObject;
+import dev.architectury.loom.metadata.ModMetadataFiles;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.JsonFileCache;
+import net.fabricmc.loom.util.zip.RawZipEntry;
+import net.fabricmc.loom.util.zip.RawZipReader;
+
+/**
+ * A persistent index of the mod metadata file found in each jar, shared between all projects in the Gradle user home.
+ *
+ * <p>Entries are keyed by the absolute path of the jar, and are only used while its size and last modified time are
+ * unchanged. The bytes of the metadata file are stored as is, so that the {@link FabricModJson} created from it is the
+ * same as one read from the jar, including the access wideners, injected interfaces and environment it declares.
+ */
+public final class ModMetadataIndex {
+	// Version 1 stored the metadata file as a string
+	private static final int VERSION = 2;
+
+	private final JsonFileCache<Entry> entries;
+
+	private ModMetadataIndex(JsonFileCache<Entry> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * @return the index stored in the file, shared by all callers in the same daemon
+	 */
+	public static ModMetadataIndex get(Path file) {
+		return new ModMetadataIndex(JsonFileCache.get(file, VERSION, Entry.class));
+	}
+
+	/**
+	 * Get the mod in a jar, the jar is only read when it is not in the index or has changed.
+	 *
+	 * @see FabricModJsonFactory#createFromZipOptional(Path)
+	 */
+	public Optional<FabricModJson> getMod(Path zipPath) {
+		final Path path = zipPath.toAbsolutePath();
+		final Entry entry;
+
+		try {
+			entry = getEntry(path);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read zip: " + zipPath, e);
+		}
+
+		return Optional.ofNullable(entry.createMod(path));
+	}
+
+	private Entry getEntry(Path path) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		final String key = path.toString();
+		final Entry cached = entries.get(key);
+
+		if (cached != null && cached.size() == attributes.size() && cached.lastModified() == attributes.lastModifiedTime().toMillis()) {
+			return cached;
+		}
+
+		final Entry entry = readEntry(path, attributes);
+		entries.put(key, entry);
+		return entry;
+	}
+
+	private static Entry readEntry(Path path, BasicFileAttributes attributes) throws IOException {
+		final List<String> metadataFiles = new ArrayList<>();
+		metadataFiles.add(FabricModJsonFactory.FABRIC_MOD_JSON);
+		metadataFiles.addAll(ModMetadataFiles.getFilePaths());
+
+		try (RawZipReader reader = RawZipReader.open(path)) {
+			for (String metadataFile : metadataFiles) {
+				final RawZipEntry zipEntry = reader.getEntry(metadataFile);
+
+				if (zipEntry != null) {
+					final String contents = Base64.getEncoder().encodeToString(reader.read(zipEntry));
+					return new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), metadataFile, contents);
+				}
+			}
+		}
+
+		return new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), null, null);
+	}
+
+	/**
+	 * Write the index if it has changed, entries for jars that no longer exist are removed.
+	 */
+	public void save() {
+		entries.save(path -> Files.exists(Path.of(path)));
+	}
+
+	/**
+	 * @param metadataFile the path of the metadata file in the jar, or {@code null} if the jar is not a mod
+	 * @param contents the Base64 encoded bytes of the metadata file
+	 */
+	private record Entry(long size, long lastModified, @Nullable String metadataFile, @Nullable String contents) {
+		@Nullable FabricModJson createMod(Path path) {
+			if (metadataFile == null || contents == null) {
+				return null;
+			}
+
+			final var source = new FabricModJsonSource.ZipSource(path);
+			final byte[] bytes = Base64.getDecoder().decode(contents);
+
+			if (metadataFile.equals(FabricModJsonFactory.FABRIC_MOD_JSON)) {
+				return FabricModJsonFactory.create(LoomGradlePlugin.GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), JsonObject.class), source);
+			}
+
+			return new ModMetadataFabricModJson(ModMetadataFiles.fromContents(metadataFile, bytes), source);
+		}
+	}
+}
@@ -92,6 +92,20 @@ public final class GradleUtils {
 		return getBooleanPropertyProvider(project, key).getOrElse(false);
 	}
 
+	public static int getIntProperty(Project project, String key, int defaultValue) {
+		final Object value = project.findProperty(key);
+
+		if (value instanceof String str) {
+			try {
+				return Integer.parseInt(str.trim());
+			} catch (final NumberFormatException ex) {
+				return defaultValue;
+			}
+		}
+
+		return defaultValue;
+	}
+
 	// TODO remove when updating loom to Gradle 8.1
 	private static MethodHandle getJavaExecSpec_getJvmArguments() {
 		try {
@@ -39,6 +39,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 
 public abstract class BuildSharedServiceManager implements BuildService<BuildServiceParameters.None> {
 	private static final Logger LOGGER = LoggerFactory.getLogger(BuildSharedServiceManager.class);
@@ -59,6 +61,8 @@ public abstract class BuildSharedServiceManager implements BuildService<BuildSer
 		});
 		task.usesService(provider);
 
+		RetainedSharedServices.setBudget(GradleUtils.getIntProperty(project, Constants.Properties.SHARED_SERVICE_RETENTION_MB, 0) * 1024L * 1024L);
+
 		final BuildSharedServiceManager serviceManager = provider.get();
 		buildEventsListenerRegistry.onTaskCompletion(registerTaskCompletion(task, serviceManager::onFinish));
 		int count = serviceManager.refCount.incrementAndGet();
@@ -0,0 +1,162 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps {@link SharedService#isReusable() reusable} services alive between builds in the same Gradle daemon.
+ *
+ * <p>The services are kept within a heap budget, set with the {@code fabric.loom.sharedServiceRetentionMb} property.
+ * The budget is 0 by default, meaning that no services are retained. When the budget is exceeded the largest of the
+ * least recently used half of the services is closed first, so one large stale service is released rather than
+ * several small ones.
+ *
+ * <p>As the sizes are only estimates, at most {@value #MAX_RETAINED} services are retained whatever their size.
+ */
+public final class RetainedSharedServices {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RetainedSharedServices.class);
+	@VisibleForTesting
+	public static final int MAX_RETAINED = 8;
+	private static final Map<String, Entry> RETAINED = new LinkedHashMap<>(16, 0.75f, true);
+	private static long budget = 0;
+	private static long retainedSize = 0;
+
+	private RetainedSharedServices() {
+	}
+
+	public static synchronized void setBudget(long bytes) {
+		budget = bytes;
+		evict();
+	}
+
+	/**
+	 * Take a retained service, it is no longer retained until it is passed to {@link #retain(String, Entry)} again.
+	 *
+	 * @return the service, or {@code null} if there is no retained service that can be reused
+	 */
+	static @Nullable Entry take(String id) {
+		final Entry entry;
+
+		synchronized (RetainedSharedServices.class) {
+			entry = RETAINED.remove(id);
+
+			if (entry == null) {
+				return null;
+			}
+
+			retainedSize -= entry.size();
+		}
+
+		if (!entry.service().isReusable()) {
+			LOGGER.info("Retained service {} is out of date", id);
+			close(id, entry);
+			return null;
+		}
+
+		LOGGER.info("Reusing service {}, saving ~{} ms", id, entry.creationMillis());
+		return entry;
+	}
+
+	/**
+	 * @return true when the service was retained, otherwise the caller must close it
+	 */
+	static boolean retain(String id, Entry entry) {
+		synchronized (RetainedSharedServices.class) {
+			if (budget <= 0 || entry.size() > budget || !entry.service().isReusable()) {
+				return false;
+			}
+
+			final Entry previous = RETAINED.put(id, entry);
+			retainedSize += entry.size();
+
+			if (previous != null) {
+				// Another manager created the same service, only one is kept
+				retainedSize -= previous.size();
+				close(id, previous);
+			}
+
+			evict();
+			return true;
+		}
+	}
+
+	@VisibleForTesting
+	public static synchronized void clear() {
+		RETAINED.forEach(RetainedSharedServices::close);
+		RETAINED.clear();
+		retainedSize = 0;
+	}
+
+	private static void evict() {
+		while ((retainedSize > budget || budget <= 0 || RETAINED.size() > MAX_RETAINED) && !RETAINED.isEmpty()) {
+			final String id = findEvictionCandidate();
+			final Entry entry = RETAINED.remove(id);
+			retainedSize -= entry.size();
+			LOGGER.info("Releasing retained service {} (~{} MB)", id, entry.size() / (1024 * 1024));
+			close(id, entry);
+		}
+	}
+
+	// The largest service out of the least recently used half, iterating does not change the access order
+	private static String findEvictionCandidate() {
+		final int candidates = (RETAINED.size() + 1) / 2;
+		final Iterator<Map.Entry<String, Entry>> iterator = RETAINED.entrySet().iterator();
+		Map.Entry<String, Entry> largest = iterator.next();
+
+		for (int i = 1; i < candidates; i++) {
+			final Map.Entry<String, Entry> next = iterator.next();
+
+			if (next.getValue().size() > largest.getValue().size()) {
+				largest = next;
+			}
+		}
+
+		return largest.getKey();
+	}
+
+	private static void close(String id, Entry entry) {
+		try {
+			entry.service().close();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to close retained service {}", id, e);
+		}
+	}
+
+	/**
+	 * @param creationMillis how long the service took to create
+	 * @param size the approximate heap retained by the service
+	 */
+	record Entry(SharedService service, long creationMillis, long size) {
+	}
+}
@@ -28,6 +28,14 @@ import java.io.Closeable;
 import java.io.IOException;
 
 public interface SharedService extends Closeable {
+	/**
+	 * Whether the service can be kept after the build has finished and reused by a later build, checked again before
+	 * it is reused. Services should only return true when they can detect that their inputs have not changed.
+	 */
+	default boolean isReusable() {
+		return false;
+	}
+
 	@Override
 	default void close() throws IOException {
 	}
@@ -26,59 +26,128 @@ package net.fabricmc.loom.util.service;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.fabricmc.loom.util.Platform;
+
 /**
  * A simple manager for {@link SharedService} to be used across gradle (sub) projects.
  * This is a basic replacement for gradle's build service api.
+ *
+ * <p>Services with different ids are created concurrently, a service is only created once with other callers waiting
+ * for it. When the manager finishes {@link SharedService#isReusable() reusable} services may be retained for later
+ * builds in the same daemon, see {@link RetainedSharedServices}.
  */
 public abstract class SharedServiceManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(BuildSharedServiceManager.class);
-	private final Map<String, SharedService> sharedServiceMap = new HashMap<>();
+	// A garbage collection while the service is created can hide most of its size
+	private static final long MIN_SERVICE_SIZE = 64L * 1024 * 1024;
+	private final Map<String, CompletableFuture<RetainedSharedServices.Entry>> sharedServiceMap = new ConcurrentHashMap<>();
 
-	private boolean shutdown = false;
+	private volatile boolean shutdown = false;
 
 	SharedServiceManager() {
 		LOGGER.info("Creating new SharedServiceManager({})", hashCode());
 	}
 
 	public <S extends SharedService> S getOrCreateService(String id, Supplier<S> function) {
-		synchronized (sharedServiceMap) {
-			if (shutdown) {
-				throw new UnsupportedOperationException("Cannot get or create service has the manager has been shutdown.");
+		final var future = new CompletableFuture<RetainedSharedServices.Entry>();
+		final CompletableFuture<RetainedSharedServices.Entry> existing = sharedServiceMap.putIfAbsent(id, future);
+
+		// Checked after adding the future, so that onFinish either sees it or this sees the shutdown
+		if (shutdown) {
+			final var exception = new UnsupportedOperationException("Cannot get or create service has the manager has been shutdown.");
+			sharedServiceMap.remove(id, future);
+			future.completeExceptionally(exception);
+			throw exception;
+		}
+
+		if (existing != null) {
+			//noinspection unchecked
+			return (S) join(existing).service();
+		}
+
+		try {
+			RetainedSharedServices.Entry entry = RetainedSharedServices.take(id);
+
+			if (entry == null) {
+				entry = create(id, function);
 			}
 
+			future.complete(entry);
 			//noinspection unchecked
-			S sharedService = (S) sharedServiceMap.get(id);
+			return (S) entry.service();
+		} catch (RuntimeException | Error e) {
+			sharedServiceMap.remove(id, future);
+			future.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private static RetainedSharedServices.Entry create(String id, Supplier<? extends SharedService> function) {
+		LOGGER.debug("Creating service for {}", id);
+
+		// The size is approximate, other services may be created at the same time and the heap may be collected
+		final Runtime runtime = Runtime.getRuntime();
+		final long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+		final long start = System.nanoTime();
 
-			if (sharedService == null) {
-				LOGGER.debug("Creating service for {}", id);
-				sharedService = function.get();
-				sharedServiceMap.put(id, sharedService);
+		final SharedService service = function.get();
+
+		final long creationMillis = (System.nanoTime() - start) / 1_000_000;
+		final long size = Math.max(MIN_SERVICE_SIZE, runtime.totalMemory() - runtime.freeMemory() - usedBefore);
+		LOGGER.info("Created service {} in {} ms, retaining ~{} MB", id, creationMillis, size / (1024 * 1024));
+
+		return new RetainedSharedServices.Entry(service, creationMillis, size);
+	}
+
+	private static RetainedSharedServices.Entry join(CompletableFuture<RetainedSharedServices.Entry> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			} else if (e.getCause() instanceof Error error) {
+				throw error;
 			}
 
-			return sharedService;
+			throw e;
 		}
 	}
 
 	protected void onFinish() {
-		synchronized (sharedServiceMap) {
-			shutdown = true;
-		}
+		shutdown = true;
 
 		LOGGER.info("Closing SharedServiceManager({})", hashCode());
 
 		final List<IOException> exceptionList = new ArrayList<>();
+		boolean closedService = false;
+
+		for (Map.Entry<String, CompletableFuture<RetainedSharedServices.Entry>> entry : sharedServiceMap.entrySet()) {
+			final RetainedSharedServices.Entry service;
 
-		for (SharedService sharedService : sharedServiceMap.values()) {
 			try {
-				sharedService.close();
+				// Wait for services that are still being created
+				service = entry.getValue().join();
+			} catch (CompletionException e) {
+				continue;
+			}
+
+			if (RetainedSharedServices.retain(entry.getKey(), service)) {
+				continue;
+			}
+
+			try {
+				closedService = true;
+				service.service().close();
 			} catch (IOException e) {
 				exceptionList.add(e);
 			}
@@ -86,8 +155,11 @@ public abstract class SharedServiceManager {
 
 		sharedServiceMap.clear();
 
-		// This is required to ensure that mercury releases all of the file handles.
-		System.gc();
+		// This is required to ensure that mercury releases all of the file handles, which would otherwise prevent
+		// the files from being deleted or replaced on Windows.
+		if (closedService && Platform.CURRENT.getOperatingSystem().isWindows()) {
+			System.gc();
+		}
 
 		if (!exceptionList.isEmpty()) {
 			// Done to try and close all the services.
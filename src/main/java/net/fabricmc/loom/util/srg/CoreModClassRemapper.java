@@ -25,12 +25,8 @@
 package net.fabricmc.loom.util.srg;
 
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -43,11 +39,12 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.build.IntermediaryNamespaces;
-import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ModPlatform;
 import net.fabricmc.loom.util.function.CollectionUtil;
+import net.fabricmc.loom.util.zip.ZipEntryPipeline;
 import net.fabricmc.mappingio.tree.MappingTree;
 
 /**
@@ -60,39 +57,40 @@ public final class CoreModClassRemapper {
 	private static final Pattern REDIRECT_FIELD_TO_METHOD_PATTERN = Pattern.compile("^(.*\\w+\\s*\\.\\s*redirectFieldToMethod\\s*\\(\\s*\\w+\\s*,\\s*')(\\w*)('\\s*,(?:\\s*'(\\w+)'\\s*|.*)\\).*)$");
 
 	public static void remapJar(Project project, ModPlatform platform, Path jar, MappingTree mappings) throws IOException {
-		final Logger logger = project.getLogger();
-		final String sourceNamespace = IntermediaryNamespaces.runtimeIntermediary(project);
+		try (ZipEntryPipeline pipeline = ZipEntryPipeline.open(jar)) {
+			remapJar(project.getLogger(), IntermediaryNamespaces.runtimeIntermediary(project), platform, pipeline, mappings);
+			pipeline.apply();
+		}
+	}
 
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar, false)) {
-			Path coremodsJsonPath = fs.getPath("META-INF", "coremods.json");
+	/**
+	 * @param sourceNamespace the runtime intermediary namespace of the project, the coremods are remapped from it to named
+	 */
+	public static void remapJar(Logger logger, String sourceNamespace, ModPlatform platform, ZipEntryPipeline jar, MappingTree mappings) throws IOException {
+		final byte @Nullable [] coremodsJsonBytes = jar.read("META-INF/coremods.json");
 
-			if (Files.notExists(coremodsJsonPath)) {
-				logger.info(":no coremods in " + jar.getFileName());
-				return;
-			}
+		if (coremodsJsonBytes == null) {
+			logger.info(":no coremods in " + jar.getPath().getFileName());
+			return;
+		}
 
-			JsonObject coremodsJson;
+		JsonObject coremodsJson = new Gson().fromJson(new String(coremodsJsonBytes, StandardCharsets.UTF_8), JsonObject.class);
 
-			try (Reader reader = Files.newBufferedReader(coremodsJsonPath)) {
-				coremodsJson = new Gson().fromJson(reader, JsonObject.class);
-			}
+		for (Map.Entry<String, JsonElement> nameFileEntry : coremodsJson.entrySet()) {
+			String file = nameFileEntry.getValue().getAsString();
+			String entryName = file.startsWith("/") ? file.substring(1) : file;
 
-			for (Map.Entry<String, JsonElement> nameFileEntry : coremodsJson.entrySet()) {
-				String file = nameFileEntry.getValue().getAsString();
-				Path js = fs.getPath(file);
-
-				if (Files.exists(js)) {
-					logger.info(":remapping coremod '" + file + "'");
-					remap(js, platform, mappings, sourceNamespace);
-				} else {
-					logger.warn("Coremod '" + file + "' listed in coremods.json but not found");
-				}
+			if (jar.contains(entryName)) {
+				logger.info(":remapping coremod '" + file + "'");
+				jar.transformString(entryName, js -> remap(js, platform, mappings, sourceNamespace));
+			} else {
+				logger.warn("Coremod '" + file + "' listed in coremods.json but not found");
 			}
 		}
 	}
 
-	public static void remap(Path js, ModPlatform platform, MappingTree mappings, String sourceNamespace) throws IOException {
-		List<String> lines = Files.readAllLines(js);
+	public static String remap(String js, ModPlatform platform, MappingTree mappings, String sourceNamespace) {
+		List<String> lines = js.lines().toList();
 		List<String> output = new ArrayList<>(lines);
 		String lastClassName = null;
 
@@ -138,10 +136,10 @@ public final class CoreModClassRemapper {
 			}
 		}
 
-		if (!lines.equals(output)) {
-			try (Writer writer = Files.newBufferedWriter(js, StandardCharsets.UTF_8, StandardOpenOption.WRITE)) {
-				writer.write(String.join("\n", output));
-			}
+		if (lines.equals(output)) {
+			return js;
 		}
+
+		return String.join("\n", output);
 	}
 }
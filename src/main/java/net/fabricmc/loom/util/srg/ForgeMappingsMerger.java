@@ -43,6 +43,7 @@ import org.jetbrains.annotations.Nullable;
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.forge.SrgProvider;
+import net.fabricmc.loom.configuration.providers.mappings.MappingTreeCache;
 import net.fabricmc.loom.util.MappingException;
 import net.fabricmc.loom.util.function.CollectionUtil;
 import net.fabricmc.mappingio.FlatMappingVisitor;
@@ -107,8 +108,7 @@ public final class ForgeMappingsMerger {
 	}
 
 	private static MemoryMappingTree readInput(Path tiny) throws IOException {
-		MemoryMappingTree src = new MemoryMappingTree();
-		MappingReader.read(tiny, src);
+		MemoryMappingTree src = MappingTreeCache.read(tiny);
 		List<String> inputNamespaces = new ArrayList<>(src.getDstNamespaces());
 		inputNamespaces.add(0, src.getSrcNamespace());
 
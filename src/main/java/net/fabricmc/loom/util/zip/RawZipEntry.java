@@ -0,0 +1,46 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+/**
+ * An entry read from the central directory of a zip file.
+ *
+ * @param name The name of the entry
+ * @param method The compression method, {@link java.util.zip.ZipEntry#STORED} or {@link java.util.zip.ZipEntry#DEFLATED}
+ * @param flags The general purpose bit flags
+ * @param crc The CRC-32 of the uncompressed data
+ * @param compressedSize The size of the compressed data
+ * @param size The size of the uncompressed data
+ * @param dosTime The MS-DOS date (upper 16 bits) and time (lower 16 bits)
+ * @param extra The extra field data, without any zip64 extended information
+ * @param versionMadeBy The version made by field
+ * @param externalAttributes The external file attributes
+ * @param localHeaderOffset The offset of the local file header from the start of the zip file
+ */
+public record RawZipEntry(String name, int method, int flags, long crc, long compressedSize, long size, int dosTime, byte[] extra, int versionMadeBy, int externalAttributes, long localHeaderOffset) {
+	public boolean isDirectory() {
+		return name.endsWith("/");
+	}
+}
@@ -0,0 +1,340 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads a zip file directly from its central directory, allowing the compressed data of an entry to be copied
+ * to another zip without inflating it, see {@link RawZipWriter#copyRaw(RawZipReader, RawZipEntry)}.
+ *
+ * <p>All reads use positional file channel operations, so entries can be read from multiple threads at once.
+ */
+public final class RawZipReader implements Closeable {
+	static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	static final int END_SIGNATURE = 0x06054b50;
+	static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	static final int ZIP64_EXTRA_ID = 0x0001;
+
+	static final int LOCAL_HEADER_SIZE = 30;
+	static final int CENTRAL_HEADER_SIZE = 46;
+	static final int END_SIZE = 22;
+	static final int ZIP64_END_SIZE = 56;
+	static final int ZIP64_LOCATOR_SIZE = 20;
+
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final Map<String, RawZipEntry> entries;
+	private long centralDirectoryOffset;
+
+	private RawZipReader(Path path, FileChannel channel) throws IOException {
+		this.path = path;
+		this.channel = channel;
+		this.entries = Collections.unmodifiableMap(readCentralDirectory());
+	}
+
+	public static RawZipReader open(Path path) throws IOException {
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			return new RawZipReader(path, channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The entries in the order they appear in the central directory
+	 */
+	public List<RawZipEntry> entries() {
+		return new ArrayList<>(entries.values());
+	}
+
+	public @Nullable RawZipEntry getEntry(String name) {
+		return entries.get(name);
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @return The offset of the central directory, everything before it is entry data
+	 */
+	long centralDirectoryOffset() {
+		return centralDirectoryOffset;
+	}
+
+	/**
+	 * Read and if needed inflate the contents of an entry.
+	 */
+	public byte[] read(RawZipEntry entry) throws IOException {
+		final byte[] compressed = readFully(dataOffset(entry), checkedSize(entry.compressedSize(), entry));
+		final byte[] data;
+
+		switch (entry.method()) {
+		case ZipEntry.STORED -> data = compressed;
+		case ZipEntry.DEFLATED -> data = inflate(compressed, entry);
+		default -> throw new ZipException("Unsupported compression method " + entry.method() + " for " + entry.name() + " in " + path);
+		}
+
+		final var crc = new CRC32();
+		crc.update(data);
+
+		if (crc.getValue() != entry.crc()) {
+			throw new ZipException("CRC mismatch for " + entry.name() + " in " + path);
+		}
+
+		return data;
+	}
+
+	/**
+	 * Transfer the compressed data of an entry to the target channel, at its current position.
+	 */
+	void transferRaw(RawZipEntry entry, WritableByteChannel target) throws IOException {
+		final long offset = dataOffset(entry);
+		long transferred = 0;
+
+		while (transferred < entry.compressedSize()) {
+			final long count = channel.transferTo(offset + transferred, entry.compressedSize() - transferred, target);
+
+			if (count <= 0) {
+				throw new ZipException("Unexpected end of " + path + " while reading " + entry.name());
+			}
+
+			transferred += count;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private long dataOffset(RawZipEntry entry) throws IOException {
+		final ByteBuffer header = read(entry.localHeaderOffset(), LOCAL_HEADER_SIZE);
+
+		if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header for " + entry.name() + " in " + path);
+		}
+
+		// The local name and extra lengths may differ from the central directory
+		return entry.localHeaderOffset() + LOCAL_HEADER_SIZE + Short.toUnsignedInt(header.getShort(26)) + Short.toUnsignedInt(header.getShort(28));
+	}
+
+	private byte[] inflate(byte[] compressed, RawZipEntry entry) throws IOException {
+		final var inflater = new Inflater(true);
+
+		try {
+			inflater.setInput(compressed);
+			final var out = new ByteArrayOutputStream(checkedSize(entry.size(), entry));
+			final byte[] buffer = new byte[8192];
+
+			while (!inflater.finished()) {
+				final int count = inflater.inflate(buffer);
+
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new ZipException("Truncated deflate data for " + entry.name() + " in " + path);
+				}
+
+				out.write(buffer, 0, count);
+			}
+
+			return out.toByteArray();
+		} catch (DataFormatException e) {
+			throw new ZipException("Invalid deflate data for " + entry.name() + " in " + path + ": " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private Map<String, RawZipEntry> readCentralDirectory() throws IOException {
+		final long fileSize = channel.size();
+
+		if (fileSize < END_SIZE) {
+			throw new ZipException(path + " is not a zip file");
+		}
+
+		// Find the end of central directory record, searching backwards over any trailing comment
+		final int tailSize = (int) Math.min(fileSize, END_SIZE + MAX_COMMENT_SIZE);
+		final long tailOffset = fileSize - tailSize;
+		final ByteBuffer tail = read(tailOffset, tailSize);
+		int endPosition = -1;
+
+		for (int i = tailSize - END_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_SIGNATURE) {
+				endPosition = i;
+				break;
+			}
+		}
+
+		if (endPosition < 0) {
+			throw new ZipException("Could not find the end of central directory in " + path);
+		}
+
+		long entryCount = Short.toUnsignedInt(tail.getShort(endPosition + 10));
+		long centralSize = Integer.toUnsignedLong(tail.getInt(endPosition + 12));
+		long centralOffset = Integer.toUnsignedLong(tail.getInt(endPosition + 16));
+
+		final long locatorOffset = tailOffset + endPosition - ZIP64_LOCATOR_SIZE;
+
+		if (locatorOffset >= 0 && read(locatorOffset, 4).getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+			final long zip64EndOffset = read(locatorOffset, ZIP64_LOCATOR_SIZE).getLong(8);
+			final ByteBuffer zip64End = read(zip64EndOffset, ZIP64_END_SIZE);
+
+			if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+				throw new ZipException("Invalid zip64 end of central directory in " + path);
+			}
+
+			entryCount = zip64End.getLong(32);
+			centralSize = zip64End.getLong(40);
+			centralOffset = zip64End.getLong(48);
+		}
+
+		if (centralSize > Integer.MAX_VALUE) {
+			throw new ZipException("Central directory of " + path + " is too large");
+		}
+
+		centralDirectoryOffset = centralOffset;
+		final ByteBuffer central = read(centralOffset, (int) centralSize);
+		final Map<String, RawZipEntry> entries = new LinkedHashMap<>();
+
+		for (long i = 0; i < entryCount; i++) {
+			if (central.remaining() < CENTRAL_HEADER_SIZE || central.getInt(central.position()) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header in " + path);
+			}
+
+			final int start = central.position();
+			final int versionMadeBy = Short.toUnsignedInt(central.getShort(start + 4));
+			final int flags = Short.toUnsignedInt(central.getShort(start + 8));
+			final int method = Short.toUnsignedInt(central.getShort(start + 10));
+			final int dosTime = central.getInt(start + 12);
+			final long crc = Integer.toUnsignedLong(central.getInt(start + 16));
+			long compressedSize = Integer.toUnsignedLong(central.getInt(start + 20));
+			long size = Integer.toUnsignedLong(central.getInt(start + 24));
+			final int nameLength = Short.toUnsignedInt(central.getShort(start + 28));
+			final int extraLength = Short.toUnsignedInt(central.getShort(start + 30));
+			final int commentLength = Short.toUnsignedInt(central.getShort(start + 32));
+			final int externalAttributes = central.getInt(start + 38);
+			long localHeaderOffset = Integer.toUnsignedLong(central.getInt(start + 42));
+
+			final byte[] nameBytes = new byte[nameLength];
+			central.position(start + CENTRAL_HEADER_SIZE);
+			central.get(nameBytes);
+
+			final byte[] extra = new byte[extraLength];
+			central.get(extra);
+			central.position(central.position() + commentLength);
+
+			// Resolve the zip64 extended information, and strip it from the extra data as the writer adds its own
+			final ByteBuffer extraBuffer = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+			final var filteredExtra = new ByteArrayOutputStream(extraLength);
+
+			while (extraBuffer.remaining() >= 4) {
+				final int id = Short.toUnsignedInt(extraBuffer.getShort());
+				final int length = Short.toUnsignedInt(extraBuffer.getShort());
+
+				if (length > extraBuffer.remaining()) {
+					break;
+				}
+
+				if (id == ZIP64_EXTRA_ID) {
+					final ByteBuffer zip64 = extraBuffer.slice(extraBuffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+
+					if (size == 0xFFFFFFFFL && zip64.remaining() >= 8) {
+						size = zip64.getLong();
+					}
+
+					if (compressedSize == 0xFFFFFFFFL && zip64.remaining() >= 8) {
+						compressedSize = zip64.getLong();
+					}
+
+					if (localHeaderOffset == 0xFFFFFFFFL && zip64.remaining() >= 8) {
+						localHeaderOffset = zip64.getLong();
+					}
+				} else {
+					filteredExtra.write(extra, extraBuffer.position() - 4, length + 4);
+				}
+
+				extraBuffer.position(extraBuffer.position() + length);
+			}
+
+			final String name = new String(nameBytes, StandardCharsets.UTF_8);
+			entries.put(name, new RawZipEntry(name, method, flags, crc, compressedSize, size, dosTime, filteredExtra.toByteArray(), versionMadeBy, externalAttributes, localHeaderOffset));
+		}
+
+		return entries;
+	}
+
+	private ByteBuffer read(long offset, int length) throws IOException {
+		return ByteBuffer.wrap(readFully(offset, length)).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private byte[] readFully(long offset, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new ZipException("Unexpected end of " + path);
+			}
+		}
+
+		return buffer.array();
+	}
+
+	private int checkedSize(long size, RawZipEntry entry) throws ZipException {
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new ZipException(entry.name() + " in " + path + " is too large to be read into memory");
+		}
+
+		return (int) size;
+	}
+}
@@ -0,0 +1,407 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a zip file sequentially, entries can either be copied from another zip without being recompressed,
+ * or written from uncompressed data.
+ *
+ * <p>Entries are written with their sizes and CRC in the local header, which is patched once the data has been
+ * written. This allows data to be streamed into the zip without buffering it.
+ */
+public final class RawZipWriter implements Closeable {
+	/**
+	 * 1980-01-01 00:00:00, the earliest time that can be represented, used for reproducible output.
+	 */
+	public static final int CONSTANT_DOS_TIME = (1 << 5 | 1) << 16;
+
+	private static final int VERSION_NEEDED = 20;
+	private static final int VERSION_NEEDED_ZIP64 = 45;
+	private static final int UTF8_FLAG = 1 << 11;
+	private static final long MAX_32 = 0xFFFFFFFFL;
+	private static final int MAX_16 = 0xFFFF;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final List<RawZipEntry> written = new ArrayList<>();
+	private final Set<String> names = new HashSet<>();
+	private boolean closed = false;
+
+	private RawZipWriter(Path path, FileChannel channel) {
+		this.path = path;
+		this.channel = channel;
+	}
+
+	public static RawZipWriter create(Path path) throws IOException {
+		return new RawZipWriter(path, FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+	}
+
+	/**
+	 * Open an existing zip to add entries to it. The existing entries are kept as they are, only the central directory
+	 * is rewritten when the writer is closed.
+	 */
+	public static RawZipWriter append(Path path) throws IOException {
+		final List<RawZipEntry> existing;
+		final long centralOffset;
+
+		try (RawZipReader reader = RawZipReader.open(path)) {
+			existing = reader.entries();
+			centralOffset = reader.centralDirectoryOffset();
+		}
+
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+
+		try {
+			channel.truncate(centralOffset);
+			channel.position(centralOffset);
+
+			final var writer = new RawZipWriter(path, channel);
+
+			for (RawZipEntry entry : existing) {
+				writer.addEntry(entry);
+			}
+
+			return writer;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public boolean contains(String name) {
+		return names.contains(name);
+	}
+
+	/**
+	 * Copy an entry without inflating and recompressing it, the CRC and sizes are taken from the central directory.
+	 */
+	public void copyRaw(RawZipReader reader, RawZipEntry entry) throws IOException {
+		copyRaw(reader, entry, entry.extra(), entry.dosTime());
+	}
+
+	/**
+	 * Copy an entry without inflating and recompressing it, replacing its time. The extra fields are dropped as they
+	 * may contain extended timestamps.
+	 */
+	public void copyRaw(RawZipReader reader, RawZipEntry entry, int dosTime) throws IOException {
+		copyRaw(reader, entry, new byte[0], dosTime);
+	}
+
+	private void copyRaw(RawZipReader reader, RawZipEntry entry, byte[] extra, int dosTime) throws IOException {
+		final long offset = channel.position();
+		final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+
+		// The data descriptor flag is cleared as the sizes are known up front
+		final int flags = (entry.flags() & UTF8_FLAG) | UTF8_FLAG;
+		writeLocalHeader(name, extra, flags, entry.method(), dosTime, entry.crc(), entry.compressedSize(), entry.size());
+		reader.transferRaw(entry, channel);
+
+		addEntry(new RawZipEntry(entry.name(), entry.method(), flags, entry.crc(), entry.compressedSize(), entry.size(), dosTime, extra, entry.versionMadeBy(), entry.externalAttributes(), offset));
+	}
+
+	public void write(String name, byte[] data) throws IOException {
+		write(name, data, ZipEntry.DEFLATED, CONSTANT_DOS_TIME);
+	}
+
+	public void write(String name, byte[] data, int method, int dosTime) throws IOException {
+		write(name, new ByteArrayInputStream(data), method, dosTime);
+	}
+
+	/**
+	 * Write a new entry, streaming its contents from the input stream.
+	 *
+	 * @param method {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+	 * @param dosTime The MS-DOS date and time of the entry, see {@link RawZipEntry#dosTime()}
+	 */
+	public void write(String name, InputStream data, int method, int dosTime) throws IOException {
+		if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+			throw new IllegalArgumentException("Unsupported compression method " + method);
+		}
+
+		final long offset = channel.position();
+		final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		final byte[] extra = new byte[0];
+
+		// Write a placeholder header, the CRC and sizes are patched in once the data has been written
+		writeLocalHeader(nameBytes, extra, UTF8_FLAG, method, dosTime, 0, 0, 0);
+		final long dataOffset = channel.position();
+
+		final var crc = new CRC32();
+		long size = 0;
+
+		// Not closed, as that would close the channel
+		final var bufferedOut = new BufferedOutputStream(new NonClosingOutputStream(Channels.newOutputStream(channel)), 8192);
+		final Deflater deflater = method == ZipEntry.DEFLATED ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+
+		try {
+			final OutputStream out = deflater != null ? new DeflaterOutputStream(bufferedOut, deflater, 8192) : bufferedOut;
+			final byte[] buffer = new byte[8192];
+			int read;
+
+			while ((read = data.read(buffer)) >= 0) {
+				crc.update(buffer, 0, read);
+				out.write(buffer, 0, read);
+				size += read;
+			}
+
+			if (out instanceof DeflaterOutputStream deflaterOut) {
+				deflaterOut.finish();
+			}
+
+			bufferedOut.flush();
+		} finally {
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+
+		final long endOffset = channel.position();
+		final long compressedSize = endOffset - dataOffset;
+
+		if (size > MAX_32 || compressedSize > MAX_32) {
+			throw new ZipException(name + " is too large to be written to " + path);
+		}
+
+		final ByteBuffer sizes = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+		sizes.putInt((int) crc.getValue()).putInt((int) compressedSize).putInt((int) size).flip();
+		writeFully(sizes, offset + 14);
+
+		addEntry(new RawZipEntry(name, method, UTF8_FLAG, crc.getValue(), compressedSize, size, dosTime, extra, VERSION_NEEDED, 0, offset));
+	}
+
+	/**
+	 * Write a file as a stored entry, when the CRC of the file is already known its contents can be transferred
+	 * directly to the zip without being read into memory.
+	 *
+	 * @param crc the CRC-32 of the file's contents
+	 */
+	public void writeStored(String name, Path file, long crc, int dosTime) throws IOException {
+		final long offset = channel.position();
+		final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		final byte[] extra = new byte[0];
+
+		try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = input.size();
+			writeLocalHeader(nameBytes, extra, UTF8_FLAG, ZipEntry.STORED, dosTime, crc, size, size);
+
+			long transferred = 0;
+
+			while (transferred < size) {
+				final long count = input.transferTo(transferred, size - transferred, channel);
+
+				if (count <= 0) {
+					throw new ZipException("Unexpected end of " + file + " while writing " + name);
+				}
+
+				transferred += count;
+			}
+
+			addEntry(new RawZipEntry(name, ZipEntry.STORED, UTF8_FLAG, crc, size, size, dosTime, extra, VERSION_NEEDED, 0, offset));
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+
+		try (channel) {
+			writeCentralDirectory();
+		}
+	}
+
+	private void addEntry(RawZipEntry entry) throws ZipException {
+		if (!names.add(entry.name())) {
+			throw new ZipException("Duplicate entry " + entry.name() + " in " + path);
+		}
+
+		written.add(entry);
+	}
+
+	private void writeLocalHeader(byte[] name, byte[] extra, int flags, int method, int dosTime, long crc, long compressedSize, long size) throws IOException {
+		if (compressedSize > MAX_32 || size > MAX_32) {
+			throw new ZipException("Entry " + new String(name, StandardCharsets.UTF_8) + " is too large to be written to " + path);
+		}
+
+		final ByteBuffer header = ByteBuffer.allocate(RawZipReader.LOCAL_HEADER_SIZE + name.length + extra.length).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(RawZipReader.LOCAL_HEADER_SIGNATURE);
+		header.putShort((short) VERSION_NEEDED);
+		header.putShort((short) flags);
+		header.putShort((short) method);
+		header.putInt(dosTime);
+		header.putInt((int) crc);
+		header.putInt((int) compressedSize);
+		header.putInt((int) size);
+		header.putShort((short) name.length);
+		header.putShort((short) extra.length);
+		header.put(name);
+		header.put(extra);
+		header.flip();
+
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+
+	private void writeCentralDirectory() throws IOException {
+		final long centralOffset = channel.position();
+		final var out = new BufferedOutputStream(new NonClosingOutputStream(Channels.newOutputStream(channel)), 65536);
+
+		for (RawZipEntry entry : written) {
+			final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+			final boolean zip64 = entry.localHeaderOffset() >= MAX_32;
+			final byte[] extra = zip64 ? withZip64Offset(entry.extra(), entry.localHeaderOffset()) : entry.extra();
+
+			final ByteBuffer header = ByteBuffer.allocate(RawZipReader.CENTRAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(RawZipReader.CENTRAL_HEADER_SIGNATURE);
+			header.putShort((short) entry.versionMadeBy());
+			header.putShort((short) (zip64 ? VERSION_NEEDED_ZIP64 : VERSION_NEEDED));
+			header.putShort((short) entry.flags());
+			header.putShort((short) entry.method());
+			header.putInt(entry.dosTime());
+			header.putInt((int) entry.crc());
+			header.putInt((int) entry.compressedSize());
+			header.putInt((int) entry.size());
+			header.putShort((short) name.length);
+			header.putShort((short) extra.length);
+			header.putShort((short) 0); // Comment length
+			header.putShort((short) 0); // Disk number
+			header.putShort((short) 0); // Internal attributes
+			header.putInt(entry.externalAttributes());
+			header.putInt((int) (zip64 ? MAX_32 : entry.localHeaderOffset()));
+
+			out.write(header.array());
+			out.write(name);
+			out.write(extra);
+		}
+
+		out.flush();
+
+		final long centralEnd = channel.position();
+		final long centralSize = centralEnd - centralOffset;
+		final boolean zip64 = written.size() >= MAX_16 || centralOffset >= MAX_32 || centralSize >= MAX_32;
+
+		if (zip64) {
+			final ByteBuffer zip64End = ByteBuffer.allocate(RawZipReader.ZIP64_END_SIZE + RawZipReader.ZIP64_LOCATOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			zip64End.putInt(RawZipReader.ZIP64_END_SIGNATURE);
+			zip64End.putLong(RawZipReader.ZIP64_END_SIZE - 12);
+			zip64End.putShort((short) VERSION_NEEDED_ZIP64);
+			zip64End.putShort((short) VERSION_NEEDED_ZIP64);
+			zip64End.putInt(0); // Disk number
+			zip64End.putInt(0); // Central directory disk number
+			zip64End.putLong(written.size());
+			zip64End.putLong(written.size());
+			zip64End.putLong(centralSize);
+			zip64End.putLong(centralOffset);
+
+			zip64End.putInt(RawZipReader.ZIP64_LOCATOR_SIGNATURE);
+			zip64End.putInt(0); // Disk number
+			zip64End.putLong(centralEnd);
+			zip64End.putInt(1); // Total disks
+			zip64End.flip();
+
+			writeFully(zip64End, channel.position());
+		}
+
+		final ByteBuffer end = ByteBuffer.allocate(RawZipReader.END_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		end.putInt(RawZipReader.END_SIGNATURE);
+		end.putShort((short) 0); // Disk number
+		end.putShort((short) 0); // Central directory disk number
+		end.putShort((short) Math.min(written.size(), MAX_16));
+		end.putShort((short) Math.min(written.size(), MAX_16));
+		end.putInt((int) Math.min(centralSize, MAX_32));
+		end.putInt((int) Math.min(centralOffset, MAX_32));
+		end.putShort((short) 0); // Comment length
+		end.flip();
+
+		writeFully(end, channel.position());
+	}
+
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		final long end = Math.max(channel.position(), position + buffer.remaining());
+
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+
+		channel.position(end);
+	}
+
+	private static byte[] withZip64Offset(byte[] extra, long localHeaderOffset) {
+		final ByteBuffer buffer = ByteBuffer.allocate(extra.length + 12).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putShort((short) RawZipReader.ZIP64_EXTRA_ID);
+		buffer.putShort((short) 8);
+		buffer.putLong(localHeaderOffset);
+		buffer.put(extra);
+		return buffer.array();
+	}
+
+	private static final class NonClosingOutputStream extends FilterOutputStream {
+		private NonClosingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
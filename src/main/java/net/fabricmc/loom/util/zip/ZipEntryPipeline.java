@@ -0,0 +1,321 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.IOFunction;
+import net.fabricmc.loom.util.ZipReprocessorUtil;
+import net.fabricmc.loom.util.ZipUtils.UnsafeUnaryOperator;
+
+/**
+ * Collects entry level transformations for a zip and applies them all in a single pass.
+ *
+ * <p>The zip's central directory is read once when the pipeline is opened, allowing transformations to be planned
+ * based on the contents of the zip. When applied the zip is rewritten once, entries that are not transformed are
+ * copied without being recompressed. Transformations registered for the same entry are applied in order.
+ */
+public final class ZipEntryPipeline implements Closeable {
+	private final Path zip;
+	private final RawZipReader reader;
+	private final Map<String, UnsafeUnaryOperator<byte[]>> transforms = new HashMap<>();
+	private final Map<String, Addition> additions = new LinkedHashMap<>();
+	private final Set<String> deletions = new HashSet<>();
+
+	private ZipEntryPipeline(Path zip, RawZipReader reader) {
+		this.zip = zip;
+		this.reader = reader;
+	}
+
+	public static ZipEntryPipeline open(Path zip) throws IOException {
+		return new ZipEntryPipeline(zip, RawZipReader.open(zip));
+	}
+
+	public Path getPath() {
+		return zip;
+	}
+
+	public boolean contains(String path) {
+		return additions.containsKey(path) || (reader.getEntry(path) != null && !deletions.contains(path));
+	}
+
+	/**
+	 * Read the original contents of an entry, any pending transformations are not applied.
+	 *
+	 * @return the contents of the entry, or {@code null} if it does not exist
+	 */
+	public byte @Nullable [] read(String path) throws IOException {
+		final RawZipEntry entry = reader.getEntry(path);
+		return entry != null ? reader.read(entry) : null;
+	}
+
+	/**
+	 * Read the contents of an entry as they will be written, with any pending additions and transformations applied.
+	 *
+	 * @return the contents of the entry, or {@code null} if it does not exist or will be deleted
+	 */
+	public byte @Nullable [] readTransformed(String path) throws IOException {
+		final Addition addition = additions.get(path);
+
+		if (addition != null) {
+			return addition.read();
+		}
+
+		if (deletions.contains(path)) {
+			return null;
+		}
+
+		final byte[] bytes = read(path);
+		final UnsafeUnaryOperator<byte[]> transformer = transforms.get(path);
+		return bytes != null && transformer != null ? transformer.apply(bytes) : bytes;
+	}
+
+	/**
+	 * Transform an entry if it exists.
+	 */
+	public ZipEntryPipeline transform(String path, UnsafeUnaryOperator<byte[]> transformer) {
+		transforms.merge(path, transformer, (first, second) -> bytes -> second.apply(first.apply(bytes)));
+		return this;
+	}
+
+	public ZipEntryPipeline transformString(String path, UnsafeUnaryOperator<String> transformer) {
+		return transform(path, bytes -> transformer.apply(new String(bytes, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public <T> ZipEntryPipeline transformJson(Class<T> typeOfT, String path, UnsafeUnaryOperator<T> transformer) {
+		return transform(path, bytes -> {
+			final T json = LoomGradlePlugin.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), typeOfT);
+			return LoomGradlePlugin.GSON.toJson(transformer.apply(json), typeOfT).getBytes(StandardCharsets.UTF_8);
+		});
+	}
+
+	/**
+	 * Replace the contents of an existing entry.
+	 *
+	 * @throws NoSuchFileException if the entry does not exist
+	 */
+	public ZipEntryPipeline replace(String path, byte[] bytes) throws NoSuchFileException {
+		if (!contains(path)) {
+			throw new NoSuchFileException(path);
+		}
+
+		return transform(path, ignored -> bytes);
+	}
+
+	/**
+	 * Add an entry, replacing an existing entry with the same path. Transformations registered for the path apply to the
+	 * added contents.
+	 */
+	public ZipEntryPipeline add(String path, byte[] bytes) {
+		additions.put(path, new Addition(bytes, null, null));
+		deletions.remove(path);
+		return this;
+	}
+
+	/**
+	 * Add an entry from a file, the file is streamed into the zip when the pipeline is applied.
+	 */
+	public ZipEntryPipeline add(String path, Path file) {
+		additions.put(path, new Addition(null, file, null));
+		deletions.remove(path);
+		return this;
+	}
+
+	/**
+	 * Add an entry from a file that is always stored uncompressed, such as a nested jar. As the CRC is known up front the
+	 * file is transferred directly into the zip without being read into memory.
+	 *
+	 * @param crc the CRC-32 of the file's contents
+	 */
+	public ZipEntryPipeline addStored(String path, Path file, long crc) {
+		return addStored(path, file, f -> crc);
+	}
+
+	/**
+	 * Add an entry from a file that is always stored uncompressed, such as a nested jar.
+	 *
+	 * @param crc provides the CRC-32 of the file's contents when it is written, so that it can be checked against the
+	 *            file at that time
+	 */
+	public ZipEntryPipeline addStored(String path, Path file, IOFunction<Path, Long> crc) {
+		additions.put(path, new Addition(null, file, crc));
+		deletions.remove(path);
+		return this;
+	}
+
+	public ZipEntryPipeline deleteIfExists(String path) {
+		additions.remove(path);
+		deletions.add(path);
+		return this;
+	}
+
+	/**
+	 * Rewrite the zip with all of the transformations applied, the pipeline is closed afterwards.
+	 *
+	 * @return the number of entries that were transformed, added or deleted
+	 */
+	public int apply() throws IOException {
+		return apply(OutputOptions.DEFAULT);
+	}
+
+	/**
+	 * Rewrite the zip with all of the transformations applied, the pipeline is closed afterwards.
+	 *
+	 * <p>The zip is always rewritten when the options differ from {@link OutputOptions#DEFAULT}.
+	 *
+	 * @return the number of entries that were transformed, added or deleted
+	 */
+	public int apply(OutputOptions options) throws IOException {
+		int changed = additions.size();
+
+		for (RawZipEntry entry : reader.entries()) {
+			if (!additions.containsKey(entry.name()) && (deletions.contains(entry.name()) || transforms.containsKey(entry.name()))) {
+				changed++;
+			}
+		}
+
+		if (changed == 0 && options.equals(OutputOptions.DEFAULT)) {
+			close();
+			return 0;
+		}
+
+		final List<String> names = new ArrayList<>();
+
+		for (RawZipEntry entry : reader.entries()) {
+			if (!deletions.contains(entry.name()) && !additions.containsKey(entry.name())) {
+				names.add(entry.name());
+			}
+		}
+
+		names.addAll(additions.keySet());
+
+		if (options.reproducibleFileOrder()) {
+			names.sort(ZipReprocessorUtil::specialOrdering);
+		}
+
+		final Path tempFile = Files.createTempFile(zip.toAbsolutePath().getParent(), zip.getFileName().toString(), ".tmp");
+
+		try {
+			try (RawZipWriter writer = RawZipWriter.create(tempFile)) {
+				for (String name : names) {
+					writeEntry(writer, name, options);
+				}
+			}
+
+			close();
+			Files.move(tempFile, zip, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+
+		return changed;
+	}
+
+	private void writeEntry(RawZipWriter writer, String name, OutputOptions options) throws IOException {
+		final UnsafeUnaryOperator<byte[]> transformer = transforms.get(name);
+		final Addition addition = additions.get(name);
+
+		if (addition != null) {
+			final int dosTime = RawZipWriter.CONSTANT_DOS_TIME;
+
+			if (transformer != null) {
+				writer.write(name, transformer.apply(addition.read()), options.compressionMethod(), dosTime);
+			} else if (addition.stored()) {
+				final Path file = Objects.requireNonNull(addition.file());
+				writer.writeStored(name, file, Objects.requireNonNull(addition.crc()).apply(file), dosTime);
+			} else if (addition.file() != null) {
+				try (InputStream inputStream = Files.newInputStream(addition.file())) {
+					writer.write(name, inputStream, options.compressionMethod(), dosTime);
+				}
+			} else {
+				writer.write(name, addition.bytes(), options.compressionMethod(), dosTime);
+			}
+
+			return;
+		}
+
+		final RawZipEntry entry = Objects.requireNonNull(reader.getEntry(name));
+		final int dosTime = options.preserveFileTimestamps() ? entry.dosTime() : RawZipWriter.CONSTANT_DOS_TIME;
+
+		if (transformer != null) {
+			writer.write(name, transformer.apply(reader.read(entry)), options.compressionMethod(), dosTime);
+		} else if (options.compressionMethod() == ZipEntry.STORED && entry.method() != ZipEntry.STORED) {
+			writer.write(name, reader.read(entry), ZipEntry.STORED, dosTime);
+		} else if (options.preserveFileTimestamps()) {
+			writer.copyRaw(reader, entry);
+		} else {
+			writer.copyRaw(reader, entry, dosTime);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	/**
+	 * How the zip is written when the pipeline is applied.
+	 *
+	 * @param reproducibleFileOrder sort the entries, see {@link ZipReprocessorUtil#specialOrdering(String, String)}
+	 * @param preserveFileTimestamps keep the time of existing entries, otherwise a constant time is used. Added entries
+	 *                               always use a constant time
+	 * @param compressionMethod the compression method of new and transformed entries, when {@link ZipEntry#STORED}
+	 *                          all other entries are stored too
+	 */
+	public record OutputOptions(boolean reproducibleFileOrder, boolean preserveFileTimestamps, int compressionMethod) {
+		public static final OutputOptions DEFAULT = new OutputOptions(false, true, ZipEntry.DEFLATED);
+	}
+
+	private record Addition(byte @Nullable [] bytes, @Nullable Path file, @Nullable IOFunction<Path, Long> crc) {
+		boolean stored() {
+			return crc != null;
+		}
+
+		byte[] read() throws IOException {
+			return bytes != null ? bytes : Files.readAllBytes(Objects.requireNonNull(file));
+		}
+	}
+}
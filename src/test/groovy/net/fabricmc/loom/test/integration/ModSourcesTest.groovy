@@ -0,0 +1,141 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.integration
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.test.util.GradleProjectTestTrait
+
+import static net.fabricmc.loom.test.LoomTestConstants.DEFAULT_GRADLE
+import static org.gradle.testkit.runner.TaskOutcome.SUCCESS
+
+class ModSourcesTest extends Specification implements GradleProjectTestTrait {
+	private static final String LOADER = "fabric-loader"
+	private static final String LOADER_VERSION = "0.11.2"
+
+	def "sources are not remapped while configuring"() {
+		setup:
+		def gradle = gradleProject(project: "simple", version: DEFAULT_GRADLE)
+
+		when:
+		def result = gradle.run(task: "help")
+
+		then:
+		result.task(":help").outcome == SUCCESS
+		// The mods are remapped, but not their sources
+		remappedFile(gradle, "${LOADER}-${LOADER_VERSION}.jar") != null
+		remappedSources(gradle).isEmpty()
+	}
+
+	def "only the requested sources are remapped"() {
+		setup:
+		def gradle = gradleProject(project: "simple", version: DEFAULT_GRADLE)
+		gradle.run(task: "help")
+		gradle.buildGradle << """
+			tasks.named("remapModSources") {
+				dependencyNotations.add("${loaderNotation(gradle)}")
+			}
+		""".stripIndent()
+
+		when:
+		def result = gradle.run(task: "remapModSources")
+
+		then:
+		result.task(":remapModSources").outcome == SUCCESS
+		remappedSources(gradle)*.name == ["${LOADER}-${LOADER_VERSION}-sources.jar".toString()]
+	}
+
+	def "downloading sources in intellij remaps the requested sources"() {
+		setup:
+		def gradle = gradleProject(project: "simple", version: DEFAULT_GRADLE)
+		gradle.run(task: "help")
+
+		// Mimics the init script that IntelliJ runs to download the sources of a dependency
+		def initScript = new File(gradle.projectDir, "ijDownloadSources1.gradle")
+		initScript.text = """
+			class IjDownloadTask extends DefaultTask {
+			}
+
+			rootProject {
+				tasks.register("ijDownloadSources1", IjDownloadTask) {
+					def dependencyNotation = '${loaderNotation(gradle)}:sources'
+				}
+			}
+		""".stripIndent()
+
+		when:
+		def result = gradle.run(task: "ijDownloadSources1", args: ["--init-script", initScript.absolutePath])
+
+		then:
+		result.task(":remapModSources").outcome == SUCCESS
+		remappedSources(gradle)*.name == ["${LOADER}-${LOADER_VERSION}-sources.jar".toString()]
+	}
+
+	def "eclipse attaches the remapped sources"() {
+		setup:
+		def gradle = gradleProject(project: "simple", version: DEFAULT_GRADLE)
+
+		when:
+		def result = gradle.run(task: "eclipse")
+		def classpath = new File(gradle.projectDir, ".classpath").text
+
+		then:
+		result.task(":remapModSources").outcome == SUCCESS
+		classpath.contains("${LOADER}-${LOADER_VERSION}-sources.jar")
+	}
+
+	private static File remappedModCache(GradleProject gradle) {
+		return new File(gradle.projectDir, ".gradle/loom-cache/remapped_mods")
+	}
+
+	private static File remappedFile(GradleProject gradle, String name) {
+		return findFiles(remappedModCache(gradle)) { it.name == name }.find()
+	}
+
+	private static List<File> remappedSources(GradleProject gradle) {
+		return findFiles(remappedModCache(gradle)) { it.name.endsWith("-sources.jar") }
+	}
+
+	private static List<File> findFiles(File dir, Closure<Boolean> filter) {
+		def files = []
+
+		if (dir.exists()) {
+			dir.eachFileRecurse {
+				if (it.file && filter(it)) {
+					files << it
+				}
+			}
+		}
+
+		return files
+	}
+
+	// The remapped maven group includes the mappings, so it is read from the layout of the remapped mod cache
+	private static String loaderNotation(GradleProject gradle) {
+		def versionDir = remappedFile(gradle, "${LOADER}-${LOADER_VERSION}.jar").parentFile
+		def group = remappedModCache(gradle).toPath().relativize(versionDir.parentFile.parentFile.toPath()).toString().replace(File.separator, ".")
+		return "${group}:${LOADER}:${LOADER_VERSION}"
+	}
+}
@@ -26,6 +26,8 @@ package net.fabricmc.loom.test.unit
 
 import java.nio.file.Files
 import java.nio.file.Path
+import java.util.concurrent.Executors
+import java.util.zip.ZipFile
 
 import spock.lang.Specification
 
@@ -68,6 +70,92 @@ class AsyncZipProcessorTest extends Specification {
 		thrown(IOException)
 	}
 
+	def "transform entries"() {
+		given:
+		def inputZip = ZipTestUtils.createZip(createEntries())
+		def outputZip = ZipTestUtils.createZip(Collections.emptyMap())
+		Files.delete(outputZip)
+
+		when:
+		// Only transform every other entry, the rest should be copied as is
+		AsyncZipProcessor.transformEntries(inputZip, outputZip, new AsyncZipProcessor.EntryTransformer() {
+					@Override
+					boolean shouldTransform(String name) {
+						return name.endsWith("0.txt")
+					}
+
+					@Override
+					byte[] transform(String name, byte[] input) {
+						return new String(input).toUpperCase().bytes
+					}
+				})
+
+		then:
+		ZipUtils.unpack(outputZip, "file1.txt") == "file1".bytes
+		ZipUtils.unpack(outputZip, "file500.txt") == "FILE500".bytes
+		ZipUtils.unpack(outputZip, "file801.txt") == "file801".bytes
+		entryNames(outputZip) == entryNames(inputZip)
+	}
+
+	def "transform entries shared executor"() {
+		given:
+		def executor = Executors.newFixedThreadPool(2)
+		def inputZip = ZipTestUtils.createZip(createEntries(100))
+		def outputZip1 = Files.createTempFile("loom-test", ".zip")
+		def outputZip2 = Files.createTempFile("loom-test", ".zip")
+		def transformer = new AsyncZipProcessor.EntryTransformer() {
+					@Override
+					boolean shouldTransform(String name) {
+						return true
+					}
+
+					@Override
+					byte[] transform(String name, byte[] input) {
+						return new String(input).toUpperCase().bytes
+					}
+				}
+
+		when:
+		AsyncZipProcessor.transformEntries(inputZip, outputZip1, transformer, executor)
+		AsyncZipProcessor.transformEntries(inputZip, outputZip2, transformer, executor)
+
+		then:
+		!executor.isShutdown()
+		ZipUtils.unpack(outputZip1, "file50.txt") == "FILE50".bytes
+		ZipUtils.unpack(outputZip2, "file50.txt") == "FILE50".bytes
+
+		cleanup:
+		executor.shutdown()
+	}
+
+	def "transform entries re throws"() {
+		given:
+		def inputZip = ZipTestUtils.createZip(createEntries())
+		def outputZip = Files.createTempFile("loom-test", ".zip")
+
+		when:
+		AsyncZipProcessor.transformEntries(inputZip, outputZip, new AsyncZipProcessor.EntryTransformer() {
+					@Override
+					boolean shouldTransform(String name) {
+						return true
+					}
+
+					@Override
+					byte[] transform(String name, byte[] input) {
+						throw new IOException("Test exception")
+					}
+				})
+
+		then:
+		thrown(IOException)
+	}
+
+	static List<String> entryNames(Path zip) {
+		return new ZipFile(zip.toFile()).withCloseable { zipFile ->
+			zipFile.entries().collect { it.name }
+		}
+	}
+
 	Map<String, String> createEntries(int count = 10000) {
 		Map<String, String> entries = [:]
 		for (int i = 0; i < count; i++) {
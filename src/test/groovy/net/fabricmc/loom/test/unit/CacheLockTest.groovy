@@ -0,0 +1,140 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.CacheLock
+
+class CacheLockTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "an artifact is only produced once"() {
+		given:
+		def artifact = tempDir.resolve("artifact.jar")
+		def produced = new AtomicInteger()
+
+		when:
+		def results = (0..<8).collect {
+			CompletableFuture.supplyAsync {
+				CacheLock.produceIfInvalid(artifact, { Files.exists(artifact) }) {
+					produced.incrementAndGet()
+					Thread.sleep(50)
+					Files.writeString(artifact, "contents")
+				}
+			}
+		}.collect { it.get(10, TimeUnit.SECONDS) }
+
+		then:
+		produced.get() == 1
+		results.count { it } == 1
+	}
+
+	def "shared locks are held at once"() {
+		given:
+		def lockFile = tempDir.resolve(".test.lock")
+		def latch = new CountDownLatch(2)
+
+		when:
+		def futures = (0..<2).collect {
+			CompletableFuture.runAsync {
+				CacheLock.acquire(lockFile, CacheLock.Mode.SHARED).withCloseable {
+					latch.countDown()
+					assert latch.await(10, TimeUnit.SECONDS)
+				}
+			}
+		}
+		futures.each { it.get(10, TimeUnit.SECONDS) }
+
+		then:
+		latch.count == 0
+	}
+
+	def "an artifact is produced again after a failed producer"() {
+		given:
+		def artifact = tempDir.resolve("artifact.jar")
+		Files.writeString(artifact, "partial")
+
+		when:
+		CacheLock.produceIfInvalid(artifact, { false }) {
+			throw new IOException("Failed")
+		}
+
+		then:
+		thrown(IOException)
+
+		when:
+		def produced = CacheLock.produceIfInvalid(artifact, { Files.exists(artifact) }) {
+			Files.writeString(artifact, "contents")
+		}
+		def producedAgain = CacheLock.produceIfInvalid(artifact, { Files.exists(artifact) }) {
+			Files.writeString(artifact, "contents")
+		}
+
+		then:
+		produced
+		!producedAgain
+	}
+
+	def "the previous state is recorded"() {
+		given:
+		def lockFile = tempDir.resolve(".test.lock")
+
+		when:
+		def states = []
+
+		CacheLock.acquire(lockFile, CacheLock.Mode.EXCLUSIVE).withCloseable {
+			states << it.previousState()
+			it.disown()
+		}
+		CacheLock.acquire(lockFile, CacheLock.Mode.EXCLUSIVE).withCloseable {
+			states << it.previousState()
+		}
+		CacheLock.acquire(lockFile, CacheLock.Mode.EXCLUSIVE).withCloseable {
+			states << it.previousState()
+			it.complete()
+		}
+		CacheLock.acquire(lockFile, CacheLock.Mode.SHARED).withCloseable {
+			states << it.previousState()
+		}
+
+		then:
+		states == [
+			CacheLock.State.CLEAN,
+			CacheLock.State.DISOWNED,
+			CacheLock.State.ABANDONED,
+			CacheLock.State.CLEAN
+		]
+	}
+}
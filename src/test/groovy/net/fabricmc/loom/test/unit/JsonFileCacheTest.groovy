@@ -0,0 +1,94 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.JsonFileCache
+
+class JsonFileCacheTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "entries written by another daemon are kept on save"() {
+		given:
+		def file = tempDir.resolve("cache.json")
+		def cache = JsonFileCache.get(file, 1, Long)
+		cache.put("removed", 0L)
+		cache.save { true }
+
+		// Another daemon writes its own entries after this one has read the file
+		def other = JsonFileCache.get(tempDir.resolve("other.json"), 1, Long)
+		other.put("other", 2L)
+		other.put("removed", 0L)
+		other.save { true }
+		Files.copy(tempDir.resolve("other.json"), file, StandardCopyOption.REPLACE_EXISTING)
+
+		when:
+		cache.put("own", 1L)
+		cache.remove("removed")
+		cache.save { true }
+		def reloaded = JsonFileCache.get(Files.copy(file, tempDir.resolve("reloaded.json")), 1, Long)
+
+		then:
+		reloaded.get("own") == 1L
+		reloaded.get("other") == 2L
+		reloaded.get("removed") == null
+		cache.get("other") == 2L
+	}
+
+	def "entries that are not retained are removed on save"() {
+		given:
+		def cache = JsonFileCache.get(tempDir.resolve("cache.json"), 1, Long)
+		cache.put("kept", 1L)
+		cache.put("pruned", 2L)
+
+		when:
+		cache.save { it == "kept" }
+
+		then:
+		cache.get("kept") == 1L
+		cache.get("pruned") == null
+	}
+
+	def "files of another version are ignored"() {
+		given:
+		def file = tempDir.resolve("cache.json")
+		def cache = JsonFileCache.get(file, 1, Long)
+		cache.put("entry", 1L)
+		cache.save { true }
+
+		when:
+		def other = JsonFileCache.get(Files.copy(file, tempDir.resolve("other.json")), 2, Long)
+
+		then:
+		other.get("entry") == null
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.mods.MissingSourcesCache
+
+class MissingSourcesCacheTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "missing sources are read from the saved cache"() {
+		given:
+		def cache = MissingSourcesCache.get(tempDir.resolve("missing.json"))
+
+		when:
+		cache.markMissing("com.example:mod:1.0.0")
+		cache.save()
+		def reloaded = MissingSourcesCache.get(Files.copy(tempDir.resolve("missing.json"), tempDir.resolve("reloaded.json")))
+
+		then:
+		reloaded.isMissing("com.example:mod:1.0.0", Duration.ofHours(1))
+		!reloaded.isMissing("com.example:other:1.0.0", Duration.ofHours(1))
+	}
+
+	def "expired entries are looked up again"() {
+		given:
+		def cache = MissingSourcesCache.get(tempDir.resolve("missing.json"))
+		cache.markMissing("com.example:mod:1.0.0")
+
+		expect:
+		!cache.isMissing("com.example:mod:1.0.0", Duration.ZERO)
+		// The expired entry was removed
+		!cache.isMissing("com.example:mod:1.0.0", Duration.ofHours(1))
+	}
+
+	def "found sources are removed"() {
+		given:
+		def cache = MissingSourcesCache.get(tempDir.resolve("missing.json"))
+		cache.markMissing("com.example:mod:1.0.0")
+
+		when:
+		cache.markFound("com.example:mod:1.0.0")
+
+		then:
+		!cache.isMissing("com.example:mod:1.0.0", Duration.ofHours(1))
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.service.RetainedSharedServices
+import net.fabricmc.loom.util.service.ScopedSharedServiceManager
+import net.fabricmc.loom.util.service.SharedService
+
+class SharedServiceManagerTest extends Specification {
+	def cleanup() {
+		RetainedSharedServices.setBudget(0)
+		RetainedSharedServices.clear()
+	}
+
+	def "different services are created concurrently"() {
+		given:
+		def manager = new ScopedSharedServiceManager()
+		def latch = new CountDownLatch(1)
+
+		when:
+		// The first service can only be created once the second has been
+		def first = CompletableFuture.supplyAsync {
+			manager.getOrCreateService("first") {
+				assert latch.await(10, TimeUnit.SECONDS)
+				return new TestService(false)
+			}
+		}
+		Thread.sleep(100)
+		def second = manager.getOrCreateService("second") {
+			latch.countDown()
+			return new TestService(false)
+		}
+
+		then:
+		first.get(10, TimeUnit.SECONDS) != null
+		second != null
+
+		cleanup:
+		manager.close()
+	}
+
+	def "a service is only created once"() {
+		given:
+		def manager = new ScopedSharedServiceManager()
+		def created = new AtomicInteger()
+
+		when:
+		def services = (0..<8).collect {
+			CompletableFuture.supplyAsync {
+				manager.getOrCreateService("service") {
+					created.incrementAndGet()
+					Thread.sleep(50)
+					return new TestService(false)
+				}
+			}
+		}.collect { it.get(10, TimeUnit.SECONDS) }
+
+		then:
+		created.get() == 1
+		services.unique(false) { System.identityHashCode(it) }.size() == 1
+
+		cleanup:
+		manager.close()
+	}
+
+	def "reusable services are retained"() {
+		given:
+		RetainedSharedServices.setBudget(1024L * 1024L * 1024L)
+		def reusable = new TestService(true)
+		def notReusable = new TestService(false)
+
+		when:
+		new ScopedSharedServiceManager().withCloseable {
+			it.getOrCreateService("reusable") { reusable }
+			it.getOrCreateService("notReusable") { notReusable }
+		}
+
+		def manager = new ScopedSharedServiceManager()
+		def reused = manager.getOrCreateService("reusable") { new TestService(true) }
+		def recreated = manager.getOrCreateService("notReusable") { new TestService(false) }
+
+		then:
+		reused.is(reusable)
+		!reusable.closed
+		!recreated.is(notReusable)
+		notReusable.closed
+
+		cleanup:
+		manager.close()
+	}
+
+	def "services are not retained without a budget"() {
+		given:
+		def reusable = new TestService(true)
+
+		when:
+		new ScopedSharedServiceManager().withCloseable {
+			it.getOrCreateService("reusable") { reusable }
+		}
+
+		then:
+		reusable.closed
+	}
+
+	def "the largest of the least recently used services is released first"() {
+		given:
+		RetainedSharedServices.setBudget(100)
+		def small = new TestService(true)
+		def large = new TestService(true)
+		def recent = new TestService(true)
+
+		when:
+		RetainedSharedServices.retain("small", new RetainedSharedServices.Entry(small, 0, 10))
+		RetainedSharedServices.retain("large", new RetainedSharedServices.Entry(large, 0, 50))
+		RetainedSharedServices.retain("recent", new RetainedSharedServices.Entry(recent, 0, 45))
+
+		then:
+		// Releasing only the least recently used service would have been enough, but the larger one is released
+		!small.closed
+		large.closed
+		!recent.closed
+	}
+
+	def "the number of retained services is limited"() {
+		given:
+		RetainedSharedServices.setBudget(1024L * 1024L * 1024L)
+		def services = (0..RetainedSharedServices.MAX_RETAINED).collect { new TestService(true) }
+
+		when:
+		services.eachWithIndex { service, i ->
+			RetainedSharedServices.retain("service" + i, new RetainedSharedServices.Entry(service, 0, 0))
+		}
+
+		then:
+		// All of the services fit in the budget, so the least recently used one is released
+		services.first().closed
+		services.tail().every { !it.closed }
+	}
+
+	static class TestService implements SharedService {
+		final boolean reusable
+		boolean closed = false
+
+		TestService(boolean reusable) {
+			this.reusable = reusable
+		}
+
+		@Override
+		boolean isReusable() {
+			return reusable
+		}
+
+		@Override
+		void close() {
+			closed = true
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.TaskGraph
+
+class TaskGraphTest extends Specification {
+	def "tasks run after their dependencies"() {
+		given:
+		def graph = new TaskGraph("test")
+		def order = Collections.synchronizedList([])
+
+		def first = graph.supply("first") {
+			order << "first"
+			return 1
+		}
+		def second = graph.supplyAsync("second", {
+			order << "second"
+			return first.get() + 1
+		}, first)
+		def third = graph.supply("third", {
+			order << "third"
+			return second.get() + 1
+		}, second)
+
+		when:
+		graph.execute(parallelism)
+
+		then:
+		order == ["first", "second", "third"]
+		third.get() == 3
+
+		where:
+		parallelism << [1, 4]
+	}
+
+	def "async tasks run concurrently"() {
+		given:
+		def graph = new TaskGraph("test")
+		def latch = new CountDownLatch(2)
+		def task = {
+			latch.countDown()
+			assert latch.await(10, TimeUnit.SECONDS)
+		}
+
+		graph.runAsync("first", task)
+		graph.runAsync("second", task)
+
+		when:
+		graph.execute(2)
+
+		then:
+		latch.count == 0
+	}
+
+	def "tasks are not started after a failure"() {
+		given:
+		def graph = new TaskGraph("test")
+		def ran = false
+
+		def failing = graph.runAsync("failing") {
+			throw new IOException("Failed")
+		}
+		graph.run("dependent", { ran = true }, failing)
+		graph.runAsync("other") {
+			Thread.sleep(50)
+		}
+
+		when:
+		graph.execute(parallelism)
+
+		then:
+		def e = thrown(IOException)
+		e.message == "Failed"
+		!ran
+
+		where:
+		parallelism << [1, 2]
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
+import com.google.gson.JsonObject
+import spock.lang.Specification
+
+import net.fabricmc.loom.test.util.ZipTestUtils
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.loom.util.zip.ZipEntryPipeline
+
+class ZipEntryPipelineTest extends Specification {
+	def "apply in single pass"() {
+		given:
+		def zip = ZipTestUtils.createZip([
+			"fabric.mod.json": '{"id": "test", "jars": []}',
+			"META-INF/jarjar/metadata.json": "{}",
+			"test.txt": "hello",
+			"other.txt": "untouched"
+		])
+
+		when:
+		def changed = ZipEntryPipeline.open(zip).withCloseable { jar ->
+			jar.deleteIfExists("META-INF/jarjar/metadata.json")
+			jar.transformJson(JsonObject.class, "fabric.mod.json") { json ->
+				json.remove("jars")
+				return json
+			}
+			jar.transformString("test.txt") { it.toUpperCase() }
+			jar.transformString("test.txt") { it + "!" }
+			jar.transformString("missing.txt") { it }
+			return jar.apply()
+		}
+
+		then:
+		changed == 3
+		!ZipUtils.contains(zip, "META-INF/jarjar/metadata.json")
+		ZipUtils.unpackGson(zip, "fabric.mod.json", JsonObject.class).keySet() == ["id"] as Set
+		ZipUtils.unpack(zip, "test.txt") == "HELLO!".bytes
+		ZipUtils.unpack(zip, "other.txt") == "untouched".bytes
+		!ZipUtils.contains(zip, "missing.txt")
+	}
+
+	def "unchanged zip is not rewritten"() {
+		given:
+		def zip = ZipTestUtils.createZip(["test.txt": "hello"])
+		def modified = zip.toFile().lastModified()
+		zip.toFile().setLastModified(modified - 10000)
+
+		when:
+		def changed = ZipEntryPipeline.open(zip).withCloseable { jar ->
+			jar.transform("missing.txt") { it }
+			return jar.apply()
+		}
+
+		then:
+		changed == 0
+		zip.toFile().lastModified() == modified - 10000
+	}
+
+	def "keeps entry order"() {
+		given:
+		def entries = (0..<100).collectEntries { ["file${it}.txt".toString(), "file$it".toString()] }
+		def zip = ZipTestUtils.createZip(entries)
+		def before = entryNames(zip)
+
+		when:
+		ZipEntryPipeline.open(zip).withCloseable { jar ->
+			jar.transformString("file50.txt") { it.toUpperCase() }
+			jar.apply()
+		}
+
+		then:
+		entryNames(zip) == before
+		ZipUtils.unpack(zip, "file50.txt") == "FILE50".bytes
+	}
+
+	def "replace missing throws"() {
+		given:
+		def zip = ZipTestUtils.createZip(["test.txt": "hello"])
+
+		when:
+		ZipEntryPipeline.open(zip).withCloseable { jar ->
+			jar.replace("missing.txt", "test".bytes)
+		}
+
+		then:
+		thrown(NoSuchFileException)
+	}
+
+	def "add entries with output options"() {
+		given:
+		def zip = ZipTestUtils.createZip(["b.txt": "b", "META-INF/MANIFEST.MF": "Manifest-Version: 1.0", "a.txt": "a"])
+		def nested = Files.createTempFile("nested", ".jar")
+		nested.text = "nested"
+
+		when:
+		ZipEntryPipeline.open(zip).withCloseable { jar ->
+			jar.add("META-INF/jars/nested.jar", nested)
+			jar.add("0.txt", "zero".bytes)
+			jar.transformString("a.txt") { it.toUpperCase() }
+			jar.apply(new ZipEntryPipeline.OutputOptions(true, false, ZipEntry.STORED))
+		}
+
+		then:
+		entryNames(zip) == [
+			"META-INF/MANIFEST.MF",
+			"0.txt",
+			"META-INF/jars/nested.jar",
+			"a.txt",
+			"b.txt"
+		]
+		ZipUtils.unpack(zip, "META-INF/jars/nested.jar") == "nested".bytes
+		ZipUtils.unpack(zip, "a.txt") == "A".bytes
+		new ZipFile(zip.toFile()).withCloseable { zipFile ->
+			zipFile.entries().every { it.method == ZipEntry.STORED && it.time == new GregorianCalendar(1980, Calendar.JANUARY, 1).timeInMillis }
+		}
+	}
+
+	def "add stored entry"() {
+		given:
+		def zip = ZipTestUtils.createZip(["fabric.mod.json": '{"id": "test"}'])
+		def nested = ZipTestUtils.createZip(["fabric.mod.json": '{"id": "nested"}'])
+		def crc = new CRC32()
+		crc.update(Files.readAllBytes(nested))
+
+		when:
+		ZipEntryPipeline.open(zip).withCloseable { jar ->
+			jar.addStored("META-INF/jars/nested.jar", nested, crc.value)
+			jar.apply()
+		}
+
+		then:
+		ZipUtils.unpack(zip, "META-INF/jars/nested.jar") == Files.readAllBytes(nested)
+		new ZipFile(zip.toFile()).withCloseable { zipFile ->
+			zipFile.getEntry("META-INF/jars/nested.jar").method == ZipEntry.STORED
+		}
+	}
+
+	def "stored entry crc is provided when written"() {
+		given:
+		def zip = ZipTestUtils.createZip(["fabric.mod.json": '{"id": "test"}'])
+		def nested = ZipTestUtils.createZip(["fabric.mod.json": '{"id": "nested"}'])
+
+		when:
+		ZipEntryPipeline.open(zip).withCloseable { jar ->
+			jar.addStored("META-INF/jars/nested.jar", nested) { path ->
+				def crc = new CRC32()
+				crc.update(Files.readAllBytes(path))
+				return crc.value
+			}
+
+			// The nested jar changes after it was added
+			Files.copy(ZipTestUtils.createZip(["fabric.mod.json": '{"id": "changed"}']), nested, StandardCopyOption.REPLACE_EXISTING)
+			jar.apply()
+		}
+
+		then:
+		def crc = new CRC32()
+		crc.update(Files.readAllBytes(nested))
+		ZipUtils.unpack(zip, "META-INF/jars/nested.jar") == Files.readAllBytes(nested)
+		new ZipFile(zip.toFile()).withCloseable { zipFile ->
+			zipFile.getEntry("META-INF/jars/nested.jar").crc == crc.value
+		}
+	}
+
+	static List<String> entryNames(Path zip) {
+		return new ZipFile(zip.toFile()).withCloseable { zipFile ->
+			zipFile.entries().collect { it.name }
+		}
+	}
+}
@@ -213,4 +213,29 @@ class ZipUtilsTest extends Specification {
 		then:
 		transformed.get("test").asString == "THIS IS A TEST OF TRANSFORMING"
 	}
+
+	def "transform many entries"() {
+		given:
+		def dir = File.createTempDir()
+		def zip = File.createTempFile("loom-zip-test", ".zip").toPath()
+
+		for (int i = 0; i < 100; i++) {
+			new File(dir, "test${i}.txt").text = "Entry ${i}"
+		}
+
+		ZipUtils.pack(dir.toPath(), zip)
+
+		when:
+		def transforms = (0..<50).collectEntries { i ->
+			[("/test${i}.txt".toString()): { String s -> s.toUpperCase() } as ZipUtils.UnsafeUnaryOperator<String>]
+		}
+		def transformed = ZipUtils.transformString(zip, transforms)
+
+		then:
+		transformed == 50
+		new String(ZipUtils.unpack(zip, "test0.txt"), StandardCharsets.UTF_8) == "ENTRY 0"
+		new String(ZipUtils.unpack(zip, "test49.txt"), StandardCharsets.UTF_8) == "ENTRY 49"
+		new String(ZipUtils.unpack(zip, "test50.txt"), StandardCharsets.UTF_8) == "Entry 50"
+		new String(ZipUtils.unpack(zip, "test99.txt"), StandardCharsets.UTF_8) == "Entry 99"
+	}
 }
@@ -118,6 +118,28 @@ class CachedFileStoreTest extends Specification {
 		Files.notExists(root.resolve("test_300"))
 	}
 
+	def "pruneToByteBudget"() {
+		given:
+		def cacheRules = new CachedFileStoreImpl.CacheRules(1000, 110, Duration.ofDays(7))
+		def store = new CachedFileStoreImpl(root, BYTE_ARRAY_SERIALIZER, cacheRules)
+		when:
+
+		for (i in 0..<20) {
+			def key = "test_" + i
+			store.putEntry(key, "Hello world".bytes)
+			// Higher files are older and should be removed.
+			Files.setLastModifiedTime(root.resolve(key), FileTime.from(Instant.now().minusSeconds(i)))
+		}
+
+		def stats = store.prune()
+
+		then:
+		stats.removedEntries() == 10
+		stats.removedBytes() == 10 * "Hello world".bytes.length
+		Files.exists(root.resolve("test_9"))
+		Files.notExists(root.resolve("test_10"))
+	}
+
 	private static CachedFileStore.EntrySerializer<byte[]> BYTE_ARRAY_SERIALIZER = new CachedFileStore.EntrySerializer<byte[]>() {
 		@Override
 		byte[] read(Path path) throws IOException {
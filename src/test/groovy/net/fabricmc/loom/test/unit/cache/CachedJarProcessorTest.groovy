@@ -54,9 +54,10 @@ class CachedJarProcessorTest extends Specification {
 		def jar = ZipTestUtils.createZip(jarEntries)
 		def cache = Mock(CachedFileStore)
 		def processor = new CachedJarProcessor(cache, "abc123")
+		def outputJar = Files.createTempFile("loom-test-output", ".jar")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, outputJar)
 		def workJob = workRequest.job() as CachedJarProcessor.FullWorkJob
 
 		then:
@@ -74,9 +75,10 @@ class CachedJarProcessorTest extends Specification {
 		def jar = ZipTestUtils.createZip(jarEntries)
 		def cache = Mock(CachedFileStore)
 		def processor = new CachedJarProcessor(cache, "abc123")
+		def outputJar = Files.createTempFile("loom-test-output", ".jar")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, outputJar)
 		def workJob = workRequest.job() as CachedJarProcessor.PartialWorkJob
 		def lineMap = workRequest.lineNumbers().lineMap()
 
@@ -85,7 +87,8 @@ class CachedJarProcessorTest extends Specification {
 		lineMap.get("net/fabricmc/Example") == ExampleCachedData.lineNumbers()
 
 		workJob.outputNameMap().size() == 1
-		ZipUtils.unpackNullable(workJob.existing(), "net/fabricmc/Example.java") == "Example sources".bytes
+		workJob.existingNameMap() == ["net/fabricmc/Example.java": ExampleHash]
+		ZipUtils.unpackNullable(outputJar, "net/fabricmc/Example.java") == "Example sources".bytes
 
 		// Provide one cached entry
 		// And then one call not finding the entry in the cache
@@ -100,9 +103,10 @@ class CachedJarProcessorTest extends Specification {
 		def jar = ZipTestUtils.createZip(jarEntries)
 		def cache = Mock(CachedFileStore)
 		def processor = new CachedJarProcessor(cache, "abc123")
+		def outputJar = Files.createTempFile("loom-test-output", ".jar")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, outputJar)
 		def workJob = workRequest.job() as CachedJarProcessor.CompletedWorkJob
 		def lineMap = workRequest.lineNumbers().lineMap()
 
@@ -111,9 +115,12 @@ class CachedJarProcessorTest extends Specification {
 		lineMap.get("net/fabricmc/Example") == ExampleCachedData.lineNumbers()
 		lineMap.get("net/fabricmc/other/Test") == TestCachedData.lineNumbers()
 
-		workJob.completed() != null
-		ZipUtils.unpackNullable(workJob.completed(), "net/fabricmc/Example.java") == "Example sources".bytes
-		ZipUtils.unpackNullable(workJob.completed(), "net/fabricmc/other/Test.java") == "Test sources".bytes
+		workJob.existingNameMap() == [
+			"net/fabricmc/Example.java": ExampleHash,
+			"net/fabricmc/other/Test.java": TestHash
+		]
+		ZipUtils.unpackNullable(outputJar, "net/fabricmc/Example.java") == "Example sources".bytes
+		ZipUtils.unpackNullable(outputJar, "net/fabricmc/other/Test.java") == "Test sources".bytes
 
 		// Provide one cached entry
 		// And then two calls not finding the entry in the cache
@@ -128,18 +135,16 @@ class CachedJarProcessorTest extends Specification {
 		def jar = ZipTestUtils.createZip(jarEntries)
 		def cache = Mock(CachedFileStore)
 		def processor = new CachedJarProcessor(cache, "abc123")
+		def outputJar = Files.createTempFile("loom-test-output", ".jar")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, outputJar)
 		def workJob = workRequest.job() as CachedJarProcessor.FullWorkJob
 
 		// Do the work, such as decompiling.
 		ZipUtils.add(workJob.output(), "net/fabricmc/Example.java", "Example sources")
 		ZipUtils.add(workJob.output(), "net/fabricmc/other/Test.java", "Test sources")
 
-		def outputJar = Files.createTempFile("loom-test-output", ".jar")
-		Files.delete(outputJar)
-
 		ClassLineNumbers lineNumbers = lineNumbers([
 			"net/fabricmc/Example",
 			"net/fabricmc/other/Test"
@@ -168,17 +173,15 @@ class CachedJarProcessorTest extends Specification {
 		def jar = ZipTestUtils.createZip(jarEntries)
 		def cache = Mock(CachedFileStore)
 		def processor = new CachedJarProcessor(cache, "abc123")
+		def outputJar = Files.createTempFile("loom-test-output", ".jar")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, outputJar)
 		def workJob = workRequest.job() as CachedJarProcessor.PartialWorkJob
 
 		// Do the work
 		ZipUtils.add(workJob.output(), "net/fabricmc/other/Test.java", "Test sources")
 
-		def outputJar = Files.createTempFile("loom-test-output", ".jar")
-		Files.delete(outputJar)
-
 		ClassLineNumbers lineNumbers = lineNumbers([
 			"net/fabricmc/Example",
 			"net/fabricmc/other/Test"
@@ -206,14 +209,12 @@ class CachedJarProcessorTest extends Specification {
 		def jar = ZipTestUtils.createZip(jarEntries)
 		def cache = Mock(CachedFileStore)
 		def processor = new CachedJarProcessor(cache, "abc123")
+		def outputJar = Files.createTempFile("loom-test-output", ".jar")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, outputJar)
 		def workJob = workRequest.job() as CachedJarProcessor.CompletedWorkJob
 
-		def outputJar = Files.createTempFile("loom-test-output", ".jar")
-		Files.delete(outputJar)
-
 		ClassLineNumbers lineNumbers = lineNumbers([
 			"net/fabricmc/Example",
 			"net/fabricmc/other/Test"
@@ -0,0 +1,205 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.cache
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.decompilers.ClassLineNumbers
+import net.fabricmc.loom.decompilers.cache.CachedData
+import net.fabricmc.loom.decompilers.cache.CachedFileStore
+import net.fabricmc.loom.decompilers.cache.CachedFileStoreImpl
+import net.fabricmc.loom.decompilers.cache.IndexedCachedFileStore
+
+class IndexedCachedFileStoreTest extends Specification {
+	@TempDir
+	Path testPath
+
+	def "put and get entry"() {
+		given:
+		def store = IndexedCachedFileStore.open(testPath, BYTE_ARRAY_SERIALIZER, rules(100, Duration.ofDays(7)))
+		when:
+		store.putEntry("abc", "Hello world".bytes)
+		def entry = store.getEntry("abc")
+		def unknownEntry = store.getEntry("123")
+		then:
+		entry == "Hello world".bytes
+		unknownEntry == null
+		cleanup:
+		store.close()
+	}
+
+	def "replace entry"() {
+		given:
+		def store = IndexedCachedFileStore.open(testPath, BYTE_ARRAY_SERIALIZER, rules(100, Duration.ofDays(7)))
+		when:
+		store.putEntry("abc", "Hello world".bytes)
+		store.putEntry("abc", "Goodbye world".bytes)
+		then:
+		store.getEntry("abc") == "Goodbye world".bytes
+		store.size() == 1
+		cleanup:
+		store.close()
+	}
+
+	def "entries persist after reopening"() {
+		given:
+		def store = IndexedCachedFileStore.open(testPath, CachedData.CHANNEL_SERIALIZER, rules(100, Duration.ofDays(7)))
+		def data = new CachedData("net/fabricmc/Example", "Example sources", new ClassLineNumbers.Entry("net/fabricmc/Example", 1, 2, [1: 2]))
+		when:
+		store.putEntry("abc/123", data)
+		store.close()
+		store = IndexedCachedFileStore.open(testPath, CachedData.CHANNEL_SERIALIZER, rules(100, Duration.ofDays(7)))
+		then:
+		store.getEntry("abc/123") == data
+		cleanup:
+		store.close()
+	}
+
+	def "opening the same cache twice shares the store"() {
+		given:
+		def first = IndexedCachedFileStore.open(testPath, BYTE_ARRAY_SERIALIZER, rules(100, Duration.ofDays(7)))
+		def second = IndexedCachedFileStore.open(testPath, BYTE_ARRAY_SERIALIZER, rules(100, Duration.ofDays(7)))
+
+		when:
+		first.putEntry("foo", "bar".bytes)
+		first.close()
+
+		then:
+		second.is(first)
+		second.getEntry("foo") == "bar".bytes
+
+		cleanup:
+		second.close()
+	}
+
+	def "grow index"() {
+		given:
+		def store = IndexedCachedFileStore.open(testPath, BYTE_ARRAY_SERIALIZER, rules(100_000, Duration.ofDays(7)))
+		when:
+		for (i in 0..<50_000) {
+			store.putEntry("test_" + i, ("Hello world " + i).bytes)
+		}
+		then:
+		store.size() == 50_000
+		store.getEntry("test_0") == "Hello world 0".bytes
+		store.getEntry("test_49999") == "Hello world 49999".bytes
+		cleanup:
+		store.close()
+	}
+
+	def "prune many files"() {
+		given:
+		def store = IndexedCachedFileStore.open(testPath, BYTE_ARRAY_SERIALIZER, rules(250, Duration.ofDays(7)))
+		when:
+		for (i in 0..<500) {
+			store.putEntry("test_" + i, "Hello world".bytes)
+		}
+
+		// Access the first 250 entries so the others are the least recently used
+		Thread.sleep(5)
+
+		for (i in 0..<250) {
+			store.getEntry("test_" + i)
+		}
+
+		def stats = store.prune()
+
+		then:
+		stats.removedEntries() == 250
+		stats.removedBytes() == 250 * "Hello world".bytes.length
+		stats.reclaimedBytes() == 250 * "Hello world".bytes.length
+		store.size() == 250
+		store.getEntry("test_0") != null
+		store.getEntry("test_100") != null
+		store.getEntry("test_300") == null
+		// Half the data is dead, so the data file should have been compacted
+		Files.size(testPath.resolve("data.bin")) == 250 * "Hello world".bytes.length
+		cleanup:
+		store.close()
+	}
+
+	def "prune to byte budget"() {
+		given:
+		def store = IndexedCachedFileStore.open(testPath, BYTE_ARRAY_SERIALIZER, new CachedFileStoreImpl.CacheRules(1000, 100, Duration.ofDays(7)))
+		when:
+		for (i in 0..<20) {
+			// 10 bytes each
+			store.putEntry("test_" + i, "0123456789".bytes)
+		}
+
+		// Touch the oldest entry, so it is kept
+		store.getEntry("test_0")
+		def stats = store.prune()
+
+		then:
+		stats.removedEntries() == 10
+		store.liveBytes() == 100
+		store.getEntry("test_0") != null
+		store.getEntry("test_1") == null
+		store.getEntry("test_10") == null
+		store.getEntry("test_11") != null
+		store.getEntry("test_19") != null
+		cleanup:
+		store.close()
+	}
+
+	def "invalid index resets the cache"() {
+		given:
+		def store = IndexedCachedFileStore.open(testPath, BYTE_ARRAY_SERIALIZER, rules(100, Duration.ofDays(7)))
+		store.putEntry("abc", "Hello world".bytes)
+		store.close()
+		when:
+		Files.write(testPath.resolve("index.bin"), "not an index".bytes)
+		store = IndexedCachedFileStore.open(testPath, BYTE_ARRAY_SERIALIZER, rules(100, Duration.ofDays(7)))
+		then:
+		store.getEntry("abc") == null
+		store.size() == 0
+		cleanup:
+		store.close()
+	}
+
+	private static CachedFileStoreImpl.CacheRules rules(long maxFiles, Duration maxAge) {
+		return new CachedFileStoreImpl.CacheRules(maxFiles, maxAge)
+	}
+
+	private static CachedFileStore.ChannelSerializer<byte[]> BYTE_ARRAY_SERIALIZER = new CachedFileStore.ChannelSerializer<byte[]>() {
+		@Override
+		byte[] read(InputStream inputStream) throws IOException {
+			return inputStream.readAllBytes()
+		}
+
+		@Override
+		void write(byte[] entry, FileChannel fileChannel) throws IOException {
+			fileChannel.write(ByteBuffer.wrap(entry))
+		}
+	}
+}
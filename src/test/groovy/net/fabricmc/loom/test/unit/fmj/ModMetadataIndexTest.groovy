@@ -0,0 +1,87 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.fmj
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.test.util.ZipTestUtils
+import net.fabricmc.loom.util.fmj.ModMetadataIndex
+
+class ModMetadataIndexTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "mods are read from the saved index"() {
+		given:
+		def jar = tempDir.resolve("mod.jar")
+		Files.copy(ZipTestUtils.createZip(["fabric.mod.json": fmj("example")]), jar)
+		def notMod = tempDir.resolve("library.jar")
+		Files.copy(ZipTestUtils.createZip(["Example.class": "class"]), notMod)
+
+		when:
+		def index = ModMetadataIndex.get(tempDir.resolve("index.json"))
+		index.getMod(jar)
+		index.getMod(notMod)
+		index.save()
+
+		// Read the index from disk, and clear the jar without changing its size or timestamp to prove that it is not read again
+		def reloaded = ModMetadataIndex.get(Files.copy(tempDir.resolve("index.json"), tempDir.resolve("reloaded.json")))
+		def lastModified = Files.getLastModifiedTime(jar)
+		Files.write(jar, new byte[(int) Files.size(jar)])
+		Files.setLastModifiedTime(jar, lastModified)
+
+		then:
+		reloaded.getMod(jar).get().id == "example"
+		reloaded.getMod(jar).get().classTweakers.keySet() == ["example.accesswidener"] as Set
+		!reloaded.getMod(notMod).isPresent()
+	}
+
+	def "changed jars are read again"() {
+		given:
+		def jar = tempDir.resolve("mod.jar")
+		Files.copy(ZipTestUtils.createZip(["fabric.mod.json": fmj("first")]), jar)
+		def index = ModMetadataIndex.get(tempDir.resolve("index.json"))
+
+		when:
+		def first = index.getMod(jar).get().id
+		Files.copy(ZipTestUtils.createZip(["fabric.mod.json": fmj("second-mod")]), jar, StandardCopyOption.REPLACE_EXISTING)
+		Files.setLastModifiedTime(jar, FileTime.fromMillis(0))
+		def second = index.getMod(jar).get().id
+
+		then:
+		first == "first"
+		second == "second-mod"
+	}
+
+	private static String fmj(String id) {
+		return """{"schemaVersion": 1, "id": "${id}", "version": "1.0.0", "accessWidener": "example.accesswidener"}"""
+	}
+}
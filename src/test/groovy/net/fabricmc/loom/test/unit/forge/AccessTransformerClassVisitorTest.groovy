@@ -0,0 +1,164 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import dev.architectury.at.AccessTransformSet
+import dev.architectury.at.io.AccessTransformFormats
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import org.objectweb.asm.tree.MethodInsnNode
+import spock.lang.Specification
+
+import net.fabricmc.loom.configuration.accesstransformer.AccessTransformerClassVisitor
+
+class AccessTransformerClassVisitorTest extends Specification {
+	def "widen class, field and method"() {
+		given:
+		def ats = readAts('''
+			public-f test.Example
+			public test.Example field
+			protected-f test.Example other
+			public test.Example helper()V
+			''')
+
+		when:
+		def node = transform(ats, createClass())
+
+		then:
+		node.access == (Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER)
+		field(node, 'field').access == Opcodes.ACC_PUBLIC
+		field(node, 'other').access == Opcodes.ACC_PROTECTED
+		method(node, 'helper').access == Opcodes.ACC_PUBLIC
+
+		// The private method call must be changed to a virtual call now that the method is public
+		def call = method(node, 'caller').instructions.find { it instanceof MethodInsnNode } as MethodInsnNode
+		call.opcode == Opcodes.INVOKEVIRTUAL
+		call.name == 'helper'
+	}
+
+	def "fix calls made before the widened method is declared"() {
+		given:
+		def ats = readAts('''
+			public test.Example helper()V
+			''')
+
+		when:
+		def node = transform(ats, createClass(true))
+
+		then:
+		method(node, 'helper').access == Opcodes.ACC_PUBLIC
+		method(node, 'caller').instructions.find { it instanceof MethodInsnNode }.opcode == Opcodes.INVOKEVIRTUAL
+	}
+
+	def "never narrow access"() {
+		given:
+		def ats = readAts('''
+			private test.Example publicField
+			''')
+
+		when:
+		def node = transform(ats, createClass())
+
+		then:
+		field(node, 'publicField').access == Opcodes.ACC_PUBLIC
+		method(node, 'caller').instructions.find { it instanceof MethodInsnNode }.opcode == Opcodes.INVOKESPECIAL
+	}
+
+	def "wildcard transforms"() {
+		given:
+		def ats = readAts('''
+			public test.Example *
+			public test.Example *()
+			''')
+
+		when:
+		def node = transform(ats, createClass())
+
+		then:
+		node.fields.every { it.access == Opcodes.ACC_PUBLIC || it.access == (Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL) }
+		node.methods.every { (it.access & Opcodes.ACC_PUBLIC) != 0 }
+	}
+
+	private static AccessTransformSet readAts(String text) {
+		return AccessTransformFormats.FML.read(new StringReader(text.stripIndent().trim()))
+	}
+
+	private static ClassNode transform(AccessTransformSet ats, byte[] bytes) {
+		def writer = new ClassWriter(0)
+		new ClassReader(bytes).accept(new AccessTransformerClassVisitor(writer, ats), 0)
+
+		def node = new ClassNode()
+		new ClassReader(writer.toByteArray()).accept(node, 0)
+		return node
+	}
+
+	private static field(ClassNode node, String name) {
+		return node.fields.find { it.name == name }
+	}
+
+	private static method(ClassNode node, String name) {
+		return node.methods.find { it.name == name }
+	}
+
+	// final class test.Example { private int field; private final int other; public int publicField; private void helper(); void caller(); }
+	private static byte[] createClass(boolean callerFirst = false) {
+		def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+		writer.visit(Opcodes.V17, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, 'test/Example', null, 'java/lang/Object', null)
+		writer.visitField(Opcodes.ACC_PRIVATE, 'field', 'I', null, null).visitEnd()
+		writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, 'other', 'I', null, null).visitEnd()
+		writer.visitField(Opcodes.ACC_PUBLIC, 'publicField', 'I', null, null).visitEnd()
+
+		if (callerFirst) {
+			writeCaller(writer)
+			writeHelper(writer)
+		} else {
+			writeHelper(writer)
+			writeCaller(writer)
+		}
+
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	private static void writeHelper(ClassWriter writer) {
+		def helper = writer.visitMethod(Opcodes.ACC_PRIVATE, 'helper', '()V', null, null)
+		helper.visitCode()
+		helper.visitInsn(Opcodes.RETURN)
+		helper.visitMaxs(0, 1)
+		helper.visitEnd()
+	}
+
+	private static void writeCaller(ClassWriter writer) {
+		def caller = writer.visitMethod(0, 'caller', '()V', null, null)
+		caller.visitCode()
+		caller.visitVarInsn(Opcodes.ALOAD, 0)
+		caller.visitMethodInsn(Opcodes.INVOKESPECIAL, 'test/Example', 'helper', '()V', false)
+		caller.visitInsn(Opcodes.RETURN)
+		caller.visitMaxs(0, 1)
+		caller.visitEnd()
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.Adler32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import lzma.sdk.lzma.Encoder
+import lzma.streams.LzmaOutputStream
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.forge.binpatch.BinaryPatcher
+import net.fabricmc.loom.test.util.ZipTestUtils
+import net.fabricmc.loom.util.ZipUtils
+
+class BinaryPatcherTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "apply patches"() {
+		given:
+		def clean = ZipTestUtils.createZip([
+			"a.class": "AAAAbbbb",
+			"b.class": "BBBB",
+			"deleted.class": "DDDD",
+			"data.txt": "data"
+		])
+		def patches = writeBundle([
+			patch("a", "AAAAbbbb", gdiff { copy(0, 4); data("XYZ") }),
+			patch("added", null, gdiff { data("NEW") }),
+			patch("deleted", "DDDD", new byte[0])
+		])
+		def output = tempDir.resolve("output.jar")
+
+		when:
+		BinaryPatcher.read(patches).apply(clean, output, keepData)
+
+		then:
+		ZipUtils.unpack(output, "a.class") == "AAAAXYZ".bytes
+		ZipUtils.unpack(output, "b.class") == "BBBB".bytes
+		ZipUtils.unpack(output, "added.class") == "NEW".bytes
+		!ZipUtils.contains(output, "deleted.class")
+		ZipUtils.contains(output, "data.txt") == keepData
+
+		where:
+		keepData << [true, false]
+	}
+
+	def "checksum mismatch"() {
+		given:
+		def clean = ZipTestUtils.createZip(["a.class": "changed"])
+		def patches = writeBundle([patch("a", "AAAAbbbb", gdiff { copy(0, 4) })])
+
+		when:
+		BinaryPatcher.read(patches).apply(clean, tempDir.resolve("output.jar"), false)
+
+		then:
+		def e = thrown(IOException)
+		e.message.contains("expected the checksum")
+	}
+
+	def "supported args"() {
+		expect:
+		BinaryPatcher.supportsArgs(args) == supported
+
+		where:
+		args                                                                               | supported
+		["--clean", "{clean}", "--output", "{output}", "--apply", "{patch}"]               | true
+		["--clean", "{clean}", "--output", "{output}", "--apply", "{patch}", "--data"]     | true
+		["--clean", "{clean}", "--output", "{output}", "--apply", "{patch}", "--pack200"]  | false
+		["--clean", "{clean}", "--output", "{output}"]                                     | false
+	}
+
+	private Path writeBundle(List<byte[]> patches) {
+		def bundle = tempDir.resolve("patches.lzma")
+
+		new ZipOutputStream(new LzmaOutputStream(Files.newOutputStream(bundle), new Encoder())).withCloseable { zip ->
+			patches.eachWithIndex { patch, i ->
+				zip.putNextEntry(new ZipEntry("binpatch/client/patch${i}.binpatch"))
+				zip.write(patch)
+				zip.closeEntry()
+			}
+		}
+
+		return bundle
+	}
+
+	private static byte[] patch(String name, String clean, byte[] diff) {
+		def bytes = new ByteArrayOutputStream()
+		def out = new DataOutputStream(bytes)
+		out.writeByte(1)
+		out.writeUTF(name)
+		out.writeUTF("srg/" + name)
+		out.writeBoolean(clean != null)
+
+		if (clean != null) {
+			def adler = new Adler32()
+			adler.update(clean.bytes)
+			out.writeInt((int) adler.value)
+		}
+
+		out.writeInt(diff.length)
+		out.write(diff)
+		return bytes.toByteArray()
+	}
+
+	private static byte[] gdiff(@DelegatesTo(GDiffWriter) Closure closure) {
+		def writer = new GDiffWriter()
+		writer.with(closure)
+		return writer.finish()
+	}
+
+	static class GDiffWriter {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+		final DataOutputStream out = new DataOutputStream(bytes)
+
+		GDiffWriter() {
+			out.writeInt(0xD1FFD1FF)
+			out.writeByte(4)
+		}
+
+		void copy(int offset, int length) {
+			out.writeByte(249)
+			out.writeShort(offset)
+			out.writeByte(length)
+		}
+
+		void data(String data) {
+			out.writeByte(data.length())
+			out.write(data.bytes)
+		}
+
+		byte[] finish() {
+			out.writeByte(0)
+			return bytes.toByteArray()
+		}
+	}
+}
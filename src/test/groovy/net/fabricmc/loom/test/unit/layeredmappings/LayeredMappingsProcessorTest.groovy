@@ -0,0 +1,138 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.layeredmappings
+
+import java.nio.file.Path
+
+import groovy.transform.EqualsAndHashCode
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.api.mappings.layered.MappingContext
+import net.fabricmc.loom.api.mappings.layered.MappingLayer
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace
+import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingSpec
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsProcessor
+import net.fabricmc.mappingio.MappingVisitor
+import net.fabricmc.mappingio.format.tiny.Tiny2FileReader
+import net.fabricmc.mappingio.format.tiny.Tiny2FileWriter
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class LayeredMappingsProcessorTest extends Specification {
+	static final TestSpec BASE = new TestSpec("tiny\t2\t0\tofficial\tintermediary\tnamed\nc\ta\tclass_1\tclass_1\n", MappingsNamespace.OFFICIAL)
+	static final TestSpec NAMES = new TestSpec("tiny\t2\t0\tintermediary\tnamed\nc\tclass_1\tExample\n", MappingsNamespace.INTERMEDIARY)
+	static final TestSpec RENAMED = new TestSpec("tiny\t2\t0\tintermediary\tnamed\nc\tclass_1\tRenamed\n", MappingsNamespace.INTERMEDIARY)
+	static final Map<TestSpec, Integer> VISITS = [:]
+
+	@TempDir
+	Path tempDir
+
+	def setup() {
+		VISITS.clear()
+	}
+
+	def "snapshots match uncached mappings"() {
+		when:
+		def uncached = getMappings([BASE, NAMES], null)
+		def cached = getMappings([BASE, NAMES], tempDir)
+
+		then:
+		getTiny(cached) == getTiny(uncached)
+		uncached.getClass("Example") != null
+	}
+
+	def "only layers after a changed spec are visited"() {
+		given:
+		getMappings([BASE, NAMES], tempDir)
+
+		when:
+		def mappings = getMappings([BASE, RENAMED], tempDir)
+
+		then:
+		VISITS[BASE] == 1
+		VISITS[RENAMED] == 1
+		mappings.getClass("Renamed") != null
+		getTiny(mappings) == getTiny(getMappings([BASE, RENAMED], null))
+	}
+
+	def "snapshots of other specs are deleted"() {
+		given:
+		getMappings([BASE, NAMES], tempDir)
+
+		when:
+		getMappings([NAMES, RENAMED], tempDir)
+		def snapshots = tempDir.toFile().listFiles().findAll { it.name.endsWith(".tree") }
+
+		then:
+		// Only the first layer of the current specs is saved, the full tree is never saved
+		snapshots.size() == 1
+
+		when:
+		LayeredMappingsProcessor.deleteSnapshots(tempDir)
+
+		then:
+		tempDir.toFile().listFiles().findAll { it.name.endsWith(".tree") }.isEmpty()
+	}
+
+	private static MemoryMappingTree getMappings(List<TestSpec> specs, Path snapshotDir) {
+		def processor = new LayeredMappingsProcessor(new LayeredMappingSpec(specs))
+		return processor.getMappings(processor.resolveLayers(null), snapshotDir)
+	}
+
+	private static String getTiny(MemoryMappingTree mappingTree) {
+		def sw = new StringWriter()
+		mappingTree.accept(new Tiny2FileWriter(sw, false))
+		return sw.toString()
+	}
+
+	@EqualsAndHashCode
+	static class TestSpec implements MappingsSpec<MappingLayer> {
+		final String tiny
+		final MappingsNamespace sourceNamespace
+
+		TestSpec(String tiny, MappingsNamespace sourceNamespace) {
+			this.tiny = tiny
+			this.sourceNamespace = sourceNamespace
+		}
+
+		@Override
+		MappingLayer createLayer(MappingContext context) {
+			def spec = this
+			return new MappingLayer() {
+				@Override
+				void visit(MappingVisitor mappingVisitor) throws IOException {
+					VISITS.merge(spec, 1, Integer::sum)
+					Tiny2FileReader.read(new StringReader(spec.tiny), mappingVisitor)
+				}
+
+				@Override
+				MappingsNamespace getSourceNamespace() {
+					return spec.sourceNamespace
+				}
+			}
+		}
+	}
+}
@@ -24,13 +24,27 @@
 
 package net.fabricmc.loom.test.unit.processor
 
+import java.nio.file.Path
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
 import spock.lang.Specification
+import spock.lang.TempDir
 
+import net.fabricmc.loom.api.processor.ProcessorContext
 import net.fabricmc.loom.api.processor.SpecContext
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager
+import net.fabricmc.loom.test.util.ZipTestUtils
+import net.fabricmc.loom.test.util.processor.TestClassProcessor
 import net.fabricmc.loom.test.util.processor.TestMinecraftJarProcessor
+import net.fabricmc.loom.util.ZipUtils
 
 class MinecraftJarProcessorManagerTest extends Specification {
+	@TempDir
+	Path tempDir
+
 	def "Cache value matches"() {
 		when:
 		def specContext = Mock(SpecContext)
@@ -59,4 +73,71 @@ class MinecraftJarProcessorManagerTest extends Specification {
 		manager1.jarHash == "a714eb2de6"
 		manager2.jarHash == "eb6faafa72"
 	}
+
+	def "Class processors share a single pass"() {
+		given:
+		def jar = ZipTestUtils.createZipFromBytes([
+			"test/A.class": createClass("test/A"),
+			"test/B.class": createClass("test/B"),
+			"test.txt": "Hello".bytes
+		])
+
+		def processors = [
+			new TestClassProcessor(target: "test/A", field: "first"),
+			new TestClassProcessor(target: "test/A", field: "second"),
+			new TestClassProcessor(target: "test/B", field: "third")
+		]
+		def manager = MinecraftJarProcessorManager.create(processors, Mock(SpecContext))
+
+		when:
+		manager.processJar(jar, Mock(ProcessorContext))
+
+		then:
+		fieldNames(ZipUtils.unpack(jar, "test/A.class")) == ["first", "second"]
+		fieldNames(ZipUtils.unpack(jar, "test/B.class")) == ["third"]
+		ZipUtils.unpack(jar, "test.txt") == "Hello".bytes
+	}
+
+	def "Only reprocess classes affected by changed processors"() {
+		given:
+		def input = ZipTestUtils.createZipFromBytes([
+			"test/A.class": createClass("test/A"),
+			"test/B.class": createClass("test/B"),
+		])
+		def stateFile = tempDir.resolve("state.json")
+		def firstJar = tempDir.resolve("first.jar")
+		def secondJar = tempDir.resolve("second.jar")
+
+		def first = MinecraftJarProcessorManager.create([
+			new TestClassProcessor(target: "test/A", field: "a"),
+			new TestClassProcessor(target: "test/B", field: "b")
+		], Mock(SpecContext))
+		def second = MinecraftJarProcessorManager.create([
+			new TestClassProcessor(target: "test/A", field: "a"),
+			new TestClassProcessor(target: "test/B", field: "changed")
+		], Mock(SpecContext))
+
+		when:
+		first.processJar(input, firstJar, stateFile, Mock(ProcessorContext))
+		// Mark the unaffected class, to check that it is copied from the previous jar
+		ZipUtils.replace(firstJar, "test/A.class", createClass("test/Marker"))
+		second.processJar(input, secondJar, stateFile, Mock(ProcessorContext))
+
+		then:
+		ZipUtils.unpack(secondJar, "test/A.class") == createClass("test/Marker")
+		fieldNames(ZipUtils.unpack(secondJar, "test/B.class")) == ["changed"]
+	}
+
+	private static byte[] createClass(String name) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	private static List<String> fieldNames(byte[] bytes) {
+		def node = new ClassNode()
+		new ClassReader(bytes).accept(node, 0)
+		return node.fields*.name
+	}
 }
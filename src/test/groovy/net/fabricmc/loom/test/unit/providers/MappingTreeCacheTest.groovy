@@ -0,0 +1,88 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.providers
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.mappings.MappingTreeCache
+import net.fabricmc.mappingio.format.tiny.Tiny2FileWriter
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class MappingTreeCacheTest extends Specification {
+	private static final String MAPPINGS = """tiny\t2\t0\tofficial\tintermediary\tnamed
+\tescaped-names
+c\ta\tclass_1\tpackage/Example
+\tc\tAn example class
+\tf\tI\ta\tfield_1\tvalue
+\tm\t(La;)V\tb\tmethod_1\trun
+\t\tp\t1\t\t\tother
+\t\tv\t2\t3\t0\t\t\tlocal
+c\tb\tclass_2
+"""
+
+	@TempDir
+	Path tempDir
+
+	def "cached tree matches the mappings"() {
+		given:
+		def mappings = tempDir.resolve("mappings.tiny")
+		mappings.text = MAPPINGS
+
+		when:
+		def read = MappingTreeCache.read(mappings)
+		def cached = MappingTreeCache.read(mappings)
+
+		then:
+		Files.exists(MappingTreeCache.getCachePath(mappings, ""))
+		write(cached) == write(read)
+		cached.getClass("a").getDstName(1) == "package/Example"
+		cached.getClass("a").getMethod("b", "(La;)V").getArgs().size() == 1
+	}
+
+	def "cache is invalidated when the mappings change"() {
+		given:
+		def mappings = tempDir.resolve("mappings.tiny")
+		mappings.text = MAPPINGS
+		MappingTreeCache.read(mappings)
+
+		when:
+		mappings.text = MAPPINGS.replace("package/Example", "package/Changed")
+		mappings.toFile().setLastModified(mappings.toFile().lastModified() + 10000)
+		def tree = MappingTreeCache.read(mappings)
+
+		then:
+		tree.getClass("a").getDstName(1) == "package/Changed"
+	}
+
+	private static String write(MemoryMappingTree tree) {
+		def writer = new StringWriter()
+		tree.accept(new Tiny2FileWriter(writer, false))
+		return writer.toString()
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.util.processor
+
+import java.nio.file.Path
+
+import groovy.transform.Immutable
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.Opcodes
+
+import net.fabricmc.loom.api.processor.MinecraftJarProcessor
+import net.fabricmc.loom.api.processor.ProcessorContext
+import net.fabricmc.loom.api.processor.SpecContext
+import net.fabricmc.loom.util.Constants
+
+/**
+ * Adds a field to the target class.
+ */
+@Immutable
+class TestClassProcessor implements MinecraftJarProcessor<Spec> {
+	String target
+	String field
+
+	final String name = "TestClassProcessor"
+
+	@Override
+	Spec buildSpec(SpecContext context) {
+		return new Spec(target, field)
+	}
+
+	@Immutable
+	static class Spec implements MinecraftJarProcessor.Spec {
+		String target
+		String field
+	}
+
+	@Override
+	void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
+		throw new UnsupportedOperationException("Classes should be processed in a single pass")
+	}
+
+	@Override
+	ClassesProcessor<Spec> processClasses() {
+		return { Spec spec, ProcessorContext context ->
+			return new ClassTransformer() {
+				@Override
+				boolean shouldTransform(String className) {
+					return className == spec.target
+				}
+
+				@Override
+				ClassVisitor transform(String className, ClassVisitor classVisitor) {
+					return new ClassVisitor(Constants.ASM_VERSION, classVisitor) {
+						@Override
+						void visitEnd() {
+							super.visitField(Opcodes.ACC_PUBLIC, spec.field, "I", null, null).visitEnd()
+							super.visitEnd()
+						}
+					}
+				}
+			}
+		} as ClassesProcessor<Spec>
+	}
+}